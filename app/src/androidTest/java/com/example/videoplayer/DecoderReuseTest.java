@@ -0,0 +1,108 @@
+package com.example.videoplayer;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.media.ImageReader;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.Player;
+import androidx.media3.datasource.DefaultDataSource;
+import androidx.media3.datasource.RawResourceDataSource;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs a deck's player through several items the way {@link PlayerDeck} does (load, then unload with
+ * stop()) and checks in QoE's decoder_init histogram that only the first item initialised a decoder.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DecoderReuseTest {
+
+    private static final long TIMEOUT_MS = 10_000L;
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    private final Context context = instrumentation.getTargetContext();
+    private final QoeStats stats = new QoeStats();
+    private volatile String current;
+    private ImageReader frames;
+    private ExoPlayer player;
+
+    @Before
+    public void setUp() {
+        frames = ImageReader.newInstance(480, 1920, ImageFormat.PRIVATE, 2);
+        frames.setOnImageAvailableListener(r -> {
+            Image image = r.acquireLatestImage();
+            if (image != null) image.close();
+        }, new Handler(Looper.getMainLooper()));
+        instrumentation.runOnMainSync(() -> {
+            PlayerProfile profile = SignagePlayerFactory.profileFor(context, 20_000_000L, 2);
+            player = SignagePlayerFactory.build(context, profile, new DefaultDataSource.Factory(context));
+            player.setVideoSurface(frames.getSurface());
+            player.addAnalyticsListener(new QoeListener(stats, () -> current));
+        });
+    }
+
+    @After
+    public void tearDown() {
+        instrumentation.runOnMainSync(() -> player.release());
+        frames.close();
+    }
+
+    @Test
+    public void consecutiveItemsReuseTheDecoder() throws Exception {
+        Uri uri = RawResourceDataSource.buildRawResourceUri(R.raw.output_480x1920);
+        for (String name : new String[] {"a.mp4", "b.mp4", "c.mp4"}) {
+            current = name;
+            instrumentation.runOnMainSync(() -> { // PlayerDeck.load()
+                player.setMediaItem(MediaItem.fromUri(uri));
+                player.setPlayWhenReady(false);
+                player.prepare();
+            });
+            awaitReady();
+            instrumentation.runOnMainSync(() -> { // PlayerDeck.unload()
+                player.stop();
+                player.clearMediaItems();
+            });
+        }
+
+        JSONObject items = new JSONObject(stats.drainJson()).getJSONObject("items");
+        assertEquals(1, decoderInits(items, "a.mp4"));
+        assertEquals(0, decoderInits(items, "b.mp4"));
+        assertEquals(0, decoderInits(items, "c.mp4"));
+    }
+
+    private void awaitReady() throws InterruptedException {
+        long deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS;
+        int[] state = new int[1];
+        while (SystemClock.elapsedRealtime() < deadline) {
+            instrumentation.runOnMainSync(() -> state[0] = player.getPlaybackState());
+            if (state[0] == Player.STATE_READY) return;
+            Thread.sleep(20);
+        }
+        fail("not ready after " + TIMEOUT_MS + " ms: " + current);
+    }
+
+    private static int decoderInits(JSONObject items, String name) throws Exception {
+        if (!items.has(name)) return 0; // nothing recorded for it at all
+        JSONArray h = items.getJSONObject(name).getJSONArray("decoder_init");
+        int n = 0;
+        for (int i = 0; i < h.length(); i++) n += h.getInt(i);
+        return n;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.videoplayer;
+
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limit shared by all download streams.
+ * Priority (playback-critical) transfers run at the full rate at any time, and bulk transfers wait
+ * while one is active. Outside the off-peak windows bulk transfers are held to a lower peak rate.
+ * When playback reports new dropped frames the limit is halved from the observed throughput,
+ * and it grows back by a quarter per quiet interval.
+ */
+final class BandwidthThrottle {
+
+    interface Clock {
+        long nowMs(); // wall clock: the off-peak windows are local times of day
+    }
+
+    interface Sleeper {
+        void sleep(long ms) throws InterruptedException;
+    }
+
+    /** A rate of 0 bytes/s means no limit. */
+    static final long UNLIMITED = 0;
+    static final long ADAPT_INTERVAL_MS = 5_000;
+    /** Adaptation never throttles below this. */
+    static final long MIN_RATE = 64L * 1024;
+    /** Bulk transfers resume once no priority bytes moved for this long. */
+    static final long PRIORITY_IDLE_MS = 1_000;
+    private static final long ADAPTIVE_CEILING = 1L << 30;
+
+    /** Tokens are bytes; capacity is one second at the current rate, so idle time buys at most a 1 s burst. */
+    private static final class Bucket {
+        long tokens, lastMs;
+        boolean started;
+
+        /** Takes bytes at rate; returns how long to wait before sending more. */
+        long take(long now, long bytes, long rate) {
+            if (!started) { started = true; tokens = rate; } // first use starts full
+            else if (now > lastMs) tokens += (now - lastMs) * rate / 1000;
+            lastMs = now;
+            tokens = Math.min(tokens, rate) - bytes;
+            return tokens >= 0 ? 0 : -tokens * 1000 / rate;
+        }
+    }
+
+    private final long rate, peakBulkRate;
+    private final int[] windows; // [startMinute, endMinute) pairs, local time
+    private final TimeZone zone;
+    private final Clock clock;
+    private final Sleeper sleeper;
+    private final LongSupplier droppedFrames;
+
+    private final Bucket priorityBucket = new Bucket(), bulkBucket = new Bucket();
+    private long lastPriorityMs = Long.MIN_VALUE / 2;
+    private long adaptiveLimit = Long.MAX_VALUE;
+    private long intervalStartMs = -1, intervalBytes, lastDropped;
+    private long waitedMs, reductions;
+
+    /**
+     * @param rate          bytes/s for priority transfers, and for bulk ones inside a window (0 = unlimited)
+     * @param peakBulkRate  bytes/s for bulk transfers outside the windows (0 = unlimited)
+     * @param windows       off-peak windows, see {@link #parseWindows}
+     * @param droppedFrames cumulative dropped video frames reported by playback
+     */
+    BandwidthThrottle(long rate, long peakBulkRate, String windows, TimeZone zone, Clock clock, Sleeper sleeper, LongSupplier droppedFrames) {
+        this.rate = Math.max(0, rate);
+        this.peakBulkRate = Math.max(0, peakBulkRate);
+        this.windows = parseWindows(windows);
+        this.zone = zone;
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.droppedFrames = droppedFrames;
+    }
+
+    /** Accounts for bytes just received, blocking as long as the limit for this kind of transfer requires. */
+    void acquire(int bytes, boolean priority) throws InterruptedException {
+        while (true) {
+            long wait;
+            boolean admitted = false;
+            synchronized (this) {
+                long now = clock.nowMs();
+                adapt(now);
+                if (!priority && now - lastPriorityMs < PRIORITY_IDLE_MS) {
+                    wait = PRIORITY_IDLE_MS - (now - lastPriorityMs);
+                } else {
+                    admitted = true;
+                    if (priority) lastPriorityMs = now;
+                    intervalBytes += bytes;
+                    long r = rateFor(priority, now);
+                    if (r == UNLIMITED) return;
+                    // The debt stays in the bucket: concurrent streams queue up behind it
+                    wait = (priority ? priorityBucket : bulkBucket).take(now, bytes, r);
+                    waitedMs += wait;
+                }
+            }
+            if (wait > 0) sleeper.sleep(wait);
+            if (admitted) return;
+        }
+    }
+
+    /** Current bytes/s limit for a transfer kind, 0 if none. */
+    synchronized long rateFor(boolean priority, long nowMs) {
+        long base = priority || inWindow(nowMs) ? rate : peakBulkRate;
+        if (adaptiveLimit == Long.MAX_VALUE) return base;
+        return base == UNLIMITED ? adaptiveLimit : Math.min(base, adaptiveLimit);
+    }
+
+    synchronized String describe() {
+        long now = clock.nowMs();
+        return String.format(Locale.US, "rate=%s bulk=%s offPeak=%b adaptive=%s reductions=%d waited=%dms",
+                kbps(rate), kbps(peakBulkRate), inWindow(now),
+                adaptiveLimit == Long.MAX_VALUE ? "off" : kbps(adaptiveLimit), reductions, waitedMs);
+    }
+
+    private void adapt(long now) {
+        if (intervalStartMs < 0 || now < intervalStartMs) {
+            intervalStartMs = now;
+            lastDropped = droppedFrames.getAsLong();
+            return;
+        }
+        long elapsed = now - intervalStartMs;
+        if (elapsed < ADAPT_INTERVAL_MS) return;
+        long dropped = droppedFrames.getAsLong();
+        // An idle interval says nothing about downloads, whatever playback did meanwhile
+        if (intervalBytes > 0) {
+            if (dropped > lastDropped) {
+                long observed = intervalBytes * 1000 / elapsed;
+                adaptiveLimit = Math.max(MIN_RATE, Math.min(adaptiveLimit, observed) / 2);
+                reductions++;
+            } else if (adaptiveLimit != Long.MAX_VALUE) {
+                adaptiveLimit += adaptiveLimit / 4;
+                if (adaptiveLimit > ADAPTIVE_CEILING) adaptiveLimit = Long.MAX_VALUE;
+            }
+        }
+        lastDropped = dropped;
+        intervalStartMs = now;
+        intervalBytes = 0;
+    }
+
+    private boolean inWindow(long nowMs) {
+        if (windows.length == 0) return false;
+        int minute = (int) Math.floorMod((nowMs + zone.getOffset(nowMs)) / 60_000L, 1440L);
+        for (int i = 0; i < windows.length; i += 2) {
+            int start = windows[i], end = windows[i + 1];
+            if (start <= end ? minute >= start && minute < end : minute >= start || minute < end) return true;
+        }
+        return false;
+    }
+
+    /** "HH:MM-HH:MM[,HH:MM-HH:MM...]" local time, wrapping past midnight; empty means no window. */
+    static int[] parseWindows(String spec) {
+        if (spec == null || spec.trim().isEmpty()) return new int[0];
+        String[] parts = spec.split(",");
+        int[] out = new int[parts.length * 2];
+        for (int i = 0; i < parts.length; i++) {
+            String[] range = parts[i].trim().split("-");
+            if (range.length != 2) throw new IllegalArgumentException("Bad window: " + parts[i]);
+            out[2 * i] = minuteOfDay(range[0]);
+            out[2 * i + 1] = minuteOfDay(range[1]);
+        }
+        return out;
+    }
+
+    private static int minuteOfDay(String hhmm) {
+        String[] v = hhmm.trim().split(":");
+        try {
+            int h = Integer.parseInt(v[0]), m = v.length > 1 ? Integer.parseInt(v[1]) : 0;
+            if (v.length > 2 || h < 0 || h > 24 || m < 0 || m > 59 || h * 60 + m > 1440) throw new NumberFormatException();
+            return h * 60 + m;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad time: " + hhmm);
+        }
+    }
+
+    private static String kbps(long bytesPerSec) {
+        return bytesPerSec == UNLIMITED ? "unlimited" : bytesPerSec / 1024 + "KB/s";
+    }
+}
@@ -5,6 +5,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 
 public class BootReceiver extends BroadcastReceiver {
@@ -25,6 +26,7 @@ public class BootReceiver extends BroadcastReceiver {
                         && Intent.ACTION_LOCKED_BOOT_COMPLETED.equals(action));
 
         if (!isBoot) return;
+        StartupTrace.process(SystemClock::elapsedRealtime).mark("boot_receiver");
 
         // Check if device is locked (just for logging; we still start activity)
         boolean locked = false;
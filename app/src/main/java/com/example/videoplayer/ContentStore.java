@@ -0,0 +1,141 @@
+package com.example.videoplayer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Content-hash index of the video directory: file name -> (sha256, size, mtime).
+ * Hashes come from the streaming download verification; files that predate the index are hashed
+ * once and then served from the index for as long as their size and mtime don't change.
+ */
+final class ContentStore {
+
+    private static final class Entry {
+        final String sha256;
+        final long size;
+        final long mtime;
+
+        Entry(String sha256, long size, long mtime) { this.sha256 = sha256; this.size = size; this.mtime = mtime; }
+    }
+
+    private final File indexFile;
+    private final Map<String, Entry> byName = new HashMap<>();
+    private boolean dirty = false;
+
+    ContentStore(File indexFile) {
+        this.indexFile = indexFile;
+        load();
+    }
+
+    private static String key(File f) { return f.getName().toLowerCase(Locale.US); }
+
+    /** Records a verified hash for f (e.g. computed while it was downloading). */
+    synchronized void put(File f, String sha256) {
+        byName.put(key(f), new Entry(sha256, f.length(), f.lastModified()));
+        dirty = true;
+    }
+
+    synchronized void forget(File f) {
+        if (byName.remove(key(f)) != null) dirty = true;
+    }
+
+    /** Indexed hash of f if it is still current, without touching the file contents. */
+    synchronized String cachedHash(File f) {
+        Entry e = byName.get(key(f));
+        return e != null && e.size == f.length() && e.mtime == f.lastModified() ? e.sha256 : null;
+    }
+
+    /** Hash of f, computing (and indexing) it once if the index has no current entry. */
+    String hashOf(File f) {
+        String h = cachedHash(f);
+        if (h != null || !f.isFile()) return h;
+        try {
+            h = sha256(f);
+            put(f, h);
+            return h;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Places the content of source at target without a network fetch: a hard link when the
+     * filesystem allows it, otherwise a local copy. The target inherits the source's hash.
+     */
+    void link(File source, File target, String sha256) throws Exception {
+        File tmp = new File(target.getParentFile(), target.getName() + ".link");
+        tmp.delete();
+        try {
+            Files.createLink(tmp.toPath(), source.toPath());
+        } catch (Exception linkUnsupported) {
+            try (FileInputStream in = new FileInputStream(source); FileOutputStream out = new FileOutputStream(tmp)) {
+                FileChannel src = in.getChannel(), dst = out.getChannel();
+                long pos = 0, size = src.size();
+                while (pos < size) pos += src.transferTo(pos, size - pos, dst);
+                out.getFD().sync();
+            }
+        }
+        if (target.exists()) target.delete();
+        if (!tmp.renameTo(target)) { tmp.delete(); throw new RuntimeException("rename failed: " + target.getName()); }
+        put(target, sha256);
+    }
+
+    /** Moves source to target (used when the old name is no longer assigned). */
+    void move(File source, File target, String sha256) {
+        if (target.exists()) target.delete();
+        if (!source.renameTo(target)) throw new RuntimeException("rename failed: " + target.getName());
+        forget(source);
+        put(target, sha256);
+    }
+
+    synchronized void save() {
+        if (!dirty) return;
+        Properties p = new Properties();
+        for (Map.Entry<String, Entry> e : byName.entrySet()) {
+            Entry v = e.getValue();
+            p.setProperty(e.getKey(), v.sha256 + "," + v.size + "," + v.mtime);
+        }
+        File tmp = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try {
+            if (!indexFile.getParentFile().exists()) indexFile.getParentFile().mkdirs();
+            try (FileOutputStream out = new FileOutputStream(tmp)) { p.store(out, null); out.getFD().sync(); }
+            if (tmp.renameTo(indexFile)) dirty = false;
+        } catch (Exception ignored) {
+            // Index is a cache; worst case files get hashed again
+        }
+    }
+
+    private void load() {
+        if (!indexFile.exists()) return;
+        Properties p = new Properties();
+        try (FileInputStream in = new FileInputStream(indexFile)) {
+            p.load(in);
+        } catch (Exception e) {
+            return;
+        }
+        for (String name : p.stringPropertyNames()) {
+            String[] v = p.getProperty(name).split(",");
+            if (v.length != 3) continue;
+            try { byName.put(name, new Entry(v[0], Long.parseLong(v[1]), Long.parseLong(v[2]))); }
+            catch (NumberFormatException ignored) {}
+        }
+    }
+
+    static String sha256(File f) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new FileInputStream(f)) {
+            byte[] buf = new byte[131072]; int n;
+            while ((n = in.read(buf)) != -1) md.update(buf, 0, n);
+        }
+        return IncrementalHasher.hex(md.digest());
+    }
+}
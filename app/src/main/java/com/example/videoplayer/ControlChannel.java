@@ -0,0 +1,201 @@
+package com.example.videoplayer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Long-lived server-sent-events stream of control events (rotation, fit mode, assignment changes).
+ * Reconnects on its own thread with the last event id (persisted, so it survives restarts) as resume
+ * token, honouring the server's "retry:" hint (at least {@link #MIN_RETRY_MS}) and backing off on failures;
+ * a stream that closes before it delivered anything counts as one. A server without the
+ * endpoint (404/405/501) is asked again only hourly. Callers keep polling whenever {@link #isLive()}
+ * is false, so the stream is an optimization and never a dependency.
+ */
+final class ControlChannel {
+
+    interface Listener {
+        /** Called on the channel's thread for every event, in stream order. */
+        void onEvent(String type, String data);
+        /** The stream connected (true) or dropped (false). */
+        void onLiveChanged(boolean live);
+    }
+
+    static final long DEFAULT_RETRY_MS = 3_000;
+    static final long MIN_RETRY_MS = 1_000;
+    static final long STABLE_MS = 30_000; // a stream up this long, or one that delivered an event, resets the backoff
+    static final long MAX_RETRY_MS = 5 * 60_000L;
+    static final long UNSUPPORTED_RETRY_MS = 60 * 60_000L;
+
+    private final OkHttpClient client;
+    private final String url;
+    private final File stateFile;
+    private final Listener listener;
+
+    private volatile boolean running, live, unsupported;
+    private volatile String lastEventId;
+    private volatile Call call;
+    private Thread thread;
+    private long retryMs = DEFAULT_RETRY_MS;
+    private int failures;
+    private volatile long connects, events;
+
+    ControlChannel(OkHttpClient client, String url, File stateFile, Listener listener) {
+        this.client = client;
+        this.url = url;
+        this.stateFile = stateFile;
+        this.listener = listener;
+        this.lastEventId = loadLastEventId();
+    }
+
+    synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "control-channel");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        running = false;
+        Call c = call;
+        if (c != null) c.cancel();
+        if (thread != null) thread.interrupt();
+    }
+
+    boolean isLive() { return live; }
+
+    String lastEventId() { return lastEventId; }
+
+    String describe() {
+        return String.format(Locale.US, "live=%b unsupported=%b connects=%d events=%d lastId=%s",
+                live, unsupported, connects, events, lastEventId);
+    }
+
+    private void run() {
+        while (running) {
+            long wait;
+            try {
+                wait = connectOnce();
+            } catch (IOException e) {
+                failures++;
+                wait = Math.min(MAX_RETRY_MS, retryMs << Math.min(failures - 1, 16));
+            }
+            setLive(false);
+            if (!running) break;
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        setLive(false);
+    }
+
+    /** One connection: returns how long to wait before the next one; throws on failures worth backing off. */
+    private long connectOnce() throws IOException {
+        Request.Builder b = new Request.Builder().url(url)
+                .header("Accept", "text/event-stream")
+                .header("Cache-Control", "no-cache");
+        String id = lastEventId;
+        if (id != null) b.header("Last-Event-ID", id);
+        Call c = client.newCall(b.build());
+        call = c;
+        try (Response r = c.execute()) {
+            int code = r.code();
+            unsupported = code == 404 || code == 405 || code == 501;
+            if (unsupported) return UNSUPPORTED_RETRY_MS; // older server: polling stays in charge
+            ResponseBody body = r.body();
+            if (!r.isSuccessful() || body == null) throw new IOException("HTTP " + code);
+            connects++;
+            setLive(true);
+            long since = System.nanoTime(), eventsBefore = events;
+            boolean useful;
+            try {
+                read(new BufferedReader(new InputStreamReader(body.byteStream(), StandardCharsets.UTF_8)));
+            } finally {
+                // A proxy answering 200 and closing at once must back off like any other failure
+                useful = events > eventsBefore || System.nanoTime() - since >= STABLE_MS * 1_000_000L;
+                if (useful) failures = 0;
+            }
+            if (!useful) throw new IOException("stream closed without events");
+            return retryMs; // closed by the server
+        } finally {
+            call = null;
+        }
+    }
+
+    // text/event-stream: "field: value" lines, a blank line dispatches; ":" lines are keep-alive comments
+    private void read(BufferedReader in) throws IOException {
+        String type = null, eventId = null;
+        StringBuilder data = null;
+        String line;
+        while (running && (line = in.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (eventId != null) saveLastEventId(eventId);
+                if (data != null) {
+                    events++;
+                    listener.onEvent(type != null ? type : "message", data.toString());
+                }
+                type = null;
+                eventId = null;
+                data = null;
+                continue;
+            }
+            if (line.charAt(0) == ':') continue;
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) value = value.substring(1);
+            switch (field) {
+                case "event": type = value; break;
+                case "data": data = data == null ? new StringBuilder(value) : data.append('\n').append(value); break;
+                case "id": if (value.indexOf('\0') < 0) eventId = value; break;
+                case "retry":
+                    try { retryMs = Math.max(MIN_RETRY_MS, Math.min(MAX_RETRY_MS, Long.parseLong(value))); } catch (NumberFormatException ignored) {}
+                    break;
+                default: break;
+            }
+        }
+    }
+
+    private void setLive(boolean now) {
+        if (live == now) return;
+        live = now;
+        listener.onLiveChanged(now);
+    }
+
+    private void saveLastEventId(String id) {
+        lastEventId = id;
+        if (stateFile == null) return;
+        File tmp = new File(stateFile.getParentFile(), stateFile.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(id.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            return; // the id is still used in memory
+        }
+        if (!tmp.renameTo(stateFile)) tmp.delete();
+    }
+
+    private String loadLastEventId() {
+        if (stateFile == null || !stateFile.isFile()) return null;
+        try {
+            String id = new String(Files.readAllBytes(stateFile.toPath()), StandardCharsets.UTF_8).trim();
+            return id.isEmpty() ? null : id;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
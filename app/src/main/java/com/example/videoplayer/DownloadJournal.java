@@ -0,0 +1,174 @@
+package com.example.videoplayer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe journal of one ".part" download, kept next to it as ".part.journal": the source URL, the
+ * server's validator (strong ETag, else Last-Modified), the expected length, and per segment a CRC32 of
+ * every committed chunk. The part's bytes are forced to disk before a journal that commits them is written
+ * (tmp, fsync, rename), so it never claims bytes the part does not hold; on resume the committed chunks
+ * are checked again and each segment continues from its first chunk that fails.
+ */
+final class DownloadJournal {
+
+    static final int CHUNK_BYTES = 256 * 1024;
+    private static final String VERSION = "1";
+
+    static final class Segment {
+        final long start, end; // [start, end)
+        volatile long done;    // written; only whole chunks (or the segment's tail) are committed
+        private final List<Integer> crcs = new ArrayList<>(); // of the chunks from start, in order
+        private final CRC32 running = new CRC32();           // over the chunk being written
+
+        Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long remaining() { return end - start - done; }
+
+        synchronized long committed() { return Math.min(end, start + (long) crcs.size() * CHUNK_BYTES); }
+
+        /** len bytes were just written at start + done; chunks are checksummed as they fill. */
+        synchronized void written(byte[] buf, int off, int len) {
+            while (len > 0) {
+                long chunkEnd = Math.min(end, start + (long) (crcs.size() + 1) * CHUNK_BYTES);
+                int n = (int) Math.min(len, chunkEnd - (start + done));
+                running.update(buf, off, n);
+                done += n;
+                off += n;
+                len -= n;
+                if (start + done == chunkEnd) {
+                    crcs.add((int) running.getValue());
+                    running.reset();
+                }
+            }
+        }
+
+        /** Takes the bytes already in the part for this segment as written (a prefix the caller vouches for). */
+        void adopt(FileChannel ch) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+            while (remaining() > 0) {
+                buf.clear();
+                buf.limit((int) Math.min(buf.capacity(), remaining()));
+                int n = ch.read(buf, start + done);
+                if (n <= 0) throw new IOException("part shorter than " + end);
+                written(buf.array(), 0, n);
+            }
+        }
+
+        /** Keeps the committed chunks whose bytes on disk still match; the rest is written again. */
+        synchronized long verify(FileChannel ch, ByteBuffer buf) throws IOException {
+            int good = 0;
+            CRC32 crc = new CRC32();
+            for (; good < crcs.size(); good++) {
+                long from = start + (long) good * CHUNK_BYTES, to = Math.min(end, from + CHUNK_BYTES);
+                crc.reset();
+                for (long pos = from; pos < to; ) {
+                    buf.clear();
+                    buf.limit((int) Math.min(buf.capacity(), to - pos));
+                    int n = ch.read(buf, pos);
+                    if (n <= 0) break;
+                    crc.update(buf.array(), 0, n);
+                    pos += n;
+                }
+                if ((int) crc.getValue() != crcs.get(good)) break;
+            }
+            crcs.subList(good, crcs.size()).clear();
+            running.reset();
+            done = committed() - start;
+            return done;
+        }
+    }
+
+    final String url;       // as requested; signed URLs may differ between sessions
+    final String validator; // "" when the server sent none
+    final long total;
+    final List<Segment> segments;
+
+    DownloadJournal(String url, String validator, long total, List<Segment> segments) {
+        this.url = url;
+        this.validator = validator;
+        this.total = total;
+        this.segments = segments;
+    }
+
+    /** Whether the part can be resumed for a source that now reports this validator and length. */
+    boolean matches(String url, String validator, long total) {
+        if (this.total != total || !this.validator.equals(validator)) return false;
+        // Without a validator only the same resource (query aside, e.g. a new signature) is trusted
+        return !validator.isEmpty() || withoutQuery(this.url).equals(withoutQuery(url));
+    }
+
+    /** Checks every committed chunk against the part; returns the bytes kept. */
+    long verify(FileChannel ch) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+        long kept = 0;
+        for (Segment s : segments) kept += s.verify(ch, buf);
+        return kept;
+    }
+
+    /** Forces the part to disk, then commits the chunks that were complete before it (tmp, fsync, rename). */
+    synchronized void checkpoint(FileChannel ch, File f) throws IOException {
+        List<List<Integer>> crcs = new ArrayList<>();
+        for (Segment s : segments) {
+            synchronized (s) { crcs.add(new ArrayList<>(s.crcs)); }
+        }
+        ch.force(false);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < crcs.size(); i++) {
+            Segment s = segments.get(i);
+            sb.append(s.start).append(',').append(s.end);
+            for (int c : crcs.get(i)) sb.append(',').append(Integer.toHexString(c));
+            sb.append(';');
+        }
+        Properties p = new Properties();
+        p.setProperty("version", VERSION);
+        p.setProperty("url", url);
+        p.setProperty("validator", validator);
+        p.setProperty("total", Long.toString(total));
+        p.setProperty("segments", sb.toString());
+        File tmp = new File(f.getParentFile(), f.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) { p.store(out, null); out.getFD().sync(); }
+        if (!tmp.renameTo(f)) throw new IOException("rename failed: " + f.getName());
+    }
+
+    /** The journal in f, or null if there is none or it cannot be trusted. */
+    static DownloadJournal load(File f) {
+        if (!f.isFile()) return null;
+        try (FileInputStream in = new FileInputStream(f)) {
+            Properties p = new Properties();
+            p.load(in);
+            if (!VERSION.equals(p.getProperty("version"))) return null;
+            List<Segment> segments = new ArrayList<>();
+            for (String s : p.getProperty("segments", "").split(";")) {
+                if (s.isEmpty()) continue;
+                String[] v = s.split(",");
+                Segment seg = new Segment(Long.parseLong(v[0]), Long.parseLong(v[1]));
+                for (int i = 2; i < v.length; i++) seg.crcs.add(Integer.parseUnsignedInt(v[i], 16));
+                seg.done = seg.committed() - seg.start;
+                segments.add(seg);
+            }
+            String url = p.getProperty("url"), validator = p.getProperty("validator");
+            long total = Long.parseLong(p.getProperty("total", "-1"));
+            if (url == null || validator == null || total <= 0 || segments.isEmpty()) return null;
+            return new DownloadJournal(url, validator, total, segments);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String withoutQuery(String url) {
+        int q = url.indexOf('?');
+        return q >= 0 ? url.substring(0, q) : url;
+    }
+}
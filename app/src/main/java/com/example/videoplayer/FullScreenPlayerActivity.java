@@ -6,20 +6,12 @@ import java.util.regex.Pattern;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.List;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 import android.Manifest;
@@ -39,8 +31,6 @@ import android.bluetooth.le.ScanResult;
 import android.bluetooth.le.ScanSettings;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Matrix;
-import android.graphics.SurfaceTexture;
 import android.media.MediaScannerConnection;
 import android.net.ConnectivityManager;
 import android.net.Network;
@@ -54,8 +44,8 @@ import android.os.Looper;
 import android.provider.Settings;
 import android.util.DisplayMetrics;
 import android.util.Log;
-import android.view.Surface;
-import android.view.TextureView;
+import android.os.SystemClock;
+import android.view.Choreographer;
 import android.view.View;
 import android.view.WindowInsets;
 import android.view.WindowInsetsController;
@@ -72,24 +62,27 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 import androidx.media3.common.MediaItem;
-import androidx.media3.common.PlaybackException;
-import androidx.media3.common.Player;
-import androidx.media3.common.VideoSize;
 import androidx.media3.common.util.UnstableApi;
-import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DefaultDataSource;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.TimeZone;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
 /**
  * Video player using TextureView for rotation support.
  * TextureView (unlike SurfaceView) properly supports rotation transforms.
+ * Two TextureView/player decks alternate so the next video is prepared, transformed and showing its
+ * first frame before the current one ends (see TransitionEngine).
  */
 @OptIn(markerClass = UnstableApi.class)
 @SuppressLint("MissingPermission")
-public class FullScreenPlayerActivity extends AppCompatActivity implements TextureView.SurfaceTextureListener {
+public class FullScreenPlayerActivity extends AppCompatActivity {
 
     private static final String TAG = "FullScreenPlayer";
     private static final String API_BASE = "http://34.248.112.237:8005";
@@ -102,21 +95,20 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
     private static String countsUrl(String id) { return API_BASE + "/device/" + id + "/counts"; }
     private static String dailyUpdateUrl(String id) { return API_BASE + "/device/" + id + "/daily_update"; }
     private static String monthlyUpdateUrl(String id) { return API_BASE + "/device/" + id + "/monthly_update"; }
-
-    // Video metadata
-    private static class VideoMetadata {
-        String filename = "";
-        String videoName = "";
-        int rotation = 0;
-        String fitMode = "cover";
-    }
-
-    // Metadata storage
-    private volatile Map<String, VideoMetadata> metadataByVideoName = new HashMap<>();
-    private volatile Map<String, VideoMetadata> metadataByFilename = new HashMap<>();
+    private static String telemetryUrl(String id) { return API_BASE + "/device/" + id + "/telemetry"; }
+    private static String eventsUrl(String id) { return API_BASE + "/device/" + id + "/events"; }
+
+    // Manifest shared by sync and rotation polling (conditional GET + disk cache)
+    private ManifestRepository manifestRepo;
+    private volatile PlaylistManifest appliedManifest;
+
+    // Rotation/fit per media item index, rebuilt when the playlist or the manifest changes
+    private final Object playlistLock = new Object();
+    private volatile PlaylistIndex playlistIndex = PlaylistIndex.EMPTY;
+    private List<Uri> playlistUris = Collections.emptyList(); // media item i plays playlistUris.get(i) (UI thread)
+    private List<String> playlistKeys = Collections.emptyList(); // identity of each item, for live diffs (UI thread)
     private int lastAppliedRotation = -9999;
     private String lastAppliedFitMode = "";
-    private List<File> currentPlaylistFiles = new ArrayList<>();
 
     private volatile boolean isWorking = false;
     private volatile boolean downloadInProgress = false;
@@ -125,42 +117,156 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
     private int screenWidth = 0;
     private int screenHeight = 0;
 
-    // Video dimensions
-    private int videoWidth = 0;
-    private int videoHeight = 0;
+    // Push channel for rotation/fit/assignment changes; the polls below only run while it is down
+    private static final boolean CONTROL_CHANNEL_ENABLED = true;
+    private static final long LIVE_SYNC_SAFETY_MS = 15 * 60_000L; // sync check cadence while the channel is live
+    private ControlChannel controlChannel;
+    private long lastSyncCheckAt = 0;
+
+    // Polls adapt to what they find: jittered, stretched while nothing changes, backed off while failing
+    private static final double POLL_JITTER = 0.2;
+    private static final long POLL_STRETCH_AFTER_MS = 10 * 60_000L;
+    private static final long POLL_BACKOFF_MAX_MS = 15 * 60_000L;
+    private volatile int pollGeneration; // bumped when the poll chains are rescheduled; retires callbacks still in flight
 
-    // Rotation polling every 10 seconds
+    // Rotation polling every 10 seconds, up to 2 minutes while nothing changes
     private static final long ROTATION_POLL_MS = 10_000L;
+    private static final long ROTATION_POLL_MAX_MS = 2 * 60_000L;
+    private final PollPolicy rotationPolicy = new PollPolicy(ROTATION_POLL_MS, ROTATION_POLL_MAX_MS, POLL_STRETCH_AFTER_MS,
+            POLL_BACKOFF_MAX_MS, POLL_JITTER, SystemClock::elapsedRealtime, new Random());
     private final Handler rotationPollHandler = new Handler(Looper.getMainLooper());
     private final Runnable rotationPollRunnable = new Runnable() {
         @Override
         public void run() {
-            pollRotationMetadata();
-            rotationPollHandler.postDelayed(this, ROTATION_POLL_MS);
+            int gen = pollGeneration;
+            if (channelLive()) {
+                rotationPollHandler.postDelayed(this, rotationPolicy.nextDelayMs(null));
+                return;
+            }
+            pollRotationMetadata(outcome -> {
+                if (gen == pollGeneration) rotationPollHandler.postDelayed(this, rotationPolicy.nextDelayMs(outcome));
+            });
         }
     };
 
-    // Video download polling every 60 seconds
+    // Heartbeat every 60 seconds (fixed: the server marks a device offline after 60 s without one)
     private static final long POLL_MS = 60_000L;
     private final Handler pollHandler = new Handler(Looper.getMainLooper());
     private final Runnable pollRunnable = new Runnable() {
         @Override
         public void run() {
             sendOnlineHeartbeat();
-            startBackgroundCheckIfNeeded();
+            if (controlChannel != null) Log.d(TAG, "Control channel: " + controlChannel.describe());
+            Log.d(TAG, "Tasks: " + scheduler.describe() + ", polls: rotation " + rotationPolicy.describe() + ", sync " + syncPolicy.describe());
+            Log.d(TAG, "Reed counts: " + reedCounter.describe() + ", telemetry " + telemetry.describe());
             pollHandler.postDelayed(this, POLL_MS);
         }
     };
 
+    // Video download status check every 60 seconds, up to 10 minutes while nothing changes
+    private static final long SYNC_POLL_MAX_MS = 10 * 60_000L;
+    private final PollPolicy syncPolicy = new PollPolicy(POLL_MS, SYNC_POLL_MAX_MS, POLL_STRETCH_AFTER_MS,
+            POLL_BACKOFF_MAX_MS, POLL_JITTER, SystemClock::elapsedRealtime, new Random());
+    private final Runnable syncPollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            int gen = pollGeneration;
+            long now = SystemClock.elapsedRealtime();
+            if (channelLive() && now - lastSyncCheckAt < LIVE_SYNC_SAFETY_MS) {
+                pollHandler.postDelayed(this, syncPolicy.nextDelayMs(null));
+                return;
+            }
+            lastSyncCheckAt = now;
+            startBackgroundCheckIfNeeded(outcome -> {
+                if (gen == pollGeneration) pollHandler.postDelayed(this, syncPolicy.nextDelayMs(outcome));
+            });
+        }
+    };
+
     private static final String ROOT_DIR = "video";
+    private static final String FALLBACK_VIDEO_NAME = "output_480x1920.mp4"; // R.raw asset, played when no video is synced
     private static final String TEMP_DIR = "video_new";
     private static final int MAX_RETRIES = 5;
+    private static final int DOWNLOAD_PARALLEL_FILES = 2;
+    private static final int DOWNLOAD_SEGMENTS_PER_FILE = 4;
+    private static final long DOWNLOAD_MIN_SEGMENT_BYTES = 8L * 1024 * 1024;
+    // Shared store uplinks: full rate for playback-critical items and off-peak bulk, a trickle otherwise
+    private static final long DOWNLOAD_RATE_BYTES_PER_SEC = 4L * 1024 * 1024;
+    private static final long DOWNLOAD_PEAK_BULK_BYTES_PER_SEC = 512L * 1024;
+    private static final String DOWNLOAD_OFF_PEAK_WINDOWS = "22:00-07:00";
+    // Videos plus retained (recently unassigned) ones; the reserve is never filled by downloads
+    private static final long STORAGE_QUOTA_BYTES = 32L * 1024 * 1024 * 1024;
+    private static final long STORAGE_RESERVE_BYTES = 1024L * 1024 * 1024;
+    private final NetClient net = NetClient.get();
+
+    // Boot-to-first-frame timeline (ms since boot), persisted per boot and sent with the heartbeat
+    private static final int STARTUP_TRACES_KEPT = 10;
+    private final StartupTrace startup = StartupTrace.process(SystemClock::elapsedRealtime);
+    // Highest bitrate expected in playlists (4K signage content); sizes the players' buffers
+    private static final long CONTENT_BITRATE_BPS = 20_000_000L;
+    private final Mp4Validator validator = new Mp4Validator(Mp4Validator.DEFAULT_VIDEO_CODECS);
+    // New items join the rotation while they download, once playback can no longer catch up with them
+    private static final long PROGRESSIVE_CHECK_MS = 5_000L;
+    private static final long PROGRESSIVE_AHEAD_MS = 30_000L;
+    private final GrowingFiles growing = new GrowingFiles(SystemClock::elapsedRealtime);
+    private volatile boolean progressiveJoined; // since the last playlist build of a sync
+    private final Runnable progressiveCheckRunnable = new Runnable() {
+        @Override
+        public void run() {
+            scheduler.submit(TASK_PROGRESSIVE, FullScreenPlayerActivity.this::admitProgressiveItems);
+            ui.postDelayed(this, PROGRESSIVE_CHECK_MS);
+        }
+    };
+    private final VideoSync.Listener syncListener = new VideoSync.Listener() {
+        @Override public void onManifest(PlaylistManifest manifest) { applyManifestMetadata(manifest); }
+
+        @Override
+        public void onDownloading(boolean active) {
+            if (active) ui.postDelayed(progressiveCheckRunnable, PROGRESSIVE_CHECK_MS);
+            else ui.removeCallbacks(progressiveCheckRunnable);
+        }
 
-    // Views - using TextureView instead of PlayerView
+        @Override public void log(String message) { Log.d(TAG, message); }
+        @Override public void warn(String message) { Log.w(TAG, message); }
+        @Override public void notice(String message) { ui.post(() -> toast(message)); }
+    };
+    private final QoeStats qoe = new QoeStats(); // per-item playback quality, drained into the next heartbeat record
+
+    // Background work: one bounded pool, per-type lanes (running, waiting); stale periodic work is coalesced
+    private static final String TASK_SYNC = "sync";
+    private static final String TASK_ROTATION = "rotation";
+    private static final String TASK_TELEMETRY = "telemetry";
+    private static final String TASK_LIVENESS = "liveness";
+    private static final String TASK_PROGRESSIVE = "progressive";
+    private final TaskScheduler scheduler = new TaskScheduler(4)
+            .define(TASK_SYNC, 1, 0)
+            .define(TASK_ROTATION, 1, 0)
+            .define(TASK_TELEMETRY, 1, 1)
+            .define(TASK_LIVENESS, 1, 1)
+            .define(TASK_PROGRESSIVE, 1, 0);
+    private SegmentedDownloader downloader;
+    private BandwidthThrottle throttle;
+    private volatile StorageManager storage; // created with the video directory
+    private volatile VideoSync videoSync;     // likewise
+    private ContentStore contentStore;
+
+    // Telemetry: spooled on disk, sent as one gzip batch per heartbeat window, retried with backoff
+    private static final int TELEMETRY_SPOOL_MAX_EVENTS = 5000;
+    private TelemetrySpool telemetry;
+    private ReedCounter reedCounter;
+    private volatile boolean telemetryRetryPending = false;
+    // Spool work the UI thread hands to the telemetry lane; see runTelemetry()
+    private volatile boolean heartbeatDue = false, flushDue = false;
+    private final ConcurrentLinkedQueue<Float> temperatureSamples = new ConcurrentLinkedQueue<>();
+    private final Runnable telemetryRetryRunnable = () -> { telemetryRetryPending = false; flushTelemetry(); };
+
+    // Views - two TextureView decks instead of PlayerView
     private FrameLayout rootContainer;
-    private TextureView textureView;
-    private ExoPlayer player;
-    private Surface surface;
+    private PlayerDeck deckA, deckB;
+    private TransitionEngine engine;
+    private static final long FRAME_MS = 16L;
+    private final Runnable engineTick = this::tickEngine;
+    private final Choreographer.FrameCallback engineFrame = frameTimeNanos -> tickEngine();
     private final Handler ui = new Handler(Looper.getMainLooper());
     private ActivityResultLauncher<String> legacyPermLauncher;
 
@@ -188,7 +294,7 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
     private final Runnable tempPostRunnable = new Runnable() {
         @Override
         public void run() {
-            if (lastTemperatureValue != null) sendTemperatureToServer(lastTemperatureValue);
+            if (lastTemperatureValue != null) recordTemperature(lastTemperatureValue);
             tempHandler.postDelayed(this, TEMP_POST_INTERVAL_MS);
         }
     };
@@ -196,8 +302,18 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        startup.markAt("process_start", android.os.Process.getStartElapsedRealtime());
+        startup.mark("activity_create");
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
         setContentView(R.layout.activity_fullscreen_player);
+        manifestRepo = new ManifestRepository(net, new File(getFilesDir(), "manifest"));
+        throttle = new BandwidthThrottle(DOWNLOAD_RATE_BYTES_PER_SEC, DOWNLOAD_PEAK_BULK_BYTES_PER_SEC, DOWNLOAD_OFF_PEAK_WINDOWS,
+                TimeZone.getDefault(), System::currentTimeMillis, Thread::sleep, qoe::droppedFramesTotal);
+        downloader = new SegmentedDownloader(net, DOWNLOAD_PARALLEL_FILES, DOWNLOAD_SEGMENTS_PER_FILE,
+                DOWNLOAD_MIN_SEGMENT_BYTES, MAX_RETRIES, 1500L, throttle, growing);
+        contentStore = new ContentStore(new File(getFilesDir(), "store/index.properties"));
+        telemetry = new TelemetrySpool(new File(getFilesDir(), "telemetry.spool"), TELEMETRY_SPOOL_MAX_EVENTS);
+        reedCounter = new ReedCounter(new File(getFilesDir(), "reed_counts.properties"), TimeZone.getDefault());
 
         // Get screen dimensions
         DisplayMetrics dm = new DisplayMetrics();
@@ -208,8 +324,37 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
 
         // Find views
         rootContainer = findViewById(R.id.rootContainer);
-        textureView = findViewById(R.id.textureView);
-        textureView.setSurfaceTextureListener(this);
+        PlayerDeck.Source source = new PlayerDeck.Source() {
+            @Override public MediaItem item(int index) { return MediaItem.fromUri(playlistUris.get(index)); }
+            @Override public String name(int index) { return itemName(index); }
+            @Override public int rotation(int index) { PlaylistIndex i = playlistIndex; return index < i.size() ? i.rotation(index) : PlaylistIndex.DEFAULT_ROTATION; }
+            @Override public String fitMode(int index) { PlaylistIndex i = playlistIndex; return index < i.size() ? i.fitMode(index) : PlaylistIndex.DEFAULT_FIT_MODE; }
+        };
+        // Player callbacks may arrive inside engine calls; post so ticks never nest
+        Runnable requestTick = () -> ui.post(engineTick);
+        startup.begin("player_init");
+        PlayerProfile profile = SignagePlayerFactory.profileFor(this, CONTENT_BITRATE_BPS, 2);
+        Log.i(TAG, "Player profile: " + profile.describe());
+        if (!profile.fitsHeap()) Log.w(TAG, "Player buffers take more than half of the heap");
+        DataSource.Factory dataSources = new GrowingFileDataSource.Factory(growing, new DefaultDataSource.Factory(this));
+        deckA = new PlayerDeck("A", findViewById(R.id.textureView), SignagePlayerFactory.build(this, profile, dataSources), source, qoe, requestTick);
+        deckB = new PlayerDeck("B", findViewById(R.id.textureViewB), SignagePlayerFactory.build(this, profile, dataSources), source, qoe, requestTick);
+        engine = new TransitionEngine(deckA, deckB, SystemClock::uptimeMillis, FRAME_MS, new TransitionEngine.Listener() {
+            @Override
+            public void onItemShown(int index) {
+                PlaylistIndex i = playlistIndex;
+                if (index < i.size()) { lastAppliedRotation = i.rotation(index); lastAppliedFitMode = i.fitMode(index); }
+                String name = itemName(index);
+                qoe.play(name);
+                qoe.transitionGap(name, engine.lastTransitionGapMs());
+                if (!startup.has("first_frame")) onFirstFrameShown();
+            }
+
+            @Override
+            public void onItemFailed(int index) {
+                Log.w(TAG, "Skipping unplayable item " + index + " (" + engine.describe() + ")");
+            }
+        });
 
         applyImmersive();
 
@@ -218,258 +363,191 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
         legacyPermLauncher = registerForActivityResult(new ActivityResultContracts.RequestPermission(),
                 granted -> { if (granted) startEverything(); else toast("Storage permission denied."); });
 
+        Runnable surfaceFrame = () -> startup.mark("first_surface_update");
+        deckA.onFirstSurfaceUpdate(surfaceFrame);
+        deckB.onFirstSurfaceUpdate(surfaceFrame);
+        startup.end("player_init");
+
+        startup.begin("permissions");
         ensureAllFilesAccessThenStart();
 
         tempHandler.postDelayed(tempPostRunnable, TEMP_POST_INTERVAL_MS);
-        rotationPollHandler.postDelayed(rotationPollRunnable, ROTATION_POLL_MS);
+        startControlChannel();
 
         btAdapter = BluetoothAdapter.getDefaultAdapter();
         if (btAdapter != null) ensureBluetoothPermissionAndConnect();
     }
 
-    // ===== TextureView.SurfaceTextureListener =====
-
-    @Override
-    public void onSurfaceTextureAvailable(SurfaceTexture surfaceTexture, int width, int height) {
-        Log.d(TAG, "SurfaceTexture available: " + width + "x" + height);
-        surface = new Surface(surfaceTexture);
-        if (player != null) {
-            player.setVideoSurface(surface);
-        }
-    }
-
-    @Override
-    public void onSurfaceTextureSizeChanged(SurfaceTexture surfaceTexture, int width, int height) {
-        Log.d(TAG, "SurfaceTexture size changed: " + width + "x" + height);
-    }
-
-    @Override
-    public boolean onSurfaceTextureDestroyed(SurfaceTexture surfaceTexture) {
-        Log.d(TAG, "SurfaceTexture destroyed");
-        if (player != null) {
-            player.setVideoSurface(null);
-        }
-        if (surface != null) {
-            surface.release();
-            surface = null;
-        }
-        return true;
-    }
-
-    @Override
-    public void onSurfaceTextureUpdated(SurfaceTexture surfaceTexture) {
-        // Called every frame - no logging needed
-    }
-
     @Override
     protected void onResume() {
         super.onResume();
         applyImmersive();
+        pollGeneration++;
         pollHandler.removeCallbacksAndMessages(null);
         pollHandler.postDelayed(pollRunnable, POLL_MS);
+        // First polls land anywhere in one interval, so devices that boot together don't poll together
+        pollHandler.postDelayed(syncPollRunnable, syncPolicy.firstDelayMs());
         rotationPollHandler.removeCallbacksAndMessages(null);
-        rotationPollHandler.postDelayed(rotationPollRunnable, 1000);
+        rotationPollHandler.postDelayed(rotationPollRunnable, rotationPolicy.firstDelayMs());
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        pollGeneration++;
         pollHandler.removeCallbacksAndMessages(null);
         rotationPollHandler.removeCallbacksAndMessages(null);
         tempHandler.removeCallbacksAndMessages(null);
+        ui.removeCallbacks(telemetryRetryRunnable);
+        if (controlChannel != null) controlChannel.stop();
+        if (downloader != null) downloader.shutdown();
+        scheduler.shutdown();
         btShouldReconnect = false;
         stopBleScan();
         if (btGatt != null) { try { btGatt.close(); } catch (Exception ignored) {} }
-        if (player != null) {
-            player.setVideoSurface(null);
-            player.release();
-            player = null;
-        }
-        if (surface != null) {
-            surface.release();
-            surface = null;
-        }
+        ui.removeCallbacks(engineTick);
+        Choreographer.getInstance().removeFrameCallback(engineFrame);
+        engine.stop();
+        deckA.release();
+        deckB.release();
+    }
+
+    private void onFirstFrameShown() {
+        startup.end("prepare");
+        startup.mark("first_frame");
+        String trace = startup.toJson();
+        Log.i(TAG, "Startup (ms since boot): " + trace);
+        scheduler.submit(TaskScheduler.DEFAULT_LANE, () ->
+                startup.save(new File(getFilesDir(), "startup"), String.valueOf(bootCount()), STARTUP_TRACES_KEPT));
+    }
+
+    private int bootCount() {
+        return Settings.Global.getInt(getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+    }
+
+    /** Runs the transition engine, then schedules the next tick on vsync near a boundary or coarsely otherwise. */
+    private void tickEngine() {
+        ui.removeCallbacks(engineTick);
+        Choreographer.getInstance().removeFrameCallback(engineFrame);
+        long delay = engine.tick();
+        if (delay == TransitionEngine.IDLE) return;
+        if (delay <= FRAME_MS) Choreographer.getInstance().postFrameCallback(engineFrame);
+        else ui.postDelayed(engineTick, delay);
     }
 
     // ===== ROTATION POLLING =====
+    private boolean channelLive() {
+        return controlChannel != null && controlChannel.isLive();
+    }
+
+    // A flapping stream must not turn every reconnect into a manifest fetch and a status check
+    private static final long CATCH_UP_MIN_INTERVAL_MS = 30_000L;
+    private long lastCatchUpMs = -CATCH_UP_MIN_INTERVAL_MS; // control channel thread only
+
+    // Events only say what changed; the state itself comes from the same fetches the polls use
+    private void startControlChannel() {
+        if (!CONTROL_CHANNEL_ENABLED) return;
+        controlChannel = new ControlChannel(net.events, eventsUrl(getAndroidId()), new File(getFilesDir(), "control_last_event_id"),
+                new ControlChannel.Listener() {
+                    @Override
+                    public void onEvent(String type, String data) {
+                        Log.d(TAG, "Control event: " + type + " " + data);
+                        switch (type) {
+                            case "rotation":
+                            case "fit_mode":
+                                pollRotationMetadata();
+                                break;
+                            case "assignments":
+                                syncPolicy.onChanged();
+                                ui.post(() -> startBackgroundCheckIfNeeded());
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+
+                    @Override
+                    public void onLiveChanged(boolean live) {
+                        Log.d(TAG, "Control channel " + (live ? "live, polling paused" : "down, polling"));
+                        // Catch up on anything missed while disconnected (a 304 when nothing changed)
+                        if (!live) return;
+                        long now = SystemClock.elapsedRealtime();
+                        if (now - lastCatchUpMs < CATCH_UP_MIN_INTERVAL_MS) return;
+                        lastCatchUpMs = now;
+                        pollRotationMetadata();
+                        ui.post(() -> startBackgroundCheckIfNeeded());
+                    }
+                });
+        controlChannel.start();
+    }
+
     private void pollRotationMetadata() {
-        new Thread(() -> {
+        pollRotationMetadata(null);
+    }
+
+    /** done (if any) gets the poll's outcome on a background thread, or null if the poll was skipped. */
+    private void pollRotationMetadata(@Nullable Consumer<PollPolicy.Outcome> done) {
+        boolean queued = scheduler.submit(TASK_ROTATION, () -> {
+            PollPolicy.Outcome outcome = PollPolicy.Outcome.FAILED;
             try {
                 if (!isOnline()) return;
                 String urlStr = listDownloadsUrl(getAndroidId());
                 Log.d(TAG, "Polling rotation from: " + urlStr);
-
-                HttpURLConnection c = (HttpURLConnection) new URL(urlStr).openConnection();
-                c.setConnectTimeout(10_000);
-                c.setReadTimeout(10_000);
-                c.setRequestMethod("GET");
-                c.connect();
-
-                if (c.getResponseCode() / 100 != 2) { c.disconnect(); return; }
-
-                StringBuilder sb = new StringBuilder();
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(c.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line; while ((line = br.readLine()) != null) sb.append(line);
-                } finally { c.disconnect(); }
-
-                Map<String, VideoMetadata> byName = new HashMap<>();
-                Map<String, VideoMetadata> byFile = new HashMap<>();
-
-                JSONObject obj = new JSONObject(sb.toString());
-                JSONArray items = obj.optJSONArray("items");
-                if (items != null) {
-                    for (int i = 0; i < items.length(); i++) {
-                        JSONObject it = items.optJSONObject(i);
-                        if (it != null) {
-                            VideoMetadata vm = new VideoMetadata();
-                            vm.videoName = it.optString("video_name", "").trim();
-                            vm.filename = it.optString("filename", "").trim();
-                            vm.rotation = it.optInt("rotation", 0);
-                            vm.fitMode = it.optString("fit_mode", "cover");
-
-                            if (!vm.videoName.isEmpty()) byName.put(vm.videoName.toLowerCase(), vm);
-                            if (!vm.filename.isEmpty()) byFile.put(vm.filename.toLowerCase(), vm);
-                            Log.d(TAG, "Polled: " + vm.videoName + "/" + vm.filename + " rot=" + vm.rotation + " fit=" + vm.fitMode);
-                        }
-                    }
-                }
-
-                metadataByVideoName = byName;
-                metadataByFilename = byFile;
-                ui.post(this::applyRotationForCurrentVideo);
+                PlaylistManifest manifest = manifestRepo.fetch(urlStr);
+                outcome = manifest != appliedManifest ? PollPolicy.Outcome.CHANGED : PollPolicy.Outcome.UNCHANGED;
+                applyManifestMetadata(manifest);
             } catch (Exception e) {
                 Log.e(TAG, "Poll error: " + e.getMessage());
+            } finally {
+                if (done != null) done.accept(outcome);
             }
-        }).start();
+        });
+        if (!queued && done != null) done.accept(null);
     }
 
-    private VideoMetadata getMetadataForFile(File file) {
-        if (file == null) return null;
-        String filename = file.getName().toLowerCase();
-
-        VideoMetadata vm = metadataByFilename.get(filename);
-        if (vm != null) return vm;
-
-        String base = filename.contains(".") ? filename.substring(0, filename.lastIndexOf('.')) : filename;
-        vm = metadataByVideoName.get(base);
-        if (vm != null) return vm;
-
-        for (Map.Entry<String, VideoMetadata> e : metadataByVideoName.entrySet()) {
-            if (filename.contains(e.getKey()) || e.getKey().contains(base)) return e.getValue();
+    // Re-resolves the playlist index only when the manifest actually changed (304 returns the same instance)
+    private void applyManifestMetadata(PlaylistManifest manifest) {
+        if (manifest == null || manifest == appliedManifest) return;
+        for (PlaylistManifest.Item it : manifest.items) {
+            Log.d(TAG, "Polled: " + it.videoName + "/" + it.filename + " rot=" + it.rotation + " fit=" + it.fitMode);
         }
-        for (Map.Entry<String, VideoMetadata> e : metadataByFilename.entrySet()) {
-            String k = e.getKey().replace(".mp4", "");
-            if (filename.contains(k) || k.contains(base)) return e.getValue();
+        synchronized (playlistLock) {
+            appliedManifest = manifest;
+            playlistIndex = PlaylistIndex.build(playlistIndex.names(), manifest);
         }
-        return null;
+        rotationPolicy.onChanged(); // changes tend to come in bursts
+        ui.post(this::applyRotationForCurrentVideo);
+    }
+
+    // File name of a playlist entry, the key for per-item QoE stats (UI thread)
+    private String itemName(int index) {
+        return index >= 0 && index < playlistUris.size() ? playlistUris.get(index).getLastPathSegment() : null;
     }
 
     private void applyRotationForCurrentVideo() {
-        if (player == null || currentPlaylistFiles.isEmpty()) return;
-        int idx = player.getCurrentMediaItemIndex();
-        if (idx < 0 || idx >= currentPlaylistFiles.size()) return;
+        // Both decks: the hidden one may already hold the next item
+        deckA.refreshTransform();
+        deckB.refreshTransform();
 
-        File f = currentPlaylistFiles.get(idx);
-        VideoMetadata vm = getMetadataForFile(f);
-        int targetRotation = vm != null ? vm.rotation : 0;
-        String fitMode = vm != null ? vm.fitMode : "cover";
+        PlaylistIndex index = playlistIndex;
+        int idx = engine.currentIndex();
+        if (idx < 0 || idx >= index.size()) return;
 
-        // Only apply if rotation or fit mode changed
+        int targetRotation = index.rotation(idx);
+        String fitMode = index.fitMode(idx);
+
+        // Only announce if rotation or fit mode changed
         if (targetRotation == lastAppliedRotation && fitMode.equals(lastAppliedFitMode)) {
             Log.d(TAG, "Rotation unchanged (" + targetRotation + "°), skipping");
             return;
         }
 
-        Log.d(TAG, "ROTATION CHANGED: " + lastAppliedRotation + " -> " + targetRotation + "° fitMode=" + fitMode + " for " + f.getName());
+        Log.d(TAG, "ROTATION CHANGED: " + lastAppliedRotation + " -> " + targetRotation + "° fitMode=" + fitMode + " for " + index.name(idx));
         lastAppliedRotation = targetRotation;
         lastAppliedFitMode = fitMode;
-
-        applyTextureViewTransform(targetRotation, fitMode);
         toast("Rotation: " + targetRotation + "°");
     }
 
-    /**
-     * Apply rotation using TextureView's Matrix transform.
-     * This is the proper way to rotate video content.
-     */
-    private void applyTextureViewTransform(int rotation, String fitMode) {
-        if (textureView == null) return;
-
-        int viewWidth = textureView.getWidth();
-        int viewHeight = textureView.getHeight();
-
-        if (viewWidth == 0 || viewHeight == 0) {
-            Log.d(TAG, "TextureView not measured yet, retrying...");
-            textureView.post(() -> applyTextureViewTransform(rotation, fitMode));
-            return;
-        }
-
-        // Use video dimensions if known, otherwise use view dimensions
-        int vw = videoWidth > 0 ? videoWidth : viewWidth;
-        int vh = videoHeight > 0 ? videoHeight : viewHeight;
-
-        Log.d(TAG, "Applying transform: rotation=" + rotation + " fitMode=" + fitMode +
-                " view=" + viewWidth + "x" + viewHeight + " video=" + vw + "x" + vh);
-
-        Matrix matrix = new Matrix();
-
-        // Center of the view
-        float centerX = viewWidth / 2f;
-        float centerY = viewHeight / 2f;
-
-        // For 90/270 rotation, the video dimensions are swapped after rotation
-        boolean isRotated90or270 = (rotation == 90 || rotation == 270);
-
-        // Calculate scale based on fit mode
-        float scaleX, scaleY;
-
-        if (isRotated90or270) {
-            // After rotation, video width becomes height and vice versa
-            // So we compare rotated video dimensions to view dimensions
-            float rotatedVideoWidth = vh;  // video height becomes width after rotation
-            float rotatedVideoHeight = vw; // video width becomes height after rotation
-
-            if ("contain".equals(fitMode)) {
-                // Fit inside - show entire video, may have black bars
-                float scale = Math.min((float) viewWidth / rotatedVideoWidth, (float) viewHeight / rotatedVideoHeight);
-                scaleX = scale * vw / viewWidth;
-                scaleY = scale * vh / viewHeight;
-            } else if ("fill".equals(fitMode)) {
-                // Stretch to fill exactly (may distort aspect ratio)
-                scaleX = (float) viewHeight / vw;  // video width fills view height
-                scaleY = (float) viewWidth / vh;   // video height fills view width
-            } else {
-                // Cover (default) - fill screen, may crop
-                float scale = Math.max((float) viewWidth / rotatedVideoWidth, (float) viewHeight / rotatedVideoHeight);
-                scaleX = scale * vw / viewWidth;
-                scaleY = scale * vh / viewHeight;
-            }
-        } else {
-            // 0 or 180 rotation - no dimension swap
-            if ("contain".equals(fitMode)) {
-                float scale = Math.min((float) viewWidth / vw, (float) viewHeight / vh);
-                scaleX = scale * vw / viewWidth;
-                scaleY = scale * vh / viewHeight;
-            } else if ("fill".equals(fitMode)) {
-                // Stretch to fill exactly
-                scaleX = 1f;
-                scaleY = 1f;
-            } else {
-                // Cover
-                float scale = Math.max((float) viewWidth / vw, (float) viewHeight / vh);
-                scaleX = scale * vw / viewWidth;
-                scaleY = scale * vh / viewHeight;
-            }
-        }
-
-        // Apply transformations: scale first, then rotate around center
-        matrix.setScale(scaleX, scaleY, centerX, centerY);
-        matrix.postRotate(rotation, centerX, centerY);
-
-        textureView.setTransform(matrix);
-        Log.d(TAG, "Transform applied: rotation=" + rotation + " scaleX=" + scaleX + " scaleY=" + scaleY);
-    }
-
     // ===== STORAGE =====
     private void ensureAllFilesAccessThenStart() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
@@ -492,165 +570,213 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
     private void startEverything() {
         if (isWorking || downloadInProgress) return;
         isWorking = true;
-        new Thread(() -> {
+        startup.end("permissions");
+        boolean queued = scheduler.submit(TASK_SYNC, () -> {
             try {
+                startup.begin("ensure_dirs");
                 File mainDir = ensureMainDir(), tmpDir = ensureTempDir();
+                startup.end("ensure_dirs");
+
+                // Fast start: last-known playlist with its persisted rotation/fit, before any network call
+                startup.begin("manifest_cache");
+                applyManifestMetadata(manifestRepo.cached());
+                startup.end("manifest_cache");
+                playLocalPlaylistOrToast(mainDir);
+
                 String id = getAndroidId();
-                try { postOnlineTrue(updateOnlineUrl(id)); } catch (Exception ignored) {}
+                sendOnlineHeartbeat();
 
-                if (!isOnline()) {
+                startup.begin("network_probe");
+                boolean online = isOnline();
+                startup.end("network_probe");
+                if (!online) {
                     ui.post(() -> toast("Offline - playing local videos"));
-                    playLocalPlaylistOrToast(mainDir);
                     return;
                 }
 
-                if (!readDownloadStatus(readStatusUrl(id))) {
-                    downloadInProgress = true;
-                    try {
-                        // SMART SYNC: Only download new, delete unassigned
-                        smartSyncVideos(mainDir, id);
-                        postUpdateStatusTrue(updateStatusUrl(id));
-                    } finally { downloadInProgress = false; }
-                }
-                playLocalPlaylistOrToast(mainDir);
+                smartSyncVideos(mainDir, id);
                 pollRotationMetadata();
             } catch (Exception e) {
+                // Local playback started above and keeps running
                 ui.post(() -> toast("Error: " + e.getMessage()));
-                // On error, try to play local videos anyway
-                try {
-                    File mainDir = ensureMainDir();
-                    playLocalPlaylistOrToast(mainDir);
-                } catch (Exception ignored) {}
             }
             finally { isWorking = false; }
-        }).start();
+        });
+        if (!queued) isWorking = false;
     }
 
-    // Smart sync: only download new videos, delete unassigned ones
-    private void smartSyncVideos(File mainDir, String deviceId) throws Exception {
-        String url = listDownloadsUrl(deviceId);
+    /**
+     * Smart sync, as {@link VideoSync#checkAndSync} runs it: a status check, then (if the assignment is not
+     * downloaded yet) only new videos are downloaded and unassigned ones retained. The assignment is
+     * acknowledged only once it is complete on disk, so a partial sync is retried by the next check.
+     * The playlist is refreshed if anything on disk changed; playback is never stopped for it.
+     * Returns what the sync did, or null if the status check found nothing to do.
+     */
+    @Nullable
+    private VideoSync.Result smartSyncVideos(File mainDir, String deviceId) throws Exception {
+        VideoSync.Result r;
+        downloadInProgress = true;
+        try {
+            r = videoSync.checkAndSync(readStatusUrl(deviceId), listDownloadsUrl(deviceId), updateStatusUrl(deviceId), mainDir);
+        } finally { downloadInProgress = false; }
+        if (r == null) return null;
+        if (!r.complete()) Log.w(TAG, "Sync incomplete, not acknowledged: " + r.describe());
+        boolean progressive = progressiveJoined; // a joined item that then failed must leave the playlist
+        progressiveJoined = false;
+        if (r.changed() || progressive) playLocalPlaylistOrToast(mainDir);
+        return r;
+    }
 
-        // Get expected filenames from server
-        List<String> expectedFilenames = fetchExpectedFilenames(url);
-        List<String> downloadUrls = fetchDownloadUrls(url);
+    private void startBackgroundCheckIfNeeded() {
+        startBackgroundCheckIfNeeded(null);
+    }
 
-        if (expectedFilenames.isEmpty() && downloadUrls.isEmpty()) {
-            Log.d(TAG, "No videos assigned to this device");
+    /** done (if any) gets the check's outcome on a background thread, or null if it was skipped. */
+    private void startBackgroundCheckIfNeeded(@Nullable Consumer<PollPolicy.Outcome> done) {
+        if (isWorking || downloadInProgress) {
+            if (done != null) done.accept(null);
             return;
         }
-
-        // Get current local files
-        File[] localFiles = mainDir.listFiles((d, n) -> n.toLowerCase().endsWith(".mp4"));
-        Set<String> localFilenames = new HashSet<>();
-        if (localFiles != null) {
-            for (File f : localFiles) {
-                localFilenames.add(f.getName().toLowerCase());
+        isWorking = true;
+        boolean queued = scheduler.submit(TASK_SYNC, () -> {
+            PollPolicy.Outcome outcome = PollPolicy.Outcome.FAILED;
+            try {
+                File mainDir = ensureMainDir();
+                if (!isOnline()) {
+                    // Offline: just continue playing local videos
+                    return;
+                }
+                VideoSync.Result r = smartSyncVideos(mainDir, getAndroidId());
+                outcome = r == null ? PollPolicy.Outcome.UNCHANGED : r.outcome();
+            } catch (Exception e) {
+                outcome = PollPolicy.Outcome.FAILED;
+            } finally {
+                isWorking = false;
+                if (done != null) done.accept(outcome);
             }
+        });
+        if (!queued) {
+            isWorking = false;
+            if (done != null) done.accept(null);
         }
+    }
 
-        // Determine which files to download (new ones)
-        List<String> urlsToDownload = new ArrayList<>();
-        Set<String> expectedSet = new HashSet<>();
-        for (int i = 0; i < downloadUrls.size(); i++) {
-            String urlStr = downloadUrls.get(i);
-            String filename = i < expectedFilenames.size() ? expectedFilenames.get(i) : filenameFromUrl(urlStr);
-            expectedSet.add(filename.toLowerCase());
-
-            if (!localFilenames.contains(filename.toLowerCase())) {
-                urlsToDownload.add(urlStr);
-                Log.d(TAG, "Will download new video: " + filename);
-            } else {
-                Log.d(TAG, "Video already exists locally: " + filename);
-            }
+    private void sendOnlineHeartbeat() {
+        heartbeatDue = true;
+        // The flush carries liveness while the spool delivers; while it backs off (up to minutes), liveness
+        // goes on its own, since the server marks the device offline after 60 s
+        if (telemetryRetryPending) {
+            submitTelemetry();
+            sendLiveness();
+        } else {
+            flushTelemetry();
         }
+    }
 
-        // Determine which local files to delete (unassigned)
-        List<File> filesToDelete = new ArrayList<>();
-        if (localFiles != null) {
-            for (File f : localFiles) {
-                if (!expectedSet.contains(f.getName().toLowerCase())) {
-                    filesToDelete.add(f);
-                    Log.d(TAG, "Will delete unassigned video: " + f.getName());
-                }
-            }
-        }
+    /** Runs on the telemetry lane. */
+    private void spoolHeartbeat() {
+        // One heartbeat record in the spool at a time: the legacy replay keeps only the latest record of a type,
+        // so QoE keeps accumulating in qoe until the previous record was delivered
+        if (telemetry.pending("heartbeat") > 0) return;
+        String playback = qoe.drainJson();
+        telemetry.add("heartbeat", "{\"is_online\": true, \"boot_count\": " + bootCount() + ", \"startup\": " + startup.toJson()
+                + (playback != null ? ", \"model\": " + JSONObject.quote(Build.MODEL) + ", \"qoe\": " + playback : "") + "}");
+    }
 
-        // Delete unassigned videos
-        for (File f : filesToDelete) {
-            if (f.delete()) {
-                Log.d(TAG, "Deleted: " + f.getName());
+    private void sendLiveness() {
+        scheduler.submit(TASK_LIVENESS, () -> {
+            try {
+                expectOk(net.postJson(updateOnlineUrl(getAndroidId()), "{\"is_online\": true}"));
+            } catch (Exception e) {
+                Log.w(TAG, "Liveness heartbeat failed: " + e.getMessage());
             }
-        }
+        });
+    }
 
-        // Download new videos directly to main directory
-        if (!urlsToDownload.isEmpty()) {
-            ui.post(() -> toast("Downloading " + urlsToDownload.size() + " new video(s)…"));
-            int downloaded = 0;
-            for (String urlStr : urlsToDownload) {
-                try {
-                    File f = bigFileDownloadWithResume(urlStr, mainDir);
-                    if (f != null && f.exists() && f.length() > 0) {
-                        downloaded++;
-                        Log.d(TAG, "Downloaded: " + f.getName());
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Download failed: " + e.getMessage());
-                }
-            }
-            final int finalDownloaded = downloaded;
-            ui.post(() -> toast("Downloaded " + finalDownloaded + " video(s)"));
+    private void flushTelemetry() {
+        flushDue = true;
+        submitTelemetry();
+    }
 
-            // Refresh playlist if we downloaded something or deleted something
-            if (downloaded > 0 || !filesToDelete.isEmpty()) {
-                stopPlaybackForRefresh();
-            }
-        } else if (!filesToDelete.isEmpty()) {
-            // Just deleted some files, refresh playlist
-            stopPlaybackForRefresh();
-            ui.post(() -> toast("Removed " + filesToDelete.size() + " unassigned video(s)"));
-        } else {
-            Log.d(TAG, "All videos are up to date");
+    private void submitTelemetry() {
+        scheduler.submit(TASK_TELEMETRY, this::runTelemetry);
+    }
+
+    /**
+     * All spool I/O, off the UI thread: spools what was handed over, then flushes if one is due and the spool
+     * is not backing off. Every telemetry task is this one, so the lane dropping a waiting one loses nothing.
+     */
+    private void runTelemetry() {
+        Float t;
+        while ((t = temperatureSamples.poll()) != null) {
+            telemetry.add("temperature", String.format(Locale.US, "{\"temperature\": %.2f}", t));
+        }
+        if (heartbeatDue) {
+            heartbeatDue = false;
+            spoolHeartbeat();
         }
+        if (!flushDue || telemetryRetryPending) return;
+        flushDue = false;
+        queueReedCounts();
+        if (telemetry.flush(telemetryTransport)) return;
+        long delay = telemetry.retryDelayMs();
+        Log.w(TAG, "Telemetry flush failed, retry in " + delay + " ms (" + telemetry.describe() + ")");
+        telemetryRetryPending = true;
+        ui.removeCallbacks(telemetryRetryRunnable);
+        ui.postDelayed(telemetryRetryRunnable, delay);
+        sendLiveness(); // this window's heartbeat is stuck in the spool until the retry
     }
 
-    private void startBackgroundCheckIfNeeded() {
-        if (isWorking || downloadInProgress) return;
-        isWorking = true;
-        new Thread(() -> {
+    /** Hands new reed totals to the spool; on first run the server's totals are fetched once as the base. */
+    private void queueReedCounts() {
+        long now = System.currentTimeMillis();
+        if (reedCounter.needsServerBase()) {
             try {
-                File mainDir = ensureMainDir();
-                if (!isOnline()) {
-                    // Offline: just continue playing local videos
-                    return;
+                String body = net.getString(countsUrl(getAndroidId()));
+                if (body != null) {
+                    JSONObject o = new JSONObject(body);
+                    reedCounter.applyServerBase(o.optLong("daily_count", 0), o.optLong("monthly_count", 0), now);
                 }
-                String id = getAndroidId();
-                if (!readDownloadStatus(readStatusUrl(id))) {
-                    downloadInProgress = true;
-                    try {
-                        // Use smart sync instead of full re-download
-                        smartSyncVideos(mainDir, id);
-                        postUpdateStatusTrue(updateStatusUrl(id));
-                        ui.post(() -> playLocalPlaylistOrToast(mainDir));
-                    } finally { downloadInProgress = false; }
-                }
-            } catch (Exception ignored) {}
-            finally { isWorking = false; }
-        }).start();
+            } catch (Exception e) {
+                Log.w(TAG, "Reed count base unavailable: " + e.getMessage());
+            }
+        }
+        for (ReedCounter.Snapshot s : reedCounter.drain(now)) telemetry.add("reed_counts", s.toJson());
     }
 
-    private void sendOnlineHeartbeat() {
-        new Thread(() -> { try { postOnlineTrue(updateOnlineUrl(getAndroidId())); } catch (Exception ignored) {} }).start();
-    }
+    private final TelemetrySpool.Transport telemetryTransport = new TelemetrySpool.Transport() {
+        @Override
+        public int sendBatch(byte[] gzippedJson) throws IOException {
+            return net.postGzipJson(telemetryUrl(getAndroidId()), gzippedJson);
+        }
 
-    private void postOnlineTrue(String url) throws Exception {
-        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
-        c.setConnectTimeout(20_000); c.setReadTimeout(30_000);
-        c.setRequestMethod("POST"); c.setDoOutput(true);
-        c.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-        try (DataOutputStream out = new DataOutputStream(c.getOutputStream())) {
-            out.write("{\"is_online\": true}".getBytes(StandardCharsets.UTF_8));
+        @Override
+        public void sendLegacy(String type, String data, int count, long lastTs) throws Exception {
+            String id = getAndroidId();
+            switch (type) {
+                case "heartbeat":
+                    // online_update is the only endpoint today's servers have, so it gets the whole record (boot
+                    // count, startup trace, QoE). Even a late replay is sent by a running device: "online" holds
+                    expectOk(net.postJson(updateOnlineUrl(id), data));
+                    break;
+                case "temperature":
+                    expectOk(net.postJson(updateTemperatureUrl(id), data));
+                    break;
+                case "reed_counts": {
+                    // Absolute totals: replaying is idempotent; legacy endpoints only take the current period
+                    JSONObject o = new JSONObject(data);
+                    if (reedCounter.isCurrentDay(o.optString("day"))) postCount(dailyUpdateUrl(id), "daily_count", o.optLong("daily_count"));
+                    if (reedCounter.isCurrentMonth(o.optString("month"))) postCount(monthlyUpdateUrl(id), "monthly_count", o.optLong("monthly_count"));
+                    break;
+                }
+                default:
+                    break; // no legacy endpoint
+            }
         }
-        c.getResponseCode(); c.disconnect();
+    };
+
+    private static void expectOk(int code) throws IOException {
+        if (code / 100 != 2) throw new IOException("HTTP " + code);
     }
 
     private void atomicSwapIntoMain(File main, File tmp) {
@@ -663,10 +789,6 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
         } catch (Exception ignored) {}
     }
 
-    private void stopPlaybackForRefresh() {
-        ui.post(() -> { if (player != null) { player.stop(); player.clearMediaItems(); } });
-    }
-
     private void deleteAllInDirectory(File dir) {
         if (dir == null) return;
         File[] files = dir.listFiles();
@@ -690,167 +812,88 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
         return ni != null && ni.isConnected();
     }
 
-    private List<String> fetchDownloadUrls(String url) throws Exception {
-        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
-        c.setConnectTimeout(20_000); c.setReadTimeout(30_000); c.setRequestMethod("GET"); c.connect();
-        if (c.getResponseCode() / 100 != 2) { c.disconnect(); throw new RuntimeException("HTTP error"); }
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(c.getInputStream(), StandardCharsets.UTF_8))) {
-            String line; while ((line = br.readLine()) != null) sb.append(line);
-        } finally { c.disconnect(); }
-        List<String> urls = new ArrayList<>();
-        JSONArray items = new JSONObject(sb.toString()).optJSONArray("items");
-        if (items != null) for (int i = 0; i < items.length(); i++) {
-            String u = items.optJSONObject(i).optString("url", "").trim();
-            if (!u.isEmpty()) urls.add(u);
+    /** Lets downloads that can already play from their growing part file join the rotation. */
+    private void admitProgressiveItems() {
+        boolean joined = false;
+        for (GrowingFiles.Entry e : growing.active()) {
+            if (e.admitted()) continue;
+            // moov must precede mdat and be on disk; the rest streams in behind the playhead
+            Mp4Validator.Report header = Mp4Validator.inspect(e.part, Mp4Validator.DEFAULT_VIDEO_CODECS);
+            if (!header.ok() || header.moovAtEnd || header.moovEnd > e.readableFrom(0)) continue;
+            if (!growing.admissible(e, header.moovEnd, header.durationMs, PROGRESSIVE_AHEAD_MS)) continue;
+            e.admit();
+            joined = true;
+            Log.i(TAG, "Progressive: " + e.target.getName() + " joins the rotation while downloading (" + header.describe() + ")");
         }
-        return urls;
+        if (!joined) return;
+        progressiveJoined = true;
+        playLocalPlaylistOrToast(ensureMainDir());
     }
 
-    // Returns list of expected filenames from server
-    private List<String> fetchExpectedFilenames(String url) throws Exception {
-        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
-        c.setConnectTimeout(20_000); c.setReadTimeout(30_000); c.setRequestMethod("GET"); c.connect();
-        if (c.getResponseCode() / 100 != 2) { c.disconnect(); return new ArrayList<>(); }
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(c.getInputStream(), StandardCharsets.UTF_8))) {
-            String line; while ((line = br.readLine()) != null) sb.append(line);
-        } finally { c.disconnect(); }
-        List<String> filenames = new ArrayList<>();
-        JSONArray items = new JSONObject(sb.toString()).optJSONArray("items");
-        if (items != null) for (int i = 0; i < items.length(); i++) {
-            JSONObject item = items.optJSONObject(i);
-            String filename = item.optString("filename", "").trim();
-            if (filename.isEmpty()) {
-                // Extract filename from URL if not provided
-                String urlStr = item.optString("url", "").trim();
-                if (!urlStr.isEmpty()) {
-                    filename = filenameFromUrl(urlStr);
-                }
-            }
-            if (!filename.isEmpty()) filenames.add(filename);
+    private void playLocalPlaylistOrToast(File dir) {
+        List<File> files = listMp4(dir);
+        Set<File> progressive = new HashSet<>();
+        for (GrowingFiles.Entry e : growing.active()) {
+            if (e.admitted() && !files.contains(e.target)) progressive.add(e.target);
         }
-        return filenames;
-    }
-
-    private int downloadAllWithResume(List<String> urls, File dir) {
-        if (urls == null || urls.isEmpty()) return 0;
-        ui.post(() -> toast("Downloading " + urls.size() + " video(s)…"));
-        int ok = 0;
-        for (String url : urls) {
-            try {
-                File f = bigFileDownloadWithResume(url, dir);
-                if (f != null && f.exists() && f.length() > 0) ok++;
-            } catch (Exception e) { Log.e(TAG, "DL fail: " + e.getMessage()); }
+        if (!progressive.isEmpty()) {
+            files.addAll(progressive);
+            files.sort(Comparator.comparing(f -> f.getName().toLowerCase()));
         }
-        return ok;
-    }
 
-    private File bigFileDownloadWithResume(String urlStr, File dir) throws Exception {
-        String name = filenameFromUrl(urlStr);
-        File part = new File(dir, name + ".part");
-        long have = part.exists() ? part.length() : 0;
-        String finalUrl = resolveRedirects(urlStr);
-
-        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
-            HttpURLConnection c = (HttpURLConnection) new URL(finalUrl).openConnection();
-            c.setConnectTimeout(120_000); c.setReadTimeout(120_000);
-            if (have > 0) c.setRequestProperty("Range", "bytes=" + have + "-");
-            int code = c.getResponseCode();
-            if (code == 200 || code == 206) {
-                String cd = c.getHeaderField("Content-Disposition");
-                String fn = cd != null && cd.contains("filename=") ? cd.substring(cd.indexOf("filename=") + 9).replace("\"", "").trim() : name;
-                File out = new File(dir, fn.isEmpty() ? name : fn);
-                if (code == 200 && have > 0) { part.delete(); have = 0; }
-                try (InputStream in = c.getInputStream(); FileOutputStream fos = new FileOutputStream(part, have > 0)) {
-                    byte[] buf = new byte[131072]; int n;
-                    while ((n = in.read(buf)) != -1) fos.write(buf, 0, n);
-                } finally { c.disconnect(); }
-                if (out.exists()) out.delete();
-                part.renameTo(out);
-                return out;
+        // Media item i is playable.get(i): the index is resolved against exactly this list
+        List<Uri> playable = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> keys = new ArrayList<>(); // name + mtime: a re-downloaded file is a different item
+        for (File f : files) {
+            if (progressive.contains(f)) {
+                // Read from its part file as it grows; checked at admission, and again once complete
+                playable.add(Uri.fromFile(f));
+                names.add(f.getName());
+                keys.add(f.getName() + "\0progressive");
+                continue;
+            }
+            if (!f.exists() || f.length() == 0) continue;
+            // Unplayable files never reach the player (cached per length + mtime, so rescans are cheap)
+            Mp4Validator.Report report = validator.check(f);
+            if (!report.ok()) {
+                videoSync.quarantine(f, report);
+                continue;
             }
-            c.disconnect();
-            Thread.sleep(1500L * (attempt + 1));
-            have = part.exists() ? part.length() : 0;
+            playable.add(Uri.fromFile(f));
+            names.add(f.getName());
+            keys.add(f.getName() + '\0' + f.lastModified());
         }
-        throw new RuntimeException("Download failed");
-    }
-
-    private String resolveRedirects(String url) throws Exception {
-        for (int i = 0; i < 10; i++) {
-            HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
-            c.setInstanceFollowRedirects(false); c.setRequestMethod("HEAD"); c.connect();
-            int code = c.getResponseCode();
-            String loc = c.getHeaderField("Location");
-            c.disconnect();
-            if (code / 100 == 3 && loc != null) { url = loc; continue; }
-            return url;
+        if (playable.isEmpty()) {
+            // Fresh install or nothing synced yet: the bundled clip keeps the screen alive
+            playable.add(Uri.parse("android.resource://" + getPackageName() + "/" + R.raw.output_480x1920));
+            names.add(FALLBACK_VIDEO_NAME);
+            keys.add(FALLBACK_VIDEO_NAME);
+            ui.post(() -> toast(files.isEmpty() ? "No videos found - playing built-in clip" : "No playable videos - playing built-in clip"));
         }
-        return url;
-    }
-
-    private String filenameFromUrl(String url) {
-        String p = url.contains("?") ? url.substring(0, url.indexOf('?')) : url;
-        int s = p.lastIndexOf('/');
-        String n = s >= 0 ? p.substring(s + 1) : "video.mp4";
-        return n.isEmpty() ? "video.mp4" : n.replaceAll("[\\\\/:*?\"<>|]", "_");
-    }
-
-    private void playLocalPlaylistOrToast(File dir) {
-        List<File> files = listMp4(dir);
-        if (files.isEmpty()) { ui.post(() -> toast("No videos found")); return; }
-        currentPlaylistFiles = new ArrayList<>(files);
-
-        // Pre-apply rotation for first video BEFORE resetting
-        VideoMetadata firstVm = getMetadataForFile(files.get(0));
-        int firstRotation = firstVm != null ? firstVm.rotation : 0;
-        String firstFitMode = firstVm != null ? firstVm.fitMode : "cover";
-        lastAppliedRotation = firstRotation;
-        lastAppliedFitMode = firstFitMode;
+        PlaylistManifest manifest = appliedManifest;
+        PlaylistIndex index = PlaylistIndex.build(names, manifest != null ? manifest : PlaylistManifest.EMPTY);
 
         ui.post(() -> {
-            initPlayer();
-            List<MediaItem> items = new ArrayList<>();
-            for (File f : files) if (f.exists() && f.length() > 0) items.add(MediaItem.fromUri(Uri.fromFile(f)));
-            if (items.isEmpty()) { toast("No playable videos"); return; }
-
-            // Apply transform BEFORE starting playback to prevent glitch
-            applyTextureViewTransform(firstRotation, firstFitMode);
-
-            player.setMediaItems(items, true);
-            player.setRepeatMode(Player.REPEAT_MODE_ALL);
-            player.addListener(new Player.Listener() {
-                @Override
-                public void onMediaItemTransition(MediaItem m, int r) {
-                    // Get next video's rotation BEFORE resetting
-                    int nextIdx = player.getCurrentMediaItemIndex();
-                    if (nextIdx >= 0 && nextIdx < currentPlaylistFiles.size()) {
-                        File nextFile = currentPlaylistFiles.get(nextIdx);
-                        VideoMetadata nextVm = getMetadataForFile(nextFile);
-                        int nextRotation = nextVm != null ? nextVm.rotation : 0;
-                        String nextFitMode = nextVm != null ? nextVm.fitMode : "cover";
-
-                        // Apply immediately if different
-                        if (nextRotation != lastAppliedRotation || !nextFitMode.equals(lastAppliedFitMode)) {
-                            lastAppliedRotation = nextRotation;
-                            lastAppliedFitMode = nextFitMode;
-                            applyTextureViewTransform(nextRotation, nextFitMode);
-                        }
-                    }
-                }
-
-                @Override
-                public void onVideoSizeChanged(VideoSize size) {
-                    videoWidth = size.width;
-                    videoHeight = size.height;
-                    Log.d(TAG, "Video size: " + videoWidth + "x" + videoHeight);
-                    // Re-apply transform with correct video dimensions
-                    applyTextureViewTransform(lastAppliedRotation, lastAppliedFitMode);
-                }
-            });
-            player.prepare();
-            player.play();
+            synchronized (playlistLock) {
+                // A manifest applied since the build above wins
+                PlaylistManifest current = appliedManifest;
+                playlistIndex = current == manifest ? index : PlaylistIndex.build(names, current);
+                playlistUris = playable;
+            }
+            if (engine.itemCount() == 0) {
+                // The first item is loaded and transformed hidden, and shown with its first frame
+                startup.begin("prepare");
+                engine.setPlaylist(playable.size(), 0);
+                engine.play();
+            } else {
+                // Content update: the item on screen keeps playing, only what changed is reloaded
+                PlaylistDiff diff = PlaylistDiff.compute(playlistKeys, keys);
+                if (!diff.isEmpty()) Log.d(TAG, "Playlist updated live: " + diff);
+                engine.updatePlaylist(diff);
+            }
+            playlistKeys = keys;
+            tickEngine();
         });
     }
 
@@ -863,54 +906,6 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
         return list;
     }
 
-    private boolean readDownloadStatus(String url) throws Exception {
-        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
-        c.setConnectTimeout(20_000); c.setReadTimeout(30_000); c.connect();
-        if (c.getResponseCode() / 100 != 2) { c.disconnect(); return false; }
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(c.getInputStream(), StandardCharsets.UTF_8))) {
-            String line; while ((line = br.readLine()) != null) sb.append(line);
-        } finally { c.disconnect(); }
-        JSONObject o = new JSONObject(sb.toString());
-        return o.optBoolean("download_status", false) || o.optBoolean("status", false);
-    }
-
-    private void postUpdateStatusTrue(String url) throws Exception {
-        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
-        c.setRequestMethod("POST"); c.setDoOutput(true);
-        c.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-        try (DataOutputStream out = new DataOutputStream(c.getOutputStream())) {
-            out.write("{\"status\": true}".getBytes(StandardCharsets.UTF_8));
-        }
-        c.getResponseCode(); c.disconnect();
-    }
-
-    private void initPlayer() {
-        if (player != null) return;
-        player = new ExoPlayer.Builder(this).build();
-
-        // Connect player to TextureView surface
-        if (surface != null) {
-            player.setVideoSurface(surface);
-        }
-
-        player.setRepeatMode(Player.REPEAT_MODE_ALL);
-        player.addListener(new Player.Listener() {
-            @Override
-            public void onPlayerError(PlaybackException e) {
-                Log.e(TAG, "Player error: " + e.getMessage());
-                int idx = player.getCurrentMediaItemIndex();
-                if (player.getMediaItemCount() > 0) {
-                    player.removeMediaItem(idx);
-                    if (player.getMediaItemCount() > 0) {
-                        player.seekTo(Math.min(idx, player.getMediaItemCount()-1), 0);
-                        player.play();
-                    }
-                }
-            }
-        });
-    }
-
     private void applyImmersive() {
         View d = getWindow().getDecorView();
         if (Build.VERSION.SDK_INT >= 30) {
@@ -929,7 +924,15 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
     @SuppressLint("HardwareIds")
     private String getAndroidId() { return Settings.Secure.getString(getContentResolver(), Settings.Secure.ANDROID_ID); }
 
-    private File ensureMainDir() { File d = new File(Environment.getExternalStorageDirectory(), ROOT_DIR); if (!d.exists()) d.mkdirs(); return d; }
+    private synchronized File ensureMainDir() {
+        File d = new File(Environment.getExternalStorageDirectory(), ROOT_DIR);
+        if (!d.exists()) d.mkdirs();
+        if (storage == null) {
+            storage = new StorageManager(d, STORAGE_QUOTA_BYTES, STORAGE_RESERVE_BYTES, File::getUsableSpace, System::currentTimeMillis);
+            videoSync = new VideoSync(net, manifestRepo, contentStore, storage, downloader, validator, throttle, syncListener);
+        }
+        return d;
+    }
     private File ensureTempDir() { File d = new File(Environment.getExternalStorageDirectory(), TEMP_DIR); if (!d.exists()) d.mkdirs(); return d; }
     private void toast(String s) { Toast.makeText(this, s, Toast.LENGTH_LONG).show(); }
 
@@ -1020,51 +1023,23 @@ public class FullScreenPlayerActivity extends AppCompatActivity implements Textu
         if (lower.contains("reed") && lower.contains("open")) incrementCounts();
         ui.post(() -> {
             switch (cmd.toUpperCase(Locale.US)) {
-                case "PLAY": if (player != null) player.play(); break;
-                case "PAUSE": if (player != null) player.pause(); break;
-                case "NEXT": if (player != null && player.getMediaItemCount() > 0) { player.seekTo((player.getCurrentMediaItemIndex()+1) % player.getMediaItemCount(), 0); player.play(); } break;
+                case "PLAY": engine.play(); tickEngine(); break;
+                case "PAUSE": engine.pause(); break;
+                case "NEXT": engine.next(); engine.play(); tickEngine(); break;
             }
         });
     }
 
-    private void sendTemperatureToServer(float t) {
-        new Thread(() -> {
-            try {
-                HttpURLConnection c = (HttpURLConnection) new URL(updateTemperatureUrl(getAndroidId())).openConnection();
-                c.setRequestMethod("POST"); c.setDoOutput(true);
-                c.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-                try (DataOutputStream out = new DataOutputStream(c.getOutputStream())) {
-                    out.write(String.format(Locale.US, "{\"temperature\": %.2f}", t).getBytes(StandardCharsets.UTF_8));
-                }
-                c.getResponseCode(); c.disconnect();
-            } catch (Exception ignored) {}
-        }).start();
+    private void recordTemperature(float t) {
+        temperatureSamples.add(t);
+        submitTelemetry();
     }
 
     private void incrementCounts() {
-        new Thread(() -> {
-            try {
-                String id = getAndroidId();
-                HttpURLConnection c = (HttpURLConnection) new URL(countsUrl(id)).openConnection();
-                c.connect();
-                StringBuilder sb = new StringBuilder();
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(c.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line; while ((line = br.readLine()) != null) sb.append(line);
-                } finally { c.disconnect(); }
-                JSONObject o = new JSONObject(sb.toString());
-                postCount(dailyUpdateUrl(id), "daily_count", o.optInt("daily_count", 0) + 1);
-                postCount(monthlyUpdateUrl(id), "monthly_count", o.optInt("monthly_count", 0) + 1);
-            } catch (Exception ignored) {}
-        }).start();
+        reedCounter.record(System.currentTimeMillis());
     }
 
-    private void postCount(String url, String key, int val) throws Exception {
-        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
-        c.setRequestMethod("POST"); c.setDoOutput(true);
-        c.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-        try (DataOutputStream out = new DataOutputStream(c.getOutputStream())) {
-            out.write(("{\"" + key + "\": " + val + "}").getBytes(StandardCharsets.UTF_8));
-        }
-        c.getResponseCode(); c.disconnect();
+    private void postCount(String url, String key, long val) throws Exception {
+        expectOk(net.postJson(url, "{\"" + key + "\": " + val + "}"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.example.videoplayer;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.BaseDataSource;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.TransferListener;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads file:// items that are still downloading from their ".part" as it grows (see {@link GrowingFiles});
+ * everything else, including completed files, goes to the wrapped data source.
+ */
+@OptIn(markerClass = UnstableApi.class)
+final class GrowingFileDataSource extends BaseDataSource {
+
+    /** A read waiting this long for the download is a playback error: the deck skips the item. */
+    static final long STALL_TIMEOUT_MS = 20_000;
+
+    static final class Factory implements DataSource.Factory {
+        private final GrowingFiles files;
+        private final DataSource.Factory fallback;
+
+        Factory(GrowingFiles files, DataSource.Factory fallback) {
+            this.files = files;
+            this.fallback = fallback;
+        }
+
+        @NonNull
+        @Override
+        public DataSource createDataSource() {
+            return new GrowingFileDataSource(files, fallback.createDataSource());
+        }
+    }
+
+    private final GrowingFiles files;
+    private final DataSource fallback;
+    private DataSource delegate;
+    private GrowingFiles.Reader reader;
+    private Uri uri;
+    private long bytesRemaining;
+
+    private GrowingFileDataSource(GrowingFiles files, DataSource fallback) {
+        super(false);
+        this.files = files;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void addTransferListener(@NonNull TransferListener listener) {
+        super.addTransferListener(listener);
+        fallback.addTransferListener(listener);
+    }
+
+    @Override
+    public long open(@NonNull DataSpec spec) throws IOException {
+        uri = spec.uri;
+        String path = "file".equals(spec.uri.getScheme()) ? spec.uri.getPath() : null;
+        GrowingFiles.Entry entry = path != null ? files.get(new File(path)) : null;
+        if (entry == null) {
+            delegate = fallback;
+            return fallback.open(spec);
+        }
+        transferInitializing(spec);
+        reader = new GrowingFiles.Reader(entry, spec.position, STALL_TIMEOUT_MS);
+        long available = entry.length - spec.position;
+        bytesRemaining = spec.length != C.LENGTH_UNSET ? Math.min(spec.length, available) : available;
+        transferStarted(spec);
+        return bytesRemaining;
+    }
+
+    @Override
+    public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+        if (delegate != null) return delegate.read(buffer, offset, length);
+        if (length == 0) return 0;
+        if (bytesRemaining == 0) return C.RESULT_END_OF_INPUT;
+        int n = reader.read(buffer, offset, (int) Math.min(length, bytesRemaining));
+        if (n < 0) return C.RESULT_END_OF_INPUT;
+        bytesRemaining -= n;
+        bytesTransferred(n);
+        return n;
+    }
+
+    @Nullable
+    @Override
+    public Uri getUri() {
+        return uri;
+    }
+
+    @Override
+    public void close() throws IOException {
+        uri = null;
+        if (delegate != null) {
+            DataSource d = delegate;
+            delegate = null;
+            d.close();
+            return;
+        }
+        if (reader != null) {
+            try {
+                reader.close();
+            } finally {
+                reader = null;
+                transferEnded();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.videoplayer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Downloads in progress that playback may read while they grow ("progressive" items).
+ * The downloader publishes which ranges of each ".part" are written; a {@link Reader} blocks until
+ * the bytes it needs have landed, so download and playback share the one copy on disk. An item may
+ * join the rotation once {@link #admissible} projects that playback, started now, never catches up
+ * with any of the download's segments.
+ */
+final class GrowingFiles {
+
+    interface Clock {
+        long elapsedMs();
+    }
+
+    /** Throughput is only trusted after this much of a download has been observed. */
+    static final long MIN_SAMPLE_MS = 3_000;
+
+    final class Entry {
+        final File target, part;
+        final long length;
+        final long startedAt = clock.elapsedMs();
+        // segment start -> {written end, segment end, bytes written since begin()}
+        private final TreeMap<Long, long[]> runs = new TreeMap<>();
+        private boolean finished, failed;
+        private volatile boolean admitted;
+
+        private Entry(File target, File part, long length) {
+            this.target = target;
+            this.part = part;
+            this.length = length;
+        }
+
+        /** Declares segment [start, end) of which [start, writtenEnd) is already on disk. */
+        synchronized void segment(long start, long end, long writtenEnd) {
+            runs.put(start, new long[] {writtenEnd, end, 0});
+            notifyAll();
+        }
+
+        /** The segment starting at start now has everything up to writtenEnd on disk. */
+        synchronized void advance(long start, long writtenEnd) {
+            long[] run = runs.get(start);
+            if (run == null || writtenEnd <= run[0]) return;
+            run[2] += writtenEnd - run[0];
+            run[0] = writtenEnd;
+            notifyAll();
+        }
+
+        /** End of the written bytes starting at pos (pos itself if it is not written yet). */
+        synchronized long readableFrom(long pos) {
+            if (finished) return length;
+            Map.Entry<Long, long[]> e = runs.floorEntry(pos);
+            long end = pos;
+            while (e != null && e.getValue()[0] > end) {
+                end = e.getValue()[0];
+                if (end < e.getValue()[1]) break; // segment still growing
+                e = runs.ceilingEntry(end);
+                if (e != null && e.getKey() != end) break;
+            }
+            return end;
+        }
+
+        boolean admitted() { return admitted; }
+
+        void admit() { admitted = true; }
+
+        synchronized boolean isFailed() { return failed; }
+
+        private synchronized void end(boolean ok) {
+            finished = ok;
+            failed = !ok;
+            notifyAll();
+        }
+
+        /** Bytes readable from pos, blocking up to timeoutMs for them; 0 at the end of the file. */
+        synchronized long awaitReadable(long pos, long timeoutMs) throws IOException {
+            long deadline = System.nanoTime() / 1_000_000 + timeoutMs;
+            while (true) {
+                if (failed) throw new IOException("download failed: " + target.getName());
+                if (pos >= length) return 0;
+                long readable = readableFrom(pos) - pos;
+                if (readable > 0) return readable;
+                long left = deadline - System.nanoTime() / 1_000_000;
+                if (left <= 0) throw new IOException("download stalled at " + pos + " of " + target.getName());
+                try {
+                    wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+    }
+
+    /** Sequential reader of an entry, from the part file (or the target, once it was renamed into place). */
+    static final class Reader implements Closeable {
+        private final Entry entry;
+        private final long stallTimeoutMs;
+        private final RandomAccessFile file;
+        private long position;
+
+        Reader(Entry entry, long position, long stallTimeoutMs) throws IOException {
+            this.entry = entry;
+            this.position = position;
+            this.stallTimeoutMs = stallTimeoutMs;
+            // An open handle survives the rename that completes the download
+            File f = entry.part.exists() ? entry.part : entry.target;
+            this.file = new RandomAccessFile(f, "r");
+        }
+
+        int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            long readable = entry.awaitReadable(position, stallTimeoutMs);
+            if (readable == 0) return -1;
+            file.seek(position);
+            int n = file.read(buffer, offset, (int) Math.min(length, readable));
+            if (n > 0) position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    private final Clock clock;
+    private final Map<String, Entry> byTarget = new HashMap<>();
+
+    GrowingFiles(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** A download of target (length bytes, written in place into part) has started. */
+    synchronized Entry begin(File target, File part, long length) {
+        Entry e = new Entry(target, part, length);
+        byTarget.put(target.getAbsolutePath(), e);
+        return e;
+    }
+
+    /** The download finished (target is in place) or failed; readers still open are released. */
+    synchronized void end(Entry e, boolean ok) {
+        e.end(ok);
+        if (byTarget.get(e.target.getAbsolutePath()) == e) byTarget.remove(e.target.getAbsolutePath());
+    }
+
+    synchronized Entry get(File target) {
+        return byTarget.get(target.getAbsolutePath());
+    }
+
+    synchronized List<Entry> active() {
+        return new ArrayList<>(byTarget.values());
+    }
+
+    /**
+     * Whether e can play from the start now. headerBytes must already be readable plus aheadMs of media;
+     * then, each at its own observed rate, every growing segment must be complete by the time the
+     * playhead (moving at the item's average byte rate) reaches its end.
+     */
+    boolean admissible(Entry e, long headerBytes, long durationMs, long aheadMs) {
+        if (e.length <= 0 || durationMs <= 0) return false;
+        long elapsed = clock.elapsedMs() - e.startedAt;
+        if (elapsed < MIN_SAMPLE_MS) return false;
+        double byteRate = (double) e.length / durationMs; // bytes per ms of playback
+        synchronized (e) {
+            if (e.failed) return false;
+            if (e.finished) return true;
+            if (e.readableFrom(0) < headerBytes + byteRate * aheadMs) return false;
+            for (long[] run : e.runs.values()) {
+                if (run[0] >= run[1]) continue;
+                double segmentRate = (double) run[2] / elapsed;
+                double playheadArrives = run[1] / byteRate;
+                if (run[0] + segmentRate * playheadArrives < run[1]) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.videoplayer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 over a file that is written out of order (parallel Range segments).
+ * Bytes that land at the hashed watermark are digested straight from the write buffer; ranges
+ * completed ahead of it are remembered and caught up from the file (page cache) in bounded steps,
+ * so a finished download never has to be re-read as a whole.
+ */
+final class IncrementalHasher {
+
+    private static final int CATCH_UP_STEP = 4 * 1024 * 1024;
+
+    private final MessageDigest md;
+    private final FileChannel ch;
+    private final TreeMap<Long, Long> ahead = new TreeMap<>(); // start -> end of written ranges past the watermark
+    private final ByteBuffer readBuf = ByteBuffer.allocate(131072);
+    private long hashed = 0;
+
+    IncrementalHasher(FileChannel ch) {
+        this.ch = ch;
+        try { md = MessageDigest.getInstance("SHA-256"); }
+        catch (Exception e) { throw new IllegalStateException(e); }
+    }
+
+    /** Marks [from, to) as already on disk (resumed from a previous session). */
+    synchronized void markWritten(long from, long to) {
+        if (to > from) addAhead(from, to);
+    }
+
+    synchronized void onWritten(long pos, byte[] buf, int off, int len) throws IOException {
+        long end = pos + len;
+        if (end <= hashed) return;
+        if (pos <= hashed) {
+            int skip = (int) (hashed - pos);
+            md.update(buf, off + skip, len - skip);
+            hashed = end;
+        } else {
+            addAhead(pos, end);
+        }
+        catchUp(CATCH_UP_STEP);
+    }
+
+    /** Length of the contiguous prefix [0, n) that has been written and digested. */
+    synchronized long contiguousBytes() { return hashed; }
+
+    /** Digests everything still pending up to total and returns the lowercase hex SHA-256. */
+    synchronized String finish(long total) throws IOException {
+        addAhead(hashed, total); // anything not seen this session is already on disk
+        catchUp(Long.MAX_VALUE);
+        return hex(md.digest());
+    }
+
+    private void addAhead(long from, long to) {
+        Map.Entry<Long, Long> prev = ahead.floorEntry(from);
+        if (prev != null && prev.getValue() >= from) {
+            from = prev.getKey();
+            to = Math.max(to, prev.getValue());
+        }
+        Map.Entry<Long, Long> next;
+        while ((next = ahead.ceilingEntry(from)) != null && next.getKey() <= to) {
+            to = Math.max(to, next.getValue());
+            ahead.remove(next.getKey());
+        }
+        ahead.put(from, to);
+    }
+
+    private void catchUp(long budget) throws IOException {
+        Map.Entry<Long, Long> first;
+        while (budget > 0 && (first = ahead.firstEntry()) != null && first.getKey() <= hashed) {
+            long end = first.getValue();
+            ahead.remove(first.getKey());
+            while (hashed < end && budget > 0) {
+                readBuf.clear();
+                readBuf.limit((int) Math.min(readBuf.capacity(), Math.min(end - hashed, budget)));
+                int n = ch.read(readBuf, hashed);
+                if (n <= 0) throw new IOException("short read at " + hashed);
+                md.update(readBuf.array(), 0, n);
+                hashed += n;
+                budget -= n;
+            }
+            if (hashed < end) ahead.put(hashed, end);
+        }
+    }
+
+    static String hex(byte[] b) {
+        char[] out = new char[b.length * 2];
+        final char[] digits = "0123456789abcdef".toCharArray();
+        for (int i = 0; i < b.length; i++) {
+            out[2 * i] = digits[(b[i] >> 4) & 0xF];
+            out[2 * i + 1] = digits[b[i] & 0xF];
+        }
+        return new String(out);
+    }
+}
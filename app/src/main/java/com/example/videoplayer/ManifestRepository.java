@@ -0,0 +1,197 @@
+package com.example.videoplayer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Fetches the playlist manifest with conditional requests (ETag / Last-Modified) and keeps the
+ * last good body on disk. A 304 returns the already-parsed instance, so callers can compare by
+ * reference to detect "nothing changed".
+ */
+final class ManifestRepository {
+
+    private static final String BODY_FILE = "manifest.json";
+    private static final String META_FILE = "manifest.meta";
+
+    private final NetClient net;
+    private final File dir;
+    private PlaylistManifest manifest;
+    private String url;
+    private String etag;
+    private String lastModified;
+    private boolean diskLoaded = false;
+
+    ManifestRepository(NetClient net, File dir) {
+        this.net = net;
+        this.dir = dir;
+    }
+
+    /** Last known manifest (memory, then disk), or null if none was ever fetched. */
+    synchronized PlaylistManifest cached() {
+        loadFromDiskOnce();
+        return manifest;
+    }
+
+    /** Conditional GET; returns the cached instance unchanged on 304. Throws on HTTP/IO errors. */
+    synchronized PlaylistManifest fetch(String urlStr) throws Exception {
+        loadFromDiskOnce();
+        boolean sameUrl = urlStr.equals(url) && manifest != null;
+
+        Request.Builder req = new Request.Builder().url(urlStr).get();
+        if (sameUrl && etag != null) req.header("If-None-Match", etag);
+        if (sameUrl && lastModified != null) req.header("If-Modified-Since", lastModified);
+        try (Response r = net.api.newCall(req.build()).execute()) {
+            if (r.code() == 304 && sameUrl) return manifest;
+            if (!r.isSuccessful()) throw new RuntimeException("HTTP error " + r.code());
+
+            // Parsed as it streams in and copied to the cache on the way: the body is never held in memory
+            PlaylistManifest parsed;
+            CopyingReader body = new CopyingReader(r.body() != null ? r.body().charStream() : new StringReader(""),
+                    new File(dir, BODY_FILE + ".tmp"));
+            try {
+                parsed = PlaylistManifest.read(body);
+            } catch (Exception e) {
+                body.discard();
+                throw e;
+            }
+
+            url = urlStr;
+            etag = r.header("ETag");
+            lastModified = r.header("Last-Modified");
+            manifest = parsed;
+            persist(body);
+            return parsed;
+        }
+    }
+
+    private void loadFromDiskOnce() {
+        if (diskLoaded) return;
+        diskLoaded = true;
+        File body = new File(dir, BODY_FILE), meta = new File(dir, META_FILE);
+        if (!body.exists() || !meta.exists()) return;
+        try {
+            Properties p = new Properties();
+            try (FileInputStream in = new FileInputStream(meta)) { p.load(in); }
+            try (Reader in = new InputStreamReader(new FileInputStream(body), StandardCharsets.UTF_8)) {
+                manifest = PlaylistManifest.read(in);
+            }
+            url = p.getProperty("url");
+            etag = p.getProperty("etag");
+            lastModified = p.getProperty("last_modified");
+        } catch (Exception e) {
+            // Corrupt cache: drop it and refetch unconditionally
+            body.delete(); meta.delete();
+            manifest = null; url = null; etag = null; lastModified = null;
+        }
+    }
+
+    private void persist(CopyingReader body) {
+        try {
+            if (!body.complete()) return; // no full copy: the previous body keeps its validators
+            // Drop validators just before the rename so a crash never pairs the new body with an old ETag
+            new File(dir, META_FILE).delete();
+            if (!body.commit(new File(dir, BODY_FILE))) return;
+            Properties p = new Properties();
+            p.setProperty("url", url);
+            if (etag != null) p.setProperty("etag", etag);
+            if (lastModified != null) p.setProperty("last_modified", lastModified);
+            File tmp = new File(dir, META_FILE + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp)) { p.store(out, null); out.getFD().sync(); }
+            tmp.renameTo(new File(dir, META_FILE));
+        } catch (Exception ignored) {
+            // Cache is best effort; the in-memory copy is still valid
+        }
+    }
+
+    /**
+     * Hands the body to the parser while copying it to a temporary cache file. The copy is best effort:
+     * if it fails (e.g. the disk is full) the parse goes on and the previous cache is kept.
+     */
+    private static final class CopyingReader extends Reader {
+        private final Reader in;
+        private final File tmp;
+        private FileOutputStream file;
+        private Writer copy; // null once the copy failed or was completed
+        private boolean completed;
+
+        CopyingReader(Reader in, File tmp) {
+            this.in = in;
+            this.tmp = tmp;
+            try {
+                File parent = tmp.getParentFile();
+                if (parent != null && !parent.exists()) parent.mkdirs();
+                file = new FileOutputStream(tmp);
+                copy = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                copy = null;
+            }
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int n = in.read(cbuf, off, len);
+            if (n > 0 && copy != null) {
+                try {
+                    copy.write(cbuf, off, n);
+                } catch (IOException e) {
+                    discard();
+                }
+            }
+            return n;
+        }
+
+        /** Flushes, syncs and closes the copy; false (and the tmp file gone) if there is no complete copy. */
+        boolean complete() {
+            if (copy == null) return completed;
+            boolean ok = false;
+            try {
+                copy.flush();
+                file.getFD().sync();
+                ok = true;
+            } catch (IOException e) {
+                // the copy is incomplete
+            } finally {
+                try { copy.close(); } catch (IOException e) { ok = false; }
+                copy = null;
+                completed = ok;
+                if (!ok) tmp.delete();
+            }
+            return ok;
+        }
+
+        /** Moves the completed copy into place; false if there is none. */
+        boolean commit(File target) {
+            if (!complete()) return false;
+            completed = false;
+            if (tmp.renameTo(target)) return true;
+            tmp.delete();
+            return false;
+        }
+
+        void discard() {
+            if (copy != null) {
+                try { copy.close(); } catch (IOException ignored) {}
+                copy = null;
+            }
+            tmp.delete();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
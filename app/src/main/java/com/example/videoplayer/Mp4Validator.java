@@ -0,0 +1,359 @@
+package com.example.videoplayer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Structural check of an MP4 before it may enter the playlist, so a truncated or unplayable file is
+ * quarantined (and downloaded again) instead of failing in ExoPlayer. Only box headers and the moov box
+ * are read: the top-level boxes must all fit in the file, ftyp/moov/mdat must be present, the first
+ * video track must use a supported codec and no chunk may start past the end of the file.
+ * Reports are cached per file (length + mtime), so rescanning the directory is nearly free.
+ */
+final class Mp4Validator {
+
+    static final class Report {
+        final String problem;      // null if the file is playable
+        final String brand;
+        final String videoCodec, profile, audioCodec;
+        final int width, height;
+        final long durationMs;
+        final boolean moovAtEnd;   // playback can only start after seeking to the end of the file
+        final long moovEnd;        // bytes needed from the start of the file before playback can begin
+        final boolean fragmented;
+
+        private Report(String problem, Parse p) {
+            this.problem = problem;
+            this.brand = p.brand;
+            this.videoCodec = p.videoCodec;
+            this.profile = p.profile;
+            this.audioCodec = p.audioCodec;
+            this.width = p.width;
+            this.height = p.height;
+            this.durationMs = p.durationMs();
+            this.moovAtEnd = p.moovOffset > p.mdatOffset && p.mdatOffset >= 0;
+            this.moovEnd = p.moovEnd;
+            this.fragmented = p.fragmented;
+        }
+
+        boolean ok() { return problem == null; }
+
+        String describe() {
+            if (!ok()) return "invalid: " + problem;
+            return String.format(Locale.US, "%s %s %dx%d %.1fs audio=%s brand=%s%s%s", videoCodec, profile, width, height,
+                    durationMs / 1000.0, audioCodec, brand, moovAtEnd ? " moov-at-end" : "", fragmented ? " fragmented" : "");
+        }
+    }
+
+    static final Set<String> DEFAULT_VIDEO_CODECS = new HashSet<>(Arrays.asList("avc1", "avc3", "hvc1", "hev1", "vp09", "av01", "mp4v"));
+    static final String QUARANTINE_DIR = ".quarantine";
+    static final int QUARANTINE_KEPT = 3; // only for diagnosis: the directory must not eat the video budget
+    private static final int MAX_MOOV_BYTES = 32 << 20;
+    private static final int CACHE_LIMIT = 1024;
+
+    private static final class Cached {
+        final long length, mtime;
+        final Report report;
+
+        Cached(long length, long mtime, Report report) { this.length = length; this.mtime = mtime; this.report = report; }
+    }
+
+    private final Set<String> videoCodecs;
+    private final Map<String, Cached> cache = new HashMap<>();
+
+    Mp4Validator(Set<String> videoCodecs) {
+        this.videoCodecs = videoCodecs;
+    }
+
+    /** Cached {@link #inspect} of f; re-read only when its length or mtime changed. */
+    Report check(File f) {
+        String key = f.getAbsolutePath();
+        long length = f.length(), mtime = f.lastModified();
+        synchronized (cache) {
+            Cached c = cache.get(key);
+            if (c != null && c.length == length && c.mtime == mtime) return c.report;
+        }
+        Report r = inspect(f, videoCodecs);
+        synchronized (cache) {
+            if (cache.size() >= CACHE_LIMIT) cache.clear();
+            cache.put(key, new Cached(length, mtime, r));
+        }
+        return r;
+    }
+
+    static Report inspect(File f, Set<String> videoCodecs) {
+        Parse p = new Parse();
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            String problem = p.topLevel(raf);
+            if (problem == null) problem = p.check(raf.length(), videoCodecs);
+            return new Report(problem, p);
+        } catch (IOException e) {
+            return new Report("unreadable: " + e.getMessage(), p);
+        }
+    }
+
+    /**
+     * Moves f out of the video directory into ".quarantine", keeping only the latest few there.
+     * Returns the quarantined file, or null if f had to be deleted instead.
+     */
+    static File quarantine(File f) {
+        File dir = new File(f.getParentFile(), QUARANTINE_DIR);
+        if (!dir.exists()) dir.mkdirs();
+        File dst = new File(dir, f.getName());
+        if (dst.exists()) dst.delete();
+        if (!f.renameTo(dst)) {
+            f.delete();
+            return null;
+        }
+        dst.setLastModified(System.currentTimeMillis());
+        File[] all = dir.listFiles();
+        if (all != null && all.length > QUARANTINE_KEPT) {
+            Arrays.sort(all, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+            for (int i = QUARANTINE_KEPT; i < all.length; i++) if (!all[i].equals(dst)) all[i].delete();
+        }
+        return dst;
+    }
+
+    // ===== parsing =====
+
+    private static final class Parse {
+        String brand, videoCodec, profile, audioCodec;
+        int width, height;
+        long moovOffset = -1, moovEnd = -1, mdatOffset = -1;
+        long movieTimescale, movieDuration, trackDurationMs;
+        long maxChunkOffset = -1;
+        boolean fragmented, sawFtyp;
+
+        // per-trak state
+        String handler;
+        long mediaTimescale, mediaDuration;
+
+        long durationMs() {
+            if (movieTimescale > 0 && movieDuration > 0) return movieDuration * 1000 / movieTimescale;
+            return trackDurationMs;
+        }
+
+        String topLevel(RandomAccessFile raf) throws IOException {
+            long length = raf.length(), pos = 0;
+            byte[] header = new byte[16];
+            while (pos < length) {
+                if (length - pos < 8) return "truncated box header at " + pos;
+                raf.seek(pos);
+                raf.readFully(header, 0, 8);
+                ByteBuffer b = ByteBuffer.wrap(header);
+                long size = b.getInt() & 0xffffffffL;
+                String type = fourcc(b.getInt());
+                int headerSize = 8;
+                if (size == 1) {
+                    if (length - pos < 16) return "truncated box header at " + pos;
+                    raf.readFully(header, 8, 8);
+                    size = b.getLong();
+                    headerSize = 16;
+                } else if (size == 0) {
+                    size = length - pos; // extends to the end of the file
+                }
+                if (size < headerSize) return "bad size of " + type + " at " + pos;
+                if (size > length - pos) return "truncated " + type + ": " + (pos + size) + " bytes declared, file has " + length;
+                switch (type) {
+                    case "ftyp":
+                        sawFtyp = true;
+                        if (size >= headerSize + 4) {
+                            raf.readFully(header, 0, 4);
+                            brand = fourcc(ByteBuffer.wrap(header).getInt());
+                        }
+                        break;
+                    case "moov":
+                        if (moovOffset >= 0) break;
+                        moovOffset = pos;
+                        moovEnd = pos + size;
+                        if (size - headerSize > MAX_MOOV_BYTES) return "moov too large: " + size;
+                        byte[] moov = new byte[(int) (size - headerSize)];
+                        raf.readFully(moov);
+                        String problem = container(ByteBuffer.wrap(moov), 0, moov.length);
+                        if (problem != null) return problem;
+                        break;
+                    case "mdat":
+                        if (mdatOffset < 0) mdatOffset = pos;
+                        break;
+                    case "moof":
+                        fragmented = true;
+                        break;
+                    default:
+                        break;
+                }
+                pos += size;
+            }
+            return null;
+        }
+
+        String check(long length, Set<String> videoCodecs) {
+            if (!sawFtyp) return "no ftyp box";
+            if (moovOffset < 0) return "no moov box";
+            if (mdatOffset < 0) return "no mdat box";
+            if (videoCodec == null) return "no video track";
+            if (!videoCodecs.contains(videoCodec)) return "unsupported video codec " + videoCodec;
+            if (width <= 0 || height <= 0) return "no video size";
+            if (maxChunkOffset >= length) return "chunk at " + maxChunkOffset + " past the end of the file (" + length + ")";
+            return null;
+        }
+
+        private String container(ByteBuffer b, int start, int end) {
+            int pos = start;
+            while (pos + 8 <= end) {
+                long size = b.getInt(pos) & 0xffffffffL;
+                String type = fourcc(b.getInt(pos + 4));
+                int headerSize = 8;
+                if (size == 1) {
+                    if (pos + 16 > end) return "corrupt moov: " + type;
+                    size = b.getLong(pos + 8);
+                    headerSize = 16;
+                } else if (size == 0) {
+                    size = end - pos;
+                }
+                if (size < headerSize || size > end - pos) return "corrupt moov: " + type;
+                int body = pos + headerSize, boxEnd = (int) (pos + size);
+                String problem = box(b, type, body, boxEnd);
+                if (problem != null) return problem;
+                pos = boxEnd;
+            }
+            return null;
+        }
+
+        private String box(ByteBuffer b, String type, int body, int end) {
+            switch (type) {
+                case "trak":
+                    handler = null;
+                    mediaTimescale = mediaDuration = 0;
+                    String problem = container(b, body, end);
+                    if (mediaTimescale > 0) trackDurationMs = Math.max(trackDurationMs, mediaDuration * 1000 / mediaTimescale);
+                    return problem;
+                case "mdia": case "minf": case "stbl":
+                    return container(b, body, end);
+                case "mvex":
+                    fragmented = true;
+                    return null;
+                case "mvhd":
+                    if (end - body < 32) return "corrupt mvhd";
+                    if (b.get(body) == 1) {
+                        movieTimescale = b.getInt(body + 20) & 0xffffffffL;
+                        movieDuration = b.getLong(body + 24);
+                    } else {
+                        movieTimescale = b.getInt(body + 12) & 0xffffffffL;
+                        movieDuration = b.getInt(body + 16) & 0xffffffffL;
+                    }
+                    return null;
+                case "mdhd":
+                    if (end - body < 24) return "corrupt mdhd";
+                    if (b.get(body) == 1) {
+                        if (end - body < 36) return "corrupt mdhd";
+                        mediaTimescale = b.getInt(body + 20) & 0xffffffffL;
+                        mediaDuration = b.getLong(body + 24);
+                    } else {
+                        mediaTimescale = b.getInt(body + 12) & 0xffffffffL;
+                        mediaDuration = b.getInt(body + 16) & 0xffffffffL;
+                    }
+                    return null;
+                case "hdlr":
+                    if (end - body < 12) return "corrupt hdlr";
+                    handler = fourcc(b.getInt(body + 8));
+                    return null;
+                case "stsd":
+                    return sampleDescription(b, body, end);
+                case "stco": case "co64":
+                    return chunkOffsets(b, body, end, type.equals("co64") ? 8 : 4);
+                default:
+                    return null;
+            }
+        }
+
+        private String sampleDescription(ByteBuffer b, int body, int end) {
+            // full box header, entry_count, then the first sample entry
+            if (end - body < 16) return "corrupt stsd";
+            int entry = body + 8;
+            long size = b.getInt(entry) & 0xffffffffL;
+            if (size < 8 || size > end - entry) return "corrupt stsd";
+            String codec = fourcc(b.getInt(entry + 4));
+            int entryEnd = (int) (entry + size);
+            if ("vide".equals(handler) && videoCodec == null) {
+                videoCodec = codec;
+                // VisualSampleEntry: 8 box + 6 reserved + 2 index + 16 predefined, then width and height
+                int fields = entry + 8;
+                if (entryEnd - fields < 78) return "corrupt video sample entry";
+                width = b.getShort(fields + 24) & 0xffff;
+                height = b.getShort(fields + 26) & 0xffff;
+                profile = codecProfile(b, fields + 78, entryEnd);
+            } else if ("soun".equals(handler) && audioCodec == null) {
+                audioCodec = codec;
+            }
+            return null;
+        }
+
+        private String chunkOffsets(ByteBuffer b, int body, int end, int width) {
+            if (end - body < 8) return "corrupt chunk offsets";
+            long count = b.getInt(body + 4) & 0xffffffffL;
+            if (count > (end - body - 8) / width) return "corrupt chunk offsets";
+            for (int i = 0, p = body + 8; i < count; i++, p += width) {
+                long offset = width == 8 ? b.getLong(p) : b.getInt(p) & 0xffffffffL;
+                if (offset > maxChunkOffset) maxChunkOffset = offset;
+            }
+            return null;
+        }
+
+        // Children of the video sample entry: the decoder configuration carries profile and level
+        private static String codecProfile(ByteBuffer b, int pos, int end) {
+            while (pos + 8 <= end) {
+                long size = b.getInt(pos) & 0xffffffffL;
+                if (size < 8 || size > end - pos) return "";
+                String type = fourcc(b.getInt(pos + 4));
+                int body = pos + 8;
+                if (type.equals("avcC") && size >= 12) {
+                    int profileIdc = b.get(body + 1) & 0xff, level = b.get(body + 3) & 0xff;
+                    return avcProfile(profileIdc) + "@" + level / 10 + "." + level % 10;
+                }
+                if (type.equals("hvcC") && size >= 21) {
+                    int profileIdc = b.get(body + 1) & 0x1f, level = b.get(body + 12) & 0xff;
+                    return hevcProfile(profileIdc) + "@" + String.format(Locale.US, "%.1f", level / 30.0);
+                }
+                pos += (int) size;
+            }
+            return "";
+        }
+
+        private static String avcProfile(int idc) {
+            switch (idc) {
+                case 66: return "Baseline";
+                case 77: return "Main";
+                case 88: return "Extended";
+                case 100: return "High";
+                case 110: return "High10";
+                case 122: return "High422";
+                case 244: return "High444";
+                default: return "profile" + idc;
+            }
+        }
+
+        private static String hevcProfile(int idc) {
+            switch (idc) {
+                case 1: return "Main";
+                case 2: return "Main10";
+                case 3: return "MainStill";
+                case 4: return "RExt";
+                default: return "profile" + idc;
+            }
+        }
+
+        private static String fourcc(int v) {
+            char[] c = new char[4];
+            for (int i = 0; i < 4; i++) c[i] = (char) ((v >>> (24 - 8 * i)) & 0xff);
+            return new String(c);
+        }
+    }
+}
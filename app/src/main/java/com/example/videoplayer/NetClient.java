@@ -0,0 +1,124 @@
+package com.example.videoplayer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * The one HTTP stack of the app: a single OkHttp connection pool (keep-alive, HTTP/2 over TLS,
+ * transparent gzip) shared by control-plane calls and downloads, plus a small cache of resolved
+ * redirect targets so downloads don't repeat the redirect chain for every request.
+ */
+final class NetClient {
+
+    static final MediaType JSON = MediaType.get("application/json; charset=UTF-8");
+
+    private static final long REDIRECT_TTL_MS = 10 * 60_000L;
+    private static final int REDIRECT_CACHE_SIZE = 256;
+    private static final long EVENTS_READ_TIMEOUT_MS = 75_000;
+    private static volatile NetClient shared;
+
+    /** Control-plane client: 20 s connect, 30 s read. */
+    final OkHttpClient api;
+    /** Same pool and dispatcher with the long timeouts used for video transfers. */
+    final OkHttpClient downloads;
+    /** Same pool for long-lived event streams: the server's keep-alive comments must arrive within the read timeout. */
+    final OkHttpClient events;
+
+    private static final class Redirect {
+        final String target;
+        final long expiresAt;
+
+        Redirect(String target, long expiresAt) { this.target = target; this.expiresAt = expiresAt; }
+    }
+
+    private final Map<String, Redirect> redirects = new LinkedHashMap<String, Redirect>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, Redirect> e) { return size() > REDIRECT_CACHE_SIZE; }
+    };
+
+    NetClient(long connectTimeoutMs, long readTimeoutMs, long downloadTimeoutMs) {
+        api = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(8, 5, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true)
+                .build();
+        downloads = api.newBuilder()
+                .connectTimeout(downloadTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(downloadTimeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+        events = api.newBuilder()
+                .readTimeout(EVENTS_READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(false) // reconnects are the channel's job, with its resume token
+                .build();
+    }
+
+    static NetClient get() {
+        if (shared == null) {
+            synchronized (NetClient.class) {
+                if (shared == null) shared = new NetClient(20_000, 30_000, 120_000);
+            }
+        }
+        return shared;
+    }
+
+    /** GET returning the body, or null on a non-2xx status; throws on I/O errors. */
+    String getString(String url) throws IOException {
+        try (Response r = api.newCall(new Request.Builder().url(url).get().build()).execute()) {
+            if (!r.isSuccessful()) return null;
+            ResponseBody b = r.body();
+            return b != null ? b.string() : "";
+        }
+    }
+
+    /** POST of a JSON body; returns the status code (response body is discarded). */
+    int postJson(String url, String json) throws IOException {
+        Request req = new Request.Builder().url(url).post(RequestBody.create(json, JSON)).build();
+        try (Response r = api.newCall(req).execute()) {
+            return r.code();
+        }
+    }
+
+    /** POST of an already gzip'd JSON body (Content-Encoding: gzip); returns the status code. */
+    int postGzipJson(String url, byte[] gzipped) throws IOException {
+        Request req = new Request.Builder().url(url)
+                .header("Content-Encoding", "gzip")
+                .post(RequestBody.create(gzipped, JSON))
+                .build();
+        try (Response r = api.newCall(req).execute()) {
+            return r.code();
+        }
+    }
+
+    /** Cached final URL for url if it was resolved recently, otherwise url itself. */
+    String redirectTarget(String url) {
+        synchronized (redirects) {
+            Redirect hit = redirects.get(url);
+            return hit != null && hit.expiresAt > System.currentTimeMillis() ? hit.target : url;
+        }
+    }
+
+    /** Remembers where url ended up (OkHttp follows redirects; the response knows the final URL). */
+    void rememberRedirect(String url, String target) {
+        if (url.equals(target)) return;
+        synchronized (redirects) { redirects.put(url, new Redirect(target, System.currentTimeMillis() + REDIRECT_TTL_MS)); }
+    }
+
+    /** Drops a cached redirect, e.g. after the target rejected a request (expired signed URL). */
+    void forgetRedirect(String url) {
+        synchronized (redirects) { redirects.remove(url); }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.videoplayer;
+
+import android.graphics.Matrix;
+import android.graphics.SurfaceTexture;
+import android.util.Log;
+import android.view.Surface;
+import android.view.TextureView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.PlaybackException;
+import androidx.media3.common.Player;
+import androidx.media3.common.VideoSize;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.ExoPlayer;
+
+/**
+ * One ExoPlayer bound to one TextureView, playing a single playlist item at a time.
+ * The item's rotation/fit transform is applied as soon as it is loaded, while the deck is still
+ * hidden, and re-applied when the real video size is known (before the first frame is rendered).
+ */
+@OptIn(markerClass = UnstableApi.class)
+final class PlayerDeck implements TransitionEngine.Deck, TextureView.SurfaceTextureListener {
+
+    /** Playlist items by index. */
+    interface Source {
+        MediaItem item(int index);
+        String name(int index);
+        int rotation(int index);
+        String fitMode(int index);
+    }
+
+    private static final String TAG = "PlayerDeck";
+
+    private final String name;
+    private final TextureView view;
+    private final Source source;
+    private final Runnable onStateChanged;
+    private final ExoPlayer player;
+    private final QoeListener qoe;
+    private final TransformCache transforms = new TransformCache(8);
+    private Matrix appliedTransform;
+    private Surface surface;
+
+    private boolean loaded;
+    private int index = -1; // playlist index of the loaded item, -1 once it was removed from the playlist
+    private int rotation;
+    private String fitMode, itemName;
+    private boolean firstFrame, failed;
+    private int videoWidth, videoHeight;
+    private Runnable onFirstSurfaceUpdate; // one-shot, cleared after it ran
+
+    /**
+     * onStateChanged runs on the player's thread when a frame, the end or an error arrives;
+     * playback quality of each loaded item is recorded into qoeStats.
+     */
+    PlayerDeck(String name, TextureView view, ExoPlayer player, Source source, QoeStats qoeStats, Runnable onStateChanged) {
+        this.name = name;
+        this.view = view;
+        this.source = source;
+        this.onStateChanged = onStateChanged;
+        this.player = player;
+        player.setRepeatMode(Player.REPEAT_MODE_OFF);
+        qoe = new QoeListener(qoeStats, () -> loaded ? itemName : null);
+        player.addAnalyticsListener(qoe);
+        player.addListener(new Player.Listener() {
+            @Override
+            public void onRenderedFirstFrame() {
+                firstFrame = true;
+                onStateChanged.run();
+            }
+
+            @Override
+            public void onVideoSizeChanged(@NonNull VideoSize size) {
+                videoWidth = size.width;
+                videoHeight = size.height;
+                applyTransform();
+            }
+
+            @Override
+            public void onPlaybackStateChanged(int state) {
+                if (state == Player.STATE_ENDED) onStateChanged.run();
+            }
+
+            @Override
+            public void onPlayerError(@NonNull PlaybackException e) {
+                Log.e(TAG, name + " item " + itemName + " failed: " + e.getMessage());
+                failed = true;
+                onStateChanged.run();
+            }
+        });
+        view.setAlpha(0f);
+        view.setSurfaceTextureListener(this);
+    }
+
+    @Override
+    public void load(int i) {
+        loaded = true;
+        index = i;
+        rotation = source.rotation(i);
+        fitMode = source.fitMode(i);
+        itemName = source.name(i);
+        firstFrame = false;
+        failed = false;
+        videoWidth = videoHeight = 0;
+        qoe.reset();
+        applyTransform();
+        player.setMediaItem(source.item(i));
+        player.setPlayWhenReady(false); // the first frame is still rendered, behind the visible deck
+        player.prepare();
+    }
+
+    @Override
+    public void unload() {
+        loaded = false;
+        index = -1;
+        firstFrame = false;
+        player.stop(); // keeps the codec: the player is in foreground mode (SignagePlayerFactory)
+        player.clearMediaItems();
+    }
+
+    @Override
+    public void reindex(int i) {
+        if (!loaded) return;
+        index = i; // a removed item keeps the metadata it was loaded with
+        refreshTransform();
+    }
+
+    @Override public boolean hasFrame() { return loaded && firstFrame; }
+
+    @Override public boolean failed() { return loaded && failed; }
+
+    @Override public boolean ended() { return loaded && player.getPlaybackState() == Player.STATE_ENDED; }
+
+    @Override public long positionMs() { return player.getCurrentPosition(); }
+
+    @Override public long durationMs() { return player.getDuration(); } // C.TIME_UNSET is negative
+
+    @Override public void play() { player.play(); }
+
+    @Override public void pause() { player.pause(); }
+
+    @Override public void setVisible(boolean visible) { view.setAlpha(visible ? 1f : 0f); }
+
+    /** Re-reads the loaded item's rotation/fit and re-applies its transform, e.g. after the manifest changed. */
+    void refreshTransform() {
+        if (!loaded) return;
+        if (index >= 0) {
+            rotation = source.rotation(index);
+            fitMode = source.fitMode(index);
+        }
+        applyTransform();
+    }
+
+    /** Runs r once, on the first frame this deck's surface receives. */
+    void onFirstSurfaceUpdate(Runnable r) {
+        onFirstSurfaceUpdate = r;
+    }
+
+    void release() {
+        player.setVideoSurface(null);
+        player.release();
+        if (surface != null) { surface.release(); surface = null; }
+    }
+
+    private void applyTransform() {
+        if (!loaded) return;
+        int viewWidth = view.getWidth(), viewHeight = view.getHeight();
+        if (viewWidth == 0 || viewHeight == 0) {
+            view.post(this::applyTransform); // not measured yet
+            return;
+        }
+        long misses = transforms.misses();
+        // Cached per (rotation, fit, video size, view size): no allocation or fit math after warm-up
+        Matrix matrix = transforms.get(rotation, VideoTransform.fitCode(fitMode), videoWidth, videoHeight, viewWidth, viewHeight);
+        boolean computed = transforms.misses() != misses;
+        if (!computed && matrix == appliedTransform) return; // a recycled slot is never a hit
+        appliedTransform = matrix;
+        view.setTransform(matrix);
+        if (computed) {
+            Log.d(TAG, name + " transform computed: rotation=" + rotation + " fitMode=" + fitMode + " view=" + viewWidth + "x" + viewHeight
+                    + " video=" + videoWidth + "x" + videoHeight);
+        }
+    }
+
+    // ===== TextureView.SurfaceTextureListener =====
+
+    @Override
+    public void onSurfaceTextureAvailable(@NonNull SurfaceTexture surfaceTexture, int width, int height) {
+        Log.d(TAG, name + " surface available: " + width + "x" + height);
+        surface = new Surface(surfaceTexture);
+        player.setVideoSurface(surface);
+        applyTransform();
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(@NonNull SurfaceTexture surfaceTexture, int width, int height) {
+        applyTransform();
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(@NonNull SurfaceTexture surfaceTexture) {
+        player.setVideoSurface(null);
+        if (surface != null) { surface.release(); surface = null; }
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(@NonNull SurfaceTexture surfaceTexture) {
+        // Called every frame - no logging needed
+        Runnable r = onFirstSurfaceUpdate;
+        if (r != null) { onFirstSurfaceUpdate = null; r.run(); }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.videoplayer;
+
+import java.util.Locale;
+
+/**
+ * Buffer sizing of the "signage" player: local MP4s only, looped for months on low-RAM boxes.
+ * Local files load at disk speed, so a few seconds of buffer are enough where ExoPlayer's streaming
+ * defaults keep up to 50 s. The byte target follows the content bitrate (with headroom for VBR peaks)
+ * and is capped so that all decks together stay within a share of the heap, which depends on the RAM class.
+ */
+final class PlayerProfile {
+
+    enum RamClass {
+        LOW(2_000, 4_000, 500, 1_000, 8),
+        MID(3_000, 8_000, 750, 1_500, 6),
+        HIGH(5_000, 15_000, 1_000, 2_000, 4);
+
+        final int minBufferMs, maxBufferMs, playbackStartMs, rebufferMs;
+        final int heapShareDivisor; // all decks' buffers together stay under heap / divisor
+
+        RamClass(int minBufferMs, int maxBufferMs, int playbackStartMs, int rebufferMs, int heapShareDivisor) {
+            this.minBufferMs = minBufferMs;
+            this.maxBufferMs = maxBufferMs;
+            this.playbackStartMs = playbackStartMs;
+            this.rebufferMs = rebufferMs;
+            this.heapShareDivisor = heapShareDivisor;
+        }
+
+        static RamClass of(long totalRamBytes, boolean lowRamDevice) {
+            if (lowRamDevice || totalRamBytes <= 2L << 30) return LOW;
+            return totalRamBytes <= 4L << 30 ? MID : HIGH;
+        }
+    }
+
+    /** Allocation unit of the player's buffer, as ExoPlayer's default (C.DEFAULT_BUFFER_SEGMENT_SIZE). */
+    static final int SEGMENT_BYTES = 64 * 1024;
+    static final int MIN_TARGET_BYTES = 2 << 20;
+    private static final double VBR_HEADROOM = 1.5;
+
+    final RamClass ramClass;
+    final int minBufferMs, maxBufferMs, playbackStartMs, rebufferMs;
+    final int targetBufferBytes; // per deck
+    final int decks;
+    final long heapLimitBytes;
+
+    private PlayerProfile(RamClass ramClass, int targetBufferBytes, int decks, long heapLimitBytes) {
+        this.ramClass = ramClass;
+        this.minBufferMs = ramClass.minBufferMs;
+        this.maxBufferMs = ramClass.maxBufferMs;
+        this.playbackStartMs = ramClass.playbackStartMs;
+        this.rebufferMs = ramClass.rebufferMs;
+        this.targetBufferBytes = targetBufferBytes;
+        this.decks = decks;
+        this.heapLimitBytes = heapLimitBytes;
+    }
+
+    /**
+     * contentBitrateBps is the highest bitrate expected in the playlist; heapLimitBytes the process heap
+     * limit (Runtime.maxMemory()); decks the number of players alive at once.
+     */
+    static PlayerProfile select(long totalRamBytes, boolean lowRamDevice, long heapLimitBytes, long contentBitrateBps, int decks) {
+        RamClass ramClass = RamClass.of(totalRamBytes, lowRamDevice);
+        decks = Math.max(1, decks);
+        long wanted = (long) (Math.max(0, contentBitrateBps) / 8.0 * ramClass.maxBufferMs / 1000 * VBR_HEADROOM);
+        long cap = heapLimitBytes / ramClass.heapShareDivisor / decks;
+        long target = Math.max(MIN_TARGET_BYTES, Math.min(wanted, cap));
+        target = (target + SEGMENT_BYTES - 1) / SEGMENT_BYTES * SEGMENT_BYTES;
+        return new PlayerProfile(ramClass, (int) Math.min(Integer.MAX_VALUE, target), decks, heapLimitBytes);
+    }
+
+    /** Heap held by the buffers of all decks when full; decoders keep their frames outside the Java heap. */
+    long heapFootprintBytes() {
+        return (long) decks * targetBufferBytes;
+    }
+
+    boolean fitsHeap() {
+        return heapFootprintBytes() * 2 <= heapLimitBytes;
+    }
+
+    String describe() {
+        return String.format(Locale.US, "%s buffer=%d-%dms target=%dKB x%d footprint=%dMB of %dMB heap",
+                ramClass, minBufferMs, maxBufferMs, targetBufferBytes >> 10, decks,
+                heapFootprintBytes() >> 20, heapLimitBytes >> 20);
+    }
+}
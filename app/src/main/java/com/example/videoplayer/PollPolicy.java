@@ -0,0 +1,83 @@
+package com.example.videoplayer;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Delay before the next poll, from the outcome of the last one.
+ * A change resets the interval to the base; polls that keep finding nothing stretch it (x1.5 each,
+ * up to maxIntervalMs) once nothing has changed for stretchAfterMs; failures back off exponentially
+ * from the base up to maxBackoffMs without touching the interval. Every delay is jittered by
+ * +/- jitter, and the first one is spread over a whole base interval, so a fleet that boots
+ * together (e.g. after a power cut) does not poll in lockstep.
+ */
+final class PollPolicy {
+
+    enum Outcome { CHANGED, UNCHANGED, FAILED }
+
+    interface Clock {
+        long elapsedMs();
+    }
+
+    private static final double STRETCH_FACTOR = 1.5;
+
+    private final long baseMs, maxIntervalMs, stretchAfterMs, maxBackoffMs;
+    private final double jitter;
+    private final Clock clock;
+    private final Random random;
+
+    private long intervalMs;
+    private long lastChangeMs;
+    private int failures;
+
+    PollPolicy(long baseMs, long maxIntervalMs, long stretchAfterMs, long maxBackoffMs, double jitter, Clock clock, Random random) {
+        this.baseMs = baseMs;
+        this.maxIntervalMs = Math.max(baseMs, maxIntervalMs);
+        this.stretchAfterMs = stretchAfterMs;
+        this.maxBackoffMs = Math.max(baseMs, maxBackoffMs);
+        this.jitter = Math.max(0, Math.min(1, jitter));
+        this.clock = clock;
+        this.random = random;
+        this.intervalMs = baseMs;
+        this.lastChangeMs = clock.elapsedMs();
+    }
+
+    /** Uniform over one base interval: spreads devices that start at the same moment. */
+    synchronized long firstDelayMs() {
+        return (long) (random.nextDouble() * baseMs);
+    }
+
+    /** Delay after a poll with this outcome; null means the poll was skipped (e.g. the previous one still runs). */
+    synchronized long nextDelayMs(Outcome outcome) {
+        if (outcome == null) return jittered(intervalMs);
+        long now = clock.elapsedMs();
+        switch (outcome) {
+            case CHANGED:
+                failures = 0;
+                intervalMs = baseMs;
+                lastChangeMs = now;
+                return jittered(intervalMs);
+            case UNCHANGED:
+                failures = 0;
+                if (now - lastChangeMs >= stretchAfterMs) intervalMs = Math.min(maxIntervalMs, (long) (intervalMs * STRETCH_FACTOR));
+                return jittered(intervalMs);
+            default:
+                failures++;
+                return jittered(Math.min(maxBackoffMs, baseMs << Math.min(failures, 20)));
+        }
+    }
+
+    /** A change learned elsewhere (e.g. pushed): tighten again without waiting for a poll to see it. */
+    synchronized void onChanged() {
+        intervalMs = baseMs;
+        lastChangeMs = clock.elapsedMs();
+    }
+
+    synchronized String describe() {
+        return String.format(Locale.US, "interval=%ds failures=%d", intervalMs / 1000, failures);
+    }
+
+    private long jittered(long ms) {
+        return Math.max(0, (long) (ms * (1 - jitter + 2 * jitter * random.nextDouble())));
+    }
+}
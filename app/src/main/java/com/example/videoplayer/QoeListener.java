@@ -0,0 +1,77 @@
+package com.example.videoplayer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.media3.common.PlaybackException;
+import androidx.media3.common.Player;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.analytics.AnalyticsListener;
+
+/**
+ * Feeds one ExoPlayer's analytics events into {@link QoeStats}, keyed by the item the deck has loaded.
+ * A stall is BUFFERING after the item was READY while it should be playing; the initial preparation
+ * of a preloaded deck is not counted.
+ */
+@OptIn(markerClass = UnstableApi.class)
+final class QoeListener implements AnalyticsListener {
+
+    /** Name of the item currently loaded on the player, or null. */
+    interface CurrentItem {
+        String name();
+    }
+
+    private final QoeStats stats;
+    private final CurrentItem current;
+    private boolean playWhenReady, wasReady;
+    private long stallStartMs = -1;
+
+    QoeListener(QoeStats stats, CurrentItem current) {
+        this.stats = stats;
+        this.current = current;
+    }
+
+    /** Called when the deck loads a new item: its preparation is not a stall. */
+    void reset() {
+        wasReady = false;
+        stallStartMs = -1;
+    }
+
+    @Override
+    public void onPlayWhenReadyChanged(@NonNull EventTime eventTime, boolean playWhenReady, int reason) {
+        this.playWhenReady = playWhenReady;
+    }
+
+    @Override
+    public void onPlaybackStateChanged(@NonNull EventTime eventTime, int state) {
+        if (state == Player.STATE_BUFFERING) {
+            if (wasReady && playWhenReady && stallStartMs < 0) stallStartMs = eventTime.realtimeMs;
+            return;
+        }
+        if (stallStartMs >= 0) {
+            stats.stall(current.name(), eventTime.realtimeMs - stallStartMs);
+            stallStartMs = -1;
+        }
+        if (state == Player.STATE_READY) wasReady = true;
+    }
+
+    @Override
+    public void onPlayerError(@NonNull EventTime eventTime, @NonNull PlaybackException error) {
+        stats.error(current.name());
+    }
+
+    @Override
+    public void onDroppedVideoFrames(@NonNull EventTime eventTime, int droppedFrames, long elapsedMs) {
+        stats.droppedFrames(current.name(), droppedFrames);
+    }
+
+    @Override
+    public void onVideoDecoderInitialized(@NonNull EventTime eventTime, @NonNull String decoderName,
+                                          long initializedTimestampMs, long initializationDurationMs) {
+        stats.decoderInit(current.name(), decoderName, initializationDurationMs);
+    }
+
+    @Override
+    public void onVideoFrameProcessingOffset(@NonNull EventTime eventTime, long totalProcessingOffsetUs, int frameCount) {
+        stats.frameProcessingOffset(current.name(), totalProcessingOffsetUs, frameCount);
+    }
+}
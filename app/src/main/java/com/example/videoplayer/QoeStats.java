@@ -0,0 +1,127 @@
+package com.example.videoplayer;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Playback quality counters per playlist item, drained into each heartbeat.
+ * Latencies go into fixed histograms (upper bounds in {@link #BUCKETS_MS}, plus one overflow
+ * bucket) so the fleet can be aggregated server-side without shipping raw samples.
+ */
+final class QoeStats {
+
+    static final long[] BUCKETS_MS = {16, 33, 66, 100, 250, 500, 1000, 2500};
+    /** Items beyond this many share one "_other" entry, keeping the heartbeat bounded. */
+    static final int MAX_ITEMS = 64;
+    static final String OTHER = "_other";
+
+    private static final class Item {
+        int plays, errors, stalls;
+        long droppedFrames, stallMs, frameOffsetUs, frameOffsetFrames;
+        String decoder = "";
+        final int[] decoderInitMs = new int[BUCKETS_MS.length + 1];
+        final int[] transitionGapMs = new int[BUCKETS_MS.length + 1];
+    }
+
+    private final Map<String, Item> items = new LinkedHashMap<>();
+    private long droppedFramesTotal; // not reset by drains: the download throttle watches it for playback pressure
+
+    synchronized void play(String name) { item(name).plays++; }
+
+    synchronized void error(String name) { item(name).errors++; }
+
+    synchronized void droppedFrames(String name, int count) {
+        item(name).droppedFrames += count;
+        droppedFramesTotal += count;
+    }
+
+    synchronized long droppedFramesTotal() { return droppedFramesTotal; }
+
+    /** A rebuffer while playing, and how long it lasted. */
+    synchronized void stall(String name, long ms) {
+        Item it = item(name);
+        it.stalls++;
+        it.stallMs += ms;
+    }
+
+    synchronized void decoderInit(String name, String decoder, long ms) {
+        Item it = item(name);
+        it.decoder = decoder;
+        it.decoderInitMs[bucket(ms)]++;
+    }
+
+    /** Sum of (release time - presentation time) over frameCount frames; large values mean late frames. */
+    synchronized void frameProcessingOffset(String name, long totalOffsetUs, int frameCount) {
+        Item it = item(name);
+        it.frameOffsetUs += totalOffsetUs;
+        it.frameOffsetFrames += frameCount;
+    }
+
+    /** Time the previous item's last frame stayed up past its end before this item was shown. */
+    synchronized void transitionGap(String name, long ms) { item(name).transitionGapMs[bucket(ms)]++; }
+
+    /**
+     * Everything recorded since the last drain as
+     * {"buckets_ms":[...],"items":{name:{"plays":..,"errors":..,"dropped":..,"stalls":..,"stall_ms":..,
+     * "decoder":..,"decoder_init":[..],"frame_offset_us":..,"gap":[..]}}}, or null if nothing was recorded.
+     */
+    synchronized String drainJson() {
+        if (items.isEmpty()) return null;
+        StringBuilder sb = new StringBuilder(512).append("{\"buckets_ms\":[");
+        for (int i = 0; i < BUCKETS_MS.length; i++) { if (i > 0) sb.append(','); sb.append(BUCKETS_MS[i]); }
+        sb.append("],\"items\":{");
+        boolean first = true;
+        for (Map.Entry<String, Item> e : items.entrySet()) {
+            Item it = e.getValue();
+            if (!first) sb.append(',');
+            first = false;
+            sb.append('"').append(escape(e.getKey())).append("\":{")
+                    .append("\"plays\":").append(it.plays)
+                    .append(",\"errors\":").append(it.errors)
+                    .append(",\"dropped\":").append(it.droppedFrames)
+                    .append(",\"stalls\":").append(it.stalls)
+                    .append(",\"stall_ms\":").append(it.stallMs)
+                    .append(",\"decoder\":\"").append(escape(it.decoder)).append('"')
+                    .append(",\"decoder_init\":");
+            histogram(sb, it.decoderInitMs);
+            sb.append(",\"frame_offset_us\":").append(it.frameOffsetFrames > 0 ? it.frameOffsetUs / it.frameOffsetFrames : 0)
+                    .append(",\"gap\":");
+            histogram(sb, it.transitionGapMs);
+            sb.append('}');
+        }
+        items.clear();
+        return sb.append("}}").toString();
+    }
+
+    private Item item(String name) {
+        if (name == null) name = OTHER;
+        Item it = items.get(name);
+        if (it != null) return it;
+        if (items.size() >= MAX_ITEMS) name = OTHER;
+        it = items.get(name);
+        if (it == null) { it = new Item(); items.put(name, it); }
+        return it;
+    }
+
+    static int bucket(long ms) {
+        for (int i = 0; i < BUCKETS_MS.length; i++) if (ms <= BUCKETS_MS[i]) return i;
+        return BUCKETS_MS.length;
+    }
+
+    private static void histogram(StringBuilder sb, int[] h) {
+        sb.append('[');
+        for (int i = 0; i < h.length; i++) { if (i > 0) sb.append(','); sb.append(h[i]); }
+        sb.append(']');
+    }
+
+    private static String escape(String s) {
+        if (s.indexOf('"') < 0 && s.indexOf('\\') < 0) return s;
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "QoeStats(%d items)", items.size());
+    }
+}
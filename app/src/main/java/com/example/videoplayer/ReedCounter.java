@@ -0,0 +1,160 @@
+package com.example.videoplayer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TimeZone;
+
+/**
+ * On-device daily/monthly reed-open counters.
+ * Every event is persisted locally; the uplink gets absolute totals per period (day, month)
+ * rather than increments, so a replayed or duplicated snapshot can never double-count.
+ * Day and month rollover happen locally in the device time zone; a clock that jumps backwards
+ * (e.g. before NTP sync at boot) keeps counting into the current period.
+ */
+final class ReedCounter {
+
+    /** Absolute totals of one day and its month, as of the moment they were handed off. */
+    static final class Snapshot {
+        final String day;     // yyyy-MM-dd
+        final long daily;
+        final String month;   // yyyy-MM
+        final long monthly;
+
+        Snapshot(String day, long daily, String month, long monthly) {
+            this.day = day; this.daily = daily; this.month = month; this.monthly = monthly;
+        }
+
+        String toJson() {
+            return "{\"day\": \"" + day + "\", \"daily_count\": " + daily
+                    + ", \"month\": \"" + month + "\", \"monthly_count\": " + monthly + "}";
+        }
+    }
+
+    private final File stateFile;
+    private final TimeZone tz;
+
+    private String day = "", month = "";
+    private long daily, monthly;
+    private boolean dayBaseKnown, monthBaseKnown; // false until the server's totals were folded in
+    private long pending;                         // increments not yet handed off in a snapshot
+    private Snapshot closed;                      // final totals of a period that rolled over unsent
+
+    ReedCounter(File stateFile, TimeZone tz) {
+        this.stateFile = stateFile;
+        this.tz = tz;
+        load();
+    }
+
+    synchronized void record(long nowMs) {
+        roll(nowMs);
+        daily++;
+        monthly++;
+        pending++;
+        save();
+    }
+
+    /** True while the server's totals for the current period still have to be fetched once. */
+    synchronized boolean needsServerBase() { return !dayBaseKnown || !monthBaseKnown; }
+
+    /** Folds server totals (counted before this device kept local state) into the current period. */
+    synchronized void applyServerBase(long serverDaily, long serverMonthly, long nowMs) {
+        roll(nowMs);
+        if (!dayBaseKnown) { daily += serverDaily; dayBaseKnown = true; }
+        if (!monthBaseKnown) { monthly += serverMonthly; monthBaseKnown = true; }
+        save(); // with no local events the server already holds these totals
+    }
+
+    /**
+     * Snapshots to hand to the uplink: the closing totals of a rolled-over period, then the current
+     * totals if anything changed. Empty while the server base is unknown, since a partial total would
+     * overwrite the server's larger one.
+     */
+    synchronized List<Snapshot> drain(long nowMs) {
+        roll(nowMs);
+        List<Snapshot> out = new ArrayList<>(2);
+        if (closed != null) out.add(closed);
+        if (pending > 0 && !needsServerBase()) out.add(new Snapshot(day, daily, month, monthly));
+        if (out.isEmpty()) return out;
+        closed = null;
+        pending = 0;
+        save();
+        return out;
+    }
+
+    synchronized long pendingDelta() { return pending; }
+
+    synchronized boolean isCurrentDay(String d) { return day.equals(d); }
+
+    synchronized boolean isCurrentMonth(String m) { return month.equals(m); }
+
+    synchronized String describe() {
+        return String.format(Locale.US, "day=%s:%d month=%s:%d pending=%d%s", day, daily, month, monthly, pending,
+                needsServerBase() ? " (awaiting server base)" : "");
+    }
+
+    private void roll(long nowMs) {
+        Calendar c = Calendar.getInstance(tz, Locale.US);
+        c.setTimeInMillis(nowMs);
+        String d = String.format(Locale.US, "%04d-%02d-%02d", c.get(Calendar.YEAR), c.get(Calendar.MONTH) + 1, c.get(Calendar.DAY_OF_MONTH));
+        if (day.isEmpty()) { day = d; month = d.substring(0, 7); return; }
+        if (d.compareTo(day) <= 0) return; // same day, or the clock went backwards
+
+        if (pending > 0 && dayBaseKnown && monthBaseKnown) {
+            closed = new Snapshot(day, daily, month, monthly);
+            pending = 0;
+        }
+        String m = d.substring(0, 7);
+        if (!m.equals(month)) { month = m; monthly = 0; monthBaseKnown = true; }
+        day = d;
+        daily = 0;
+        dayBaseKnown = true; // a fresh period starts at zero on the server too
+        save();
+    }
+
+    private void save() {
+        Properties p = new Properties();
+        p.setProperty("day", day);
+        p.setProperty("daily", Long.toString(daily));
+        p.setProperty("month", month);
+        p.setProperty("monthly", Long.toString(monthly));
+        p.setProperty("day_base", Boolean.toString(dayBaseKnown));
+        p.setProperty("month_base", Boolean.toString(monthBaseKnown));
+        p.setProperty("pending", Long.toString(pending));
+        if (closed != null) {
+            p.setProperty("closed", closed.day + "," + closed.daily + "," + closed.month + "," + closed.monthly);
+        }
+        File tmp = new File(stateFile.getParentFile(), stateFile.getName() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp)) { p.store(out, null); out.getFD().sync(); }
+            tmp.renameTo(stateFile);
+        } catch (Exception ignored) {
+            // Counts stay in memory; the next event retries the write
+        }
+    }
+
+    private void load() {
+        if (!stateFile.exists()) return; // first run: base comes from the server
+        Properties p = new Properties();
+        try (FileInputStream in = new FileInputStream(stateFile)) {
+            p.load(in);
+            day = p.getProperty("day", "");
+            month = p.getProperty("month", "");
+            daily = Long.parseLong(p.getProperty("daily", "0"));
+            monthly = Long.parseLong(p.getProperty("monthly", "0"));
+            dayBaseKnown = Boolean.parseBoolean(p.getProperty("day_base", "false"));
+            monthBaseKnown = Boolean.parseBoolean(p.getProperty("month_base", "false"));
+            pending = Long.parseLong(p.getProperty("pending", "0"));
+            String[] c = p.getProperty("closed", "").split(",");
+            if (c.length == 4) closed = new Snapshot(c[0], Long.parseLong(c[1]), c[2], Long.parseLong(c[3]));
+        } catch (Exception e) {
+            day = ""; month = ""; daily = 0; monthly = 0; pending = 0; closed = null;
+            dayBaseKnown = false; monthBaseKnown = false;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.videoplayer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Downloads files as parallel HTTP Range segments written in place into "name.part", named after the
+ * final file. A {@link DownloadJournal} next to it checkpoints the server's validator and a checksum per
+ * committed chunk, so an interrupted download, even by a power cut, resumes per segment without fetching
+ * verified bytes again; resumed ranges carry If-Range, and a source that changed starts over instead of
+ * being spliced. Servers without range support get a plain single stream.
+ * Every file is SHA-256 hashed while it streams in and verified before it is renamed into place.
+ * All streams are paced by an optional {@link BandwidthThrottle}; playback-critical items go first.
+ * Segmented downloads are published to an optional {@link GrowingFiles}, so they can play while they grow.
+ */
+final class SegmentedDownloader {
+
+    static final class Result {
+        final String url;
+        final File file;          // null on failure
+        final String sha256;      // lowercase hex of the downloaded content, null on failure
+        final Exception error;    // null on success
+        final long bytes;         // bytes transferred in this session
+        final long millis;
+
+        Result(String url, File file, String sha256, Exception error, long bytes, long millis) {
+            this.url = url; this.file = file; this.sha256 = sha256; this.error = error; this.bytes = bytes; this.millis = millis;
+        }
+
+        boolean ok() { return file != null; }
+        long bytesPerSecond() { return millis > 0 ? bytes * 1000L / millis : bytes; }
+    }
+
+    private static final int BUFFER_SIZE = 131072;
+    private static final long CHECKPOINT_BYTES = 8L * 1024 * 1024;
+
+    private final NetClient net;
+    private final int segmentsPerFile;
+    private final long minSegmentBytes;
+    private final int maxRetries;
+    private final long retryBaseMs;
+    private final ExecutorService filePool;
+    private final ExecutorService segmentPool;
+    private final BandwidthThrottle throttle; // null = unthrottled
+    private final GrowingFiles growing;       // null = nothing plays before it is complete
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    SegmentedDownloader(NetClient net, int maxConcurrentFiles, int segmentsPerFile, long minSegmentBytes, int maxRetries, long retryBaseMs) {
+        this(net, maxConcurrentFiles, segmentsPerFile, minSegmentBytes, maxRetries, retryBaseMs, null);
+    }
+
+    SegmentedDownloader(NetClient net, int maxConcurrentFiles, int segmentsPerFile, long minSegmentBytes, int maxRetries, long retryBaseMs,
+                        BandwidthThrottle throttle) {
+        this(net, maxConcurrentFiles, segmentsPerFile, minSegmentBytes, maxRetries, retryBaseMs, throttle, null);
+    }
+
+    SegmentedDownloader(NetClient net, int maxConcurrentFiles, int segmentsPerFile, long minSegmentBytes, int maxRetries, long retryBaseMs,
+                        BandwidthThrottle throttle, GrowingFiles growing) {
+        this.net = net;
+        this.throttle = throttle;
+        this.growing = growing;
+        this.segmentsPerFile = Math.max(1, segmentsPerFile);
+        this.minSegmentBytes = minSegmentBytes;
+        this.maxRetries = maxRetries;
+        this.retryBaseMs = retryBaseMs;
+        this.filePool = Executors.newFixedThreadPool(Math.max(1, maxConcurrentFiles));
+        this.segmentPool = Executors.newFixedThreadPool(Math.max(1, maxConcurrentFiles) * this.segmentsPerFile);
+    }
+
+    /** Bytes received by this downloader across all files since it was created. */
+    long totalBytes() { return totalBytes.get(); }
+
+    void shutdown() {
+        filePool.shutdownNow();
+        segmentPool.shutdownNow();
+    }
+
+    /** Downloads all items into dir with bounded per-file concurrency; results are in input order. */
+    List<Result> downloadAll(List<PlaylistManifest.Item> items, File dir) throws InterruptedException {
+        return downloadAll(items, it -> false, dir);
+    }
+
+    /** As above; critical items are queued first and paced as priority transfers. */
+    List<Result> downloadAll(List<PlaylistManifest.Item> items, Predicate<PlaylistManifest.Item> critical, File dir) throws InterruptedException {
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) futures.add(null);
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < items.size(); i++) {
+                PlaylistManifest.Item it = items.get(i);
+                boolean priority = critical.test(it);
+                if (priority == (pass == 0)) futures.set(i, filePool.submit(() -> download(it.url, it.sha256, dir, priority)));
+            }
+        }
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try { results.add(futures.get(i).get()); }
+            catch (java.util.concurrent.ExecutionException e) { results.add(new Result(items.get(i).url, null, null, e, 0, 0)); }
+        }
+        return results;
+    }
+
+    /** Downloads one url into dir without verification; throws on failure. */
+    File download(String url, File dir) throws Exception {
+        Result r = download(url, "", dir);
+        if (r.error != null) throw r.error;
+        return r.file;
+    }
+
+    /** Downloads one url into dir, resuming any previous ".part"; a non-empty expectedSha256 is enforced. */
+    Result download(String url, String expectedSha256, File dir) {
+        return download(url, expectedSha256, dir, false);
+    }
+
+    private Result download(String url, String expectedSha256, File dir, boolean priority) {
+        long t0 = System.nanoTime();
+        Transfer transfer = new Transfer(priority);
+        try {
+            File[] out = new File[1];
+            String sha = fetch(url, expectedSha256 == null ? "" : expectedSha256, dir, out, transfer);
+            return new Result(url, out[0], sha, null, transfer.bytes.get(), (System.nanoTime() - t0) / 1_000_000L);
+        } catch (Exception e) {
+            return new Result(url, null, null, e, transfer.bytes.get(), (System.nanoTime() - t0) / 1_000_000L);
+        }
+    }
+
+    private String fetch(String urlStr, String expectedSha256, File dir, File[] outHolder, Transfer transfer) throws Exception {
+        String name = PlaylistManifest.filenameFromUrl(urlStr);
+
+        // Probe with a one-byte range: tells us the size, range support, validator, final name and, since
+        // redirects are followed, the final URL that all segment requests go to directly
+        long total = -1;
+        String fn = name, validator = "";
+        String finalUrl = net.redirectTarget(urlStr);
+        Response r = net.downloads.newCall(rangeRequest(finalUrl, "bytes=0-0")).execute();
+        if (!r.isSuccessful() && !finalUrl.equals(urlStr)) {
+            // Cached target went stale (e.g. an expired signed URL): resolve again from the source
+            r.close();
+            net.forgetRedirect(urlStr);
+            r = net.downloads.newCall(rangeRequest(urlStr, "bytes=0-0")).execute();
+        }
+        try {
+            finalUrl = r.request().url().toString();
+            net.rememberRedirect(urlStr, finalUrl);
+            fn = contentDispositionName(r.header("Content-Disposition"), name);
+            if (r.code() == 206) {
+                total = totalFromContentRange(r.header("Content-Range"));
+                validator = validatorOf(r);
+            }
+        } finally { r.close(); }
+
+        // The part and its journal are named after the file they become, so two URLs with the same last
+        // path segment but different Content-Disposition names never share (and splice) one ".part"
+        File out = new File(dir, fn);
+        File part = new File(dir, fn + ".part");
+        File journal = new File(dir, fn + ".part.journal");
+        new File(dir, name + ".part.segs").delete(); // plans of older versions carry no checksums
+        outHolder[0] = out;
+        String sha;
+        GrowingFiles.Entry entry = null;
+        boolean ok = false;
+        try {
+            if (total <= 0) {
+                journal.delete();
+                sha = singleStream(finalUrl, part, fn, transfer);
+            } else {
+                DownloadJournal plan = resumeOrStart(urlStr, validator, expectedSha256, legacyPart(dir, name), part, journal, total);
+                // Only the preallocated part of a ranged download can be read in place while it grows
+                if (growing != null) entry = growing.begin(out, part, total);
+                sha = segmented(finalUrl, plan, part, journal, transfer, entry);
+            }
+            if (!expectedSha256.isEmpty() && !expectedSha256.equals(sha)) {
+                part.delete();
+                journal.delete();
+                throw new RuntimeException("Checksum mismatch for " + fn + ": " + sha);
+            }
+            // The part was forced to disk; the rename is the commit (it replaces an older out atomically, so the
+            // video never leaves the directory), the journal goes after it
+            if (!part.renameTo(out)) {
+                out.delete(); // only where rename does not replace an existing file
+                if (!part.renameTo(out)) throw new RuntimeException("rename failed: " + out.getName());
+            }
+            journal.delete();
+            ok = true;
+        } finally {
+            if (entry != null) growing.end(entry, ok);
+        }
+        return sha;
+    }
+
+    // ===== SEGMENTED (journaled, resumable) =====
+
+    /** The source no longer matches the validator the part was started with (If-Range answered 200). */
+    private static final class SourceChangedException extends IOException {
+        SourceChangedException(String message) { super(message); }
+    }
+
+    /**
+     * The journal to continue: the part's own if it still matches the source (committed chunks re-checked),
+     * else a fresh plan, adopting a pre-journal part only when the final hash can vouch for it. The journal
+     * is written before the part is preallocated, so a part without one never looks like downloaded bytes.
+     */
+    private DownloadJournal resumeOrStart(String sourceUrl, String validator, String expectedSha256, File legacy, File part,
+                                          File journalFile, long total) throws Exception {
+        DownloadJournal journal = DownloadJournal.load(journalFile);
+        if (journal != null && !(part.isFile() && journal.matches(sourceUrl, validator, total))) journal = null;
+        long have = 0;
+        if (journal == null) {
+            journalFile.delete();
+            if (legacy != null) {
+                if (!expectedSha256.isEmpty() && (legacy.equals(part) || legacy.renameTo(part))) have = Math.min(part.length(), total);
+                else legacy.delete();
+            }
+            if (have == 0) part.delete();
+            journal = new DownloadJournal(sourceUrl, validator, total, newPlan(have, total));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(part, "rw")) {
+            FileChannel ch = raf.getChannel();
+            if (have > 0) journal.segments.get(0).adopt(ch);
+            else journal.verify(ch);
+            journal.checkpoint(ch, journalFile);
+            if (raf.length() != total) raf.setLength(total);
+        }
+        return journal;
+    }
+
+    private String segmented(String url, DownloadJournal journal, File part, File journalFile, Transfer transfer,
+                             GrowingFiles.Entry entry) throws Exception {
+        long total = journal.total;
+        String validator = journal.validator;
+        Exception failure = null;
+        String sha = null;
+        try (RandomAccessFile raf = new RandomAccessFile(part, "rw")) {
+            FileChannel ch = raf.getChannel();
+            IncrementalHasher hasher = new IncrementalHasher(ch);
+            for (DownloadJournal.Segment s : journal.segments) hasher.markWritten(s.start, s.start + s.done);
+            if (entry != null) for (DownloadJournal.Segment s : journal.segments) entry.segment(s.start, s.end, s.start + s.done);
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (DownloadJournal.Segment s : journal.segments) {
+                if (s.remaining() <= 0) continue;
+                futures.add(segmentPool.submit(() -> { fetchSegment(url, validator, ch, hasher, s, journal, journalFile, transfer, entry); return null; }));
+            }
+            for (Future<?> f : futures) {
+                try { f.get(); }
+                catch (java.util.concurrent.ExecutionException e) {
+                    if (failure == null || e.getCause() instanceof SourceChangedException) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+            journal.checkpoint(ch, journalFile);
+            if (failure == null) sha = hasher.finish(total);
+        }
+        if (failure instanceof SourceChangedException) {
+            // Never splice two versions: start over from the new one on the next attempt
+            part.delete();
+            journalFile.delete();
+        }
+        if (failure != null) throw failure;
+        return sha;
+    }
+
+    private void fetchSegment(String url, String validator, FileChannel ch, IncrementalHasher hasher, DownloadJournal.Segment s,
+                              DownloadJournal journal, File journalFile, Transfer transfer, GrowingFiles.Entry entry) throws Exception {
+        for (int attempt = 0; attempt < maxRetries && s.remaining() > 0; attempt++) {
+            long from = s.start + s.done;
+            Request.Builder req = new Request.Builder().url(url).header("Range", "bytes=" + from + "-" + (s.end - 1));
+            if (!validator.isEmpty()) req.header("If-Range", validator);
+            try (Response r = net.downloads.newCall(req.build()).execute()) {
+                if (r.code() == 200 && !validator.isEmpty()) throw new SourceChangedException("Source changed under " + url);
+                if (r.code() != 206) throw new RuntimeException("Range not honoured: HTTP " + r.code());
+                long sinceCheckpoint = 0;
+                try (InputStream in = r.body().byteStream()) {
+                    byte[] buf = new byte[BUFFER_SIZE];
+                    int n;
+                    while (s.remaining() > 0 && (n = in.read(buf, 0, (int) Math.min(buf.length, s.remaining()))) != -1) {
+                        ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+                        long pos = s.start + s.done;
+                        while (bb.hasRemaining()) pos += ch.write(bb, pos);
+                        hasher.onWritten(s.start + s.done, buf, 0, n);
+                        s.written(buf, 0, n);
+                        if (entry != null) entry.advance(s.start, s.start + s.done);
+                        received(n, transfer);
+                        sinceCheckpoint += n;
+                        if (sinceCheckpoint >= CHECKPOINT_BYTES) {
+                            sinceCheckpoint = 0;
+                            journal.checkpoint(ch, journalFile);
+                        }
+                    }
+                }
+                if (s.remaining() == 0) return;
+            } catch (SourceChangedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (attempt == maxRetries - 1) throw e;
+            }
+            Thread.sleep(retryBaseMs * (attempt + 1));
+        }
+        if (s.remaining() > 0) throw new RuntimeException("Segment incomplete at " + (s.start + s.done));
+    }
+
+    private List<DownloadJournal.Segment> newPlan(long have, long total) {
+        List<DownloadJournal.Segment> plan = new ArrayList<>();
+        if (have > 0) plan.add(new DownloadJournal.Segment(0, have));
+        long rest = total - have;
+        int n = (int) Math.max(1, Math.min(segmentsPerFile, rest / Math.max(1, minSegmentBytes)));
+        long size = (rest + n - 1) / n;
+        for (long at = have; at < total; at += size) plan.add(new DownloadJournal.Segment(at, Math.min(total, at + size)));
+        return plan;
+    }
+
+    /** A ".part" left by a version before the journal (named after the URL), or null. */
+    private static File legacyPart(File dir, String name) {
+        File legacy = new File(dir, name + ".part");
+        return legacy.isFile() && !new File(dir, name + ".part.journal").exists() ? legacy : null;
+    }
+
+    // ===== SINGLE STREAM (no range support or unknown size: nothing to resume against) =====
+
+    private String singleStream(String url, File part, String name, Transfer transfer) throws Exception {
+        for (int attempt = 0; attempt < maxRetries; attempt++) {
+            try (Response r = net.downloads.newCall(new Request.Builder().url(url).build()).execute()) {
+                if (r.code() == 200) {
+                    try (InputStream in = r.body().byteStream(); RandomAccessFile raf = new RandomAccessFile(part, "rw")) {
+                        raf.setLength(0);
+                        IncrementalHasher hasher = new IncrementalHasher(raf.getChannel());
+                        byte[] buf = new byte[BUFFER_SIZE]; int n;
+                        long pos = 0;
+                        while ((n = in.read(buf)) != -1) {
+                            raf.write(buf, 0, n);
+                            hasher.onWritten(pos, buf, 0, n);
+                            pos += n;
+                            received(n, transfer);
+                        }
+                        raf.getFD().sync();
+                        return hasher.finish(pos);
+                    }
+                }
+            } catch (IOException e) {
+                if (attempt == maxRetries - 1) throw e;
+            }
+            Thread.sleep(retryBaseMs * (attempt + 1));
+        }
+        throw new RuntimeException("Download failed: " + name);
+    }
+
+    // One file's download: its pacing class and what it received (the totals are shared by parallel files)
+    private static final class Transfer {
+        final boolean priority;
+        final AtomicLong bytes = new AtomicLong();
+
+        Transfer(boolean priority) { this.priority = priority; }
+    }
+
+    private void received(int n, Transfer transfer) throws InterruptedException {
+        totalBytes.addAndGet(n);
+        transfer.bytes.addAndGet(n);
+        pace(n, transfer.priority);
+    }
+
+    // Reading slower than the link lets TCP push back on the sender; the disk writes slow down with it
+    private void pace(int bytes, boolean priority) throws InterruptedException {
+        if (throttle != null) throttle.acquire(bytes, priority);
+    }
+
+    // ===== HTTP =====
+
+    private static Request rangeRequest(String url, String range) {
+        return new Request.Builder().url(url).header("Range", range).build();
+    }
+
+    // If-Range takes a strong ETag or a date; a weak ETag cannot vouch for a byte range
+    static String validatorOf(Response r) {
+        String etag = r.header("ETag");
+        if (etag != null && !etag.startsWith("W/")) return etag;
+        String lastModified = r.header("Last-Modified");
+        return lastModified != null ? lastModified : "";
+    }
+
+    static String contentDispositionName(String cd, String fallback) {
+        String fn = cd != null && cd.contains("filename=") ? cd.substring(cd.indexOf("filename=") + 9).replace("\"", "").trim() : fallback;
+        return fn.isEmpty() ? fallback : fn;
+    }
+
+    static long totalFromContentRange(String cr) {
+        // "bytes 0-0/12345"
+        if (cr == null) return -1;
+        int slash = cr.lastIndexOf('/');
+        if (slash < 0) return -1;
+        try { return Long.parseLong(cr.substring(slash + 1).trim()); } catch (NumberFormatException e) { return -1; }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.videoplayer;
+
+import android.app.ActivityManager;
+import android.content.Context;
+
+import androidx.annotation.OptIn;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.exoplayer.DefaultLoadControl;
+import androidx.media3.exoplayer.DefaultRenderersFactory;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.mediacodec.MediaCodecInfo;
+import androidx.media3.exoplayer.mediacodec.MediaCodecSelector;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
+import androidx.media3.exoplayer.upstream.DefaultAllocator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the decks' players from a {@link PlayerProfile} instead of ExoPlayer's streaming defaults.
+ * Hardware decoders are preferred (software ones remain as fallback), and each deck keeps its player
+ * for its whole life. The players run in foreground mode: a deck stops its player between items, and
+ * without it that stop resets the renderers and releases the codec, so every item would initialise a
+ * decoder again. With it the codec is kept and reused (or reconfigured) whenever the next item's format
+ * allows it; QoE's decoder_init histogram then only counts the items that really needed a new decoder.
+ * Each deck holds one decoder while idle, which both already do while the standby one prepares.
+ */
+@OptIn(markerClass = UnstableApi.class)
+final class SignagePlayerFactory {
+
+    private SignagePlayerFactory() {}
+
+    static PlayerProfile profileFor(Context context, long contentBitrateBps, int decks) {
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo mem = new ActivityManager.MemoryInfo();
+        boolean lowRam = false;
+        if (am != null) {
+            am.getMemoryInfo(mem);
+            lowRam = am.isLowRamDevice();
+        }
+        return PlayerProfile.select(mem.totalMem, lowRam, Runtime.getRuntime().maxMemory(), contentBitrateBps, decks);
+    }
+
+    /** dataSources reads the items (e.g. a {@link GrowingFileDataSource.Factory} for progressive items). */
+    static ExoPlayer build(Context context, PlayerProfile profile, DataSource.Factory dataSources) {
+        DefaultLoadControl loadControl = new DefaultLoadControl.Builder()
+                // Trimmed on every reset: a deck gives its segments back between items
+                .setAllocator(new DefaultAllocator(true, PlayerProfile.SEGMENT_BYTES))
+                .setBufferDurationsMs(profile.minBufferMs, profile.maxBufferMs, profile.playbackStartMs, profile.rebufferMs)
+                .setTargetBufferBytes(profile.targetBufferBytes)
+                .setPrioritizeTimeOverSizeThresholds(false) // the byte target is the hard limit
+                .setBackBuffer(0, false)
+                .build();
+        DefaultRenderersFactory renderers = new DefaultRenderersFactory(context)
+                .setExtensionRendererMode(DefaultRenderersFactory.EXTENSION_RENDERER_MODE_OFF)
+                .setMediaCodecSelector(HARDWARE_FIRST)
+                .setEnableDecoderFallback(true);
+        ExoPlayer player = new ExoPlayer.Builder(context, renderers)
+                .setLoadControl(loadControl)
+                .setMediaSourceFactory(new DefaultMediaSourceFactory(dataSources))
+                .setHandleAudioBecomingNoisy(false)
+                .build();
+        player.setForegroundMode(true); // keeps the codecs across PlayerDeck.unload()'s stop()
+        return player;
+    }
+
+    // The platform lists software decoders before hardware ones on some boxes; keep the order otherwise
+    private static final MediaCodecSelector HARDWARE_FIRST = (mimeType, secure, tunneling) -> {
+        List<MediaCodecInfo> all = MediaCodecSelector.DEFAULT.getDecoderInfos(mimeType, secure, tunneling);
+        List<MediaCodecInfo> sorted = new ArrayList<>(all.size());
+        for (MediaCodecInfo info : all) if (info.hardwareAccelerated) sorted.add(info);
+        for (MediaCodecInfo info : all) if (!info.hardwareAccelerated) sorted.add(info);
+        return sorted;
+    };
+}
@@ -0,0 +1,101 @@
+package com.example.videoplayer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Startup timeline of this process: named marks and spans on a monotonic clock.
+ * On the device the clock is SystemClock.elapsedRealtime(), so every timestamp is "ms since boot"
+ * and the first_frame mark is the boot-to-first-frame latency directly.
+ * Each name is recorded once (first occurrence wins), so callers on repeated paths need no guards.
+ */
+final class StartupTrace {
+
+    interface Clock {
+        long elapsedMs();
+    }
+
+    private static StartupTrace process;
+
+    private final Clock clock;
+    private final Map<String, Long> marks = new LinkedHashMap<>();
+    private final Map<String, long[]> spans = new LinkedHashMap<>(); // name -> {start, end or -1}
+
+    StartupTrace(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** The trace shared by the boot receiver and the activity of this process. */
+    static synchronized StartupTrace process(Clock clock) {
+        if (process == null) process = new StartupTrace(clock);
+        return process;
+    }
+
+    synchronized void mark(String name) {
+        markAt(name, clock.elapsedMs());
+    }
+
+    synchronized void markAt(String name, long elapsedMs) {
+        if (!marks.containsKey(name)) marks.put(name, elapsedMs);
+    }
+
+    synchronized void begin(String span) {
+        if (!spans.containsKey(span)) spans.put(span, new long[]{clock.elapsedMs(), -1});
+    }
+
+    synchronized void end(String span) {
+        long[] s = spans.get(span);
+        if (s != null && s[1] < 0) s[1] = clock.elapsedMs();
+    }
+
+    synchronized boolean has(String mark) {
+        return marks.containsKey(mark);
+    }
+
+    /** {"marks":{name:ms,...},"spans":{name:{"start":ms,"ms":duration},...}}; open spans have no "ms". */
+    synchronized String toJson() {
+        StringBuilder sb = new StringBuilder(256).append("{\"marks\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> e : marks.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append('"').append(e.getKey()).append("\":").append(e.getValue());
+        }
+        sb.append("},\"spans\":{");
+        first = true;
+        for (Map.Entry<String, long[]> e : spans.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            long[] s = e.getValue();
+            sb.append('"').append(e.getKey()).append("\":{\"start\":").append(s[0]);
+            if (s[1] >= 0) sb.append(",\"ms\":").append(s[1] - s[0]);
+            sb.append('}');
+        }
+        return sb.append("}}").toString();
+    }
+
+    /** Writes the trace as dir/boot-<bootId>.json and keeps only the newest `keep` boots. */
+    void save(File dir, String bootId, int keep) {
+        if (!dir.exists() && !dir.mkdirs()) return;
+        File out = new File(dir, "boot-" + bootId + ".json");
+        File tmp = new File(dir, out.getName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            fos.write(toJson().getBytes(StandardCharsets.UTF_8));
+            fos.getFD().sync();
+        } catch (Exception e) {
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(out)) { tmp.delete(); return; }
+
+        File[] all = dir.listFiles((d, n) -> n.startsWith("boot-") && n.endsWith(".json"));
+        if (all == null || all.length <= keep) return;
+        Arrays.sort(all, (a, b) -> a.lastModified() != b.lastModified()
+                ? Long.compare(a.lastModified(), b.lastModified()) : a.getName().compareTo(b.getName()));
+        for (int i = 0; i < all.length - keep; i++) all[i].delete();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.videoplayer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Disk budget of the video directory.
+ * Unassigned videos are not deleted but retained under ".retained/sha256.mp4", so a re-assignment is a
+ * local rename instead of a download; the retained set is evicted oldest-first, and only when a download
+ * would not fit otherwise. Before a sync downloads anything, {@link #preflight} checks each item against the
+ * quota and the free space (keeping a reserve for the system) and defers what cannot fit.
+ */
+final class StorageManager {
+
+    interface FreeSpace {
+        long usableBytes(File dir);
+    }
+
+    interface Clock {
+        long nowMs();
+    }
+
+    static final String RETAINED_DIR = ".retained";
+
+    static final class Preflight {
+        final List<PlaylistManifest.Item> fits = new ArrayList<>();
+        final List<PlaylistManifest.Item> deferred = new ArrayList<>();
+        long neededBytes;   // still to be written for the items that fit
+        int evicted;
+        long evictedBytes;
+
+        boolean ok() { return deferred.isEmpty(); }
+    }
+
+    private final File videoDir;
+    private final File retainedDir;
+    private final long quotaBytes;   // videos + retained; 0 = no quota
+    private final long reserveBytes; // free space never handed to downloads
+    private final FreeSpace freeSpace;
+    private final Clock clock;
+
+    StorageManager(File videoDir, long quotaBytes, long reserveBytes, FreeSpace freeSpace, Clock clock) {
+        this.videoDir = videoDir;
+        this.retainedDir = new File(videoDir, RETAINED_DIR);
+        this.quotaBytes = Math.max(0, quotaBytes);
+        this.reserveBytes = Math.max(0, reserveBytes);
+        this.freeSpace = freeSpace;
+        this.clock = clock;
+    }
+
+    /**
+     * Keeps an unassigned video for a later re-assignment instead of deleting it.
+     * Returns false if it was deleted (unknown content, or it could not be moved).
+     */
+    synchronized boolean retain(File f, String sha256) {
+        if (!isSha256(sha256)) { f.delete(); return false; }
+        File dst = retainedFile(sha256);
+        if (dst.isFile()) {
+            f.delete(); // same content is already retained
+        } else {
+            if (!retainedDir.exists()) retainedDir.mkdirs();
+            if (!f.renameTo(dst)) { f.delete(); return false; }
+        }
+        dst.setLastModified(clock.nowMs()); // LRU order: most recently unassigned is evicted last
+        enforceQuota();
+        return dst.isFile();
+    }
+
+    /** Moves retained content with this hash (and size, if known) to target; false if none is retained. */
+    synchronized boolean restore(String sha256, long size, File target) {
+        if (!isSha256(sha256)) return false;
+        File src = retainedFile(sha256);
+        if (!src.isFile() || (size >= 0 && src.length() != size)) return false;
+        if (target.exists()) target.delete();
+        return src.renameTo(target);
+    }
+
+    /**
+     * Splits pending downloads into those that fit (evicting retained videos as needed) and those that
+     * don't. Space already taken by an item's ".part" file counts as written; items of unknown size fit.
+     */
+    synchronized Preflight preflight(List<PlaylistManifest.Item> downloads) {
+        Preflight p = new Preflight();
+        long evictable = retainedBytes();
+        long used = mp4Bytes(videoDir.listFiles()) + partBytes() + evictable;
+        long free = freeSpace.usableBytes(videoDir);
+        for (PlaylistManifest.Item it : downloads) {
+            long need = 0;
+            if (it.size >= 0) {
+                // Parts are named after the final file; older versions named them after the URL
+                File part = new File(videoDir, it.filename + ".part");
+                if (!part.isFile()) part = new File(videoDir, PlaylistManifest.filenameFromUrl(it.url) + ".part");
+                need = Math.max(0, it.size - (part.isFile() ? part.length() : 0));
+            }
+            // Retained videos are only given up for an item that then actually fits
+            if (!fits(used - evictable + need, free + evictable - need)) {
+                p.deferred.add(it);
+                continue;
+            }
+            while (!fits(used + need, free - need)) {
+                long freed = evictOldest();
+                if (freed < 0) break;
+                p.evicted++;
+                p.evictedBytes += freed;
+                evictable -= freed;
+                used -= freed;
+                free += freed;
+            }
+            if (fits(used + need, free - need)) {
+                p.fits.add(it);
+                p.neededBytes += need;
+                used += need;
+                free -= need;
+            } else {
+                p.deferred.add(it);
+            }
+        }
+        return p;
+    }
+
+    synchronized int retainedCount() {
+        return retained().length;
+    }
+
+    synchronized long retainedBytes() {
+        long total = 0;
+        for (File f : retained()) total += f.length();
+        return total;
+    }
+
+    synchronized String describe() {
+        return String.format(Locale.US, "videos=%dMB retained=%d/%dMB quota=%s free=%dMB",
+                mp4Bytes(videoDir.listFiles()) >> 20, retainedCount(), retainedBytes() >> 20,
+                quotaBytes > 0 ? (quotaBytes >> 20) + "MB" : "none", freeSpace.usableBytes(videoDir) >> 20);
+    }
+
+    private boolean fits(long used, long freeAfter) {
+        return (quotaBytes == 0 || used <= quotaBytes) && freeAfter >= reserveBytes;
+    }
+
+    // Retention on its own never pushes the directory over its quota
+    private void enforceQuota() {
+        if (quotaBytes == 0) return;
+        long used = mp4Bytes(videoDir.listFiles()) + partBytes() + retainedBytes();
+        while (used > quotaBytes) {
+            long freed = evictOldest();
+            if (freed < 0) return;
+            used -= freed;
+        }
+    }
+
+    /** Deletes the least recently retained video; returns its size, or -1 if nothing is retained. */
+    private long evictOldest() {
+        File[] all = retained();
+        if (all.length == 0) return -1;
+        Arrays.sort(all, (a, b) -> a.lastModified() != b.lastModified()
+                ? Long.compare(a.lastModified(), b.lastModified()) : a.getName().compareTo(b.getName()));
+        long size = all[0].length();
+        return all[0].delete() ? size : -1;
+    }
+
+    private File[] retained() {
+        File[] all = retainedDir.listFiles((d, n) -> n.endsWith(".mp4"));
+        return all != null ? all : new File[0];
+    }
+
+    private File retainedFile(String sha256) {
+        return new File(retainedDir, sha256.toLowerCase(Locale.US) + ".mp4");
+    }
+
+    private long partBytes() {
+        File[] parts = videoDir.listFiles((d, n) -> n.endsWith(".part"));
+        long total = 0;
+        if (parts != null) for (File f : parts) total += f.length();
+        return total;
+    }
+
+    private static long mp4Bytes(File[] files) {
+        long total = 0;
+        if (files != null) for (File f : files) if (f.isFile() && f.getName().toLowerCase(Locale.US).endsWith(".mp4")) total += f.length();
+        return total;
+    }
+
+    private static boolean isSha256(String s) {
+        if (s == null || s.length() != 64) return false;
+        for (int i = 0; i < s.length(); i++) if (Character.digit(s.charAt(i), 16) < 0) return false;
+        return true;
+    }
+}
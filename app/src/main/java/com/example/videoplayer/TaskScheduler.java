@@ -0,0 +1,140 @@
+package com.example.videoplayer;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded I/O pool shared by all background work of the player.
+ * Work is submitted per task type ("lane"); each lane caps how many of its tasks run at once and
+ * how many may wait. When a lane's queue is full the oldest waiting task is dropped, so periodic
+ * work (heartbeat, temperature) coalesces to the latest instead of piling up behind slow timeouts.
+ */
+final class TaskScheduler {
+
+    static final String DEFAULT_LANE = "default";
+
+    private static final class Lane {
+        final String type;
+        final int maxConcurrent;
+        final int maxPending;
+        final ArrayDeque<Job> pending = new ArrayDeque<>();
+        int running;
+        long submitted, dropped, completed, failed;
+        long totalWaitMs, maxWaitMs, totalRunMs, maxRunMs;
+
+        Lane(String type, int maxConcurrent, int maxPending) {
+            this.type = type; this.maxConcurrent = maxConcurrent; this.maxPending = maxPending;
+        }
+    }
+
+    private static final class Job {
+        final Lane lane;
+        final Runnable task;
+        final long submittedNanos = System.nanoTime();
+
+        Job(Lane lane, Runnable task) { this.lane = lane; this.task = task; }
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private boolean shutdown = false;
+
+    TaskScheduler(int threads) {
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "io-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1); // below the UI and playback threads
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        define(DEFAULT_LANE, threads, 32);
+    }
+
+    /** Declares a task type: at most maxConcurrent running and maxPending waiting (0 = drop while busy). */
+    synchronized TaskScheduler define(String type, int maxConcurrent, int maxPending) {
+        lanes.put(type, new Lane(type, Math.max(1, maxConcurrent), Math.max(0, maxPending)));
+        return this;
+    }
+
+    /** Queues task on its lane; returns false if it was dropped (lane busy and full, or shut down). */
+    synchronized boolean submit(String type, Runnable task) {
+        if (shutdown) return false;
+        Lane lane = lanes.get(type);
+        if (lane == null) lane = lanes.get(DEFAULT_LANE);
+        lane.submitted++;
+        Job job = new Job(lane, task);
+        if (lane.running < lane.maxConcurrent) {
+            dispatch(job);
+            return true;
+        }
+        if (lane.maxPending == 0) { lane.dropped++; return false; }
+        if (lane.pending.size() >= lane.maxPending) { lane.pending.pollFirst(); lane.dropped++; } // stale: newest wins
+        lane.pending.addLast(job);
+        return true;
+    }
+
+    private void dispatch(Job job) {
+        job.lane.running++;
+        pool.execute(() -> run(job));
+    }
+
+    private void run(Job job) {
+        long start = System.nanoTime();
+        boolean ok = true;
+        try { job.task.run(); } catch (Throwable t) { ok = false; }
+        long end = System.nanoTime();
+        synchronized (this) {
+            Lane l = job.lane;
+            long waitMs = (start - job.submittedNanos) / 1_000_000L, runMs = (end - start) / 1_000_000L;
+            l.running--;
+            if (ok) l.completed++; else l.failed++;
+            l.totalWaitMs += waitMs; l.maxWaitMs = Math.max(l.maxWaitMs, waitMs);
+            l.totalRunMs += runMs; l.maxRunMs = Math.max(l.maxRunMs, runMs);
+            Job next = shutdown ? null : l.pending.pollFirst();
+            if (next != null) dispatch(next);
+        }
+    }
+
+    /** Tasks waiting in lanes plus tasks handed to the pool but not yet started. */
+    synchronized int queueDepth() {
+        int d = pool.getQueue().size();
+        for (Lane l : lanes.values()) d += l.pending.size();
+        return d;
+    }
+
+    synchronized int running() {
+        int r = 0;
+        for (Lane l : lanes.values()) r += l.running;
+        return r;
+    }
+
+    /** One line per lane with counts and wait/run latency (avg/max), for logs and the heartbeat. */
+    synchronized String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("queue=").append(queueDepth()).append(" running=").append(running());
+        for (Lane l : lanes.values()) {
+            long done = l.completed + l.failed;
+            if (l.submitted == 0) continue;
+            sb.append(String.format(Locale.US, " | %s sub=%d drop=%d ok=%d fail=%d wait=%d/%dms run=%d/%dms",
+                    l.type, l.submitted, l.dropped, l.completed, l.failed,
+                    done > 0 ? l.totalWaitMs / done : 0, l.maxWaitMs, done > 0 ? l.totalRunMs / done : 0, l.maxRunMs));
+        }
+        return sb.toString();
+    }
+
+    /** Drops waiting work and interrupts running tasks; further submits are rejected. */
+    void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            for (Lane l : lanes.values()) l.pending.clear();
+        }
+        pool.shutdownNow();
+    }
+}
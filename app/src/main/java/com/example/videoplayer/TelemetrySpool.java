@@ -0,0 +1,222 @@
+package com.example.videoplayer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent spool for device telemetry (heartbeats, temperature, reed events).
+ * Events are appended to a small line-based file and uploaded as one gzip'd JSON batch per flush;
+ * a flush keeps sending batches until the backlog is drained or a request fails, and failures back
+ * off exponentially. Servers without the batch endpoint get the events replayed on the legacy
+ * per-type endpoints, collapsed to one request per type.
+ */
+final class TelemetrySpool {
+
+    interface Transport {
+        /** POSTs a gzip'd {"events":[...]} body; returns the HTTP status. */
+        int sendBatch(byte[] gzippedJson) throws IOException;
+
+        /** Legacy replay of count events of one type; data/ts are from the latest one. Throws to retry later. */
+        void sendLegacy(String type, String data, int count, long lastTs) throws Exception;
+    }
+
+    private static final class Event {
+        final long seq;
+        final String type;
+        final long ts;
+        final String data; // JSON object
+
+        Event(long seq, String type, long ts, String data) { this.seq = seq; this.type = type; this.ts = ts; this.data = data; }
+        String line() { return type + '\t' + ts + '\t' + data; }
+    }
+
+    private static final int BATCH_SIZE = 500;
+    private static final long RETRY_BASE_MS = 5_000L;
+    private static final long RETRY_MAX_MS = 5 * 60_000L;
+    private static final long BATCH_UNSUPPORTED_RECHECK_MS = 60 * 60_000L;
+
+    private final File file;
+    private final int maxEvents;
+    private final ArrayDeque<Event> events = new ArrayDeque<>();
+    // File writes are ordered by fileLock, taken before the monitor and never inside it, so the monitor is
+    // never held across disk I/O and add() does not wait on a rewrite's fsync
+    private final Object fileLock = new Object();
+    private long persistedSeq = -1; // guarded by fileLock: the last rewrite wrote every event up to this seq
+    private long nextSeq = 0;
+    private int failures = 0;
+    private long batchUnsupportedUntil = 0;
+    private long sent = 0, dropped = 0;
+
+    TelemetrySpool(File file, int maxEvents) {
+        this.file = file;
+        this.maxEvents = maxEvents;
+        load();
+    }
+
+    /** Spools one event; appends to the file (or rewrites it on overflow). Call off the UI thread. */
+    void add(String type, String jsonData) {
+        Event e;
+        synchronized (this) {
+            e = new Event(nextSeq++, type, System.currentTimeMillis(), jsonData.replace('\t', ' ').replace('\n', ' '));
+            events.addLast(e);
+            if (events.size() > maxEvents) {
+                // Drop the oldest tenth at once so the file rewrite is amortized
+                for (int i = 0; i < maxEvents / 10 + 1 && !events.isEmpty(); i++) { events.pollFirst(); dropped++; }
+                e = null;
+            }
+        }
+        if (e == null) {
+            rewrite();
+            return;
+        }
+        synchronized (fileLock) {
+            if (e.seq <= persistedSeq) return; // a rewrite since has written it
+            try (Writer w = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+                w.write(e.line());
+                w.write('\n');
+            } catch (IOException ignored) {
+                // Still in memory; the next rewrite persists it
+            }
+        }
+    }
+
+    synchronized int pending() { return events.size(); }
+
+    /** Events of one type not delivered yet. */
+    synchronized int pending(String type) {
+        int n = 0;
+        for (Event e : events) if (e.type.equals(type)) n++;
+        return n;
+    }
+
+    synchronized String describe() {
+        return "pending=" + events.size() + " sent=" + sent + " dropped=" + dropped + " failures=" + failures;
+    }
+
+    /** Delay before the next flush attempt: 0 after success, exponential backoff after failures. */
+    synchronized long retryDelayMs() {
+        return failures == 0 ? 0 : Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(failures - 1, 10));
+    }
+
+    /** Sends batches until the spool is empty (true) or a request fails (false). Call off the UI thread. */
+    boolean flush(Transport t) {
+        while (true) {
+            List<Event> batch = new ArrayList<>();
+            boolean useBatch;
+            synchronized (this) {
+                Iterator<Event> it = events.iterator();
+                while (it.hasNext() && batch.size() < BATCH_SIZE) batch.add(it.next());
+                useBatch = System.currentTimeMillis() >= batchUnsupportedUntil;
+            }
+            if (batch.isEmpty()) return true;
+
+            try {
+                boolean delivered = false;
+                if (useBatch) {
+                    int code = t.sendBatch(gzip(batch));
+                    if (code == 404 || code == 405 || code == 501) {
+                        synchronized (this) { batchUnsupportedUntil = System.currentTimeMillis() + BATCH_UNSUPPORTED_RECHECK_MS; }
+                    } else if (code / 100 == 2) {
+                        delivered = true;
+                    } else {
+                        throw new IOException("HTTP " + code);
+                    }
+                }
+                if (!delivered) sendLegacy(t, batch);
+            } catch (Exception e) {
+                synchronized (this) { failures++; }
+                return false;
+            }
+
+            synchronized (this) {
+                long lastSeq = batch.get(batch.size() - 1).seq;
+                while (!events.isEmpty() && events.peekFirst().seq <= lastSeq) events.pollFirst();
+                sent += batch.size();
+                failures = 0;
+            }
+            rewrite();
+        }
+    }
+
+    private static void sendLegacy(Transport t, List<Event> batch) throws Exception {
+        Map<String, Event> latest = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Event e : batch) {
+            latest.put(e.type, e);
+            Integer c = counts.get(e.type);
+            counts.put(e.type, c == null ? 1 : c + 1);
+        }
+        for (Event e : latest.values()) t.sendLegacy(e.type, e.data, counts.get(e.type), e.ts);
+    }
+
+    static byte[] gzip(List<Event> batch) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (Writer w = new OutputStreamWriter(new GZIPOutputStream(bos), StandardCharsets.UTF_8)) {
+            w.write("{\"events\":[");
+            for (int i = 0; i < batch.size(); i++) {
+                Event e = batch.get(i);
+                if (i > 0) w.write(',');
+                w.write("{\"type\":\"");
+                w.write(e.type);
+                w.write("\",\"ts\":");
+                w.write(Long.toString(e.ts));
+                w.write(",\"data\":");
+                w.write(e.data);
+                w.write('}');
+            }
+            w.write("]}");
+        }
+        return bos.toByteArray();
+    }
+
+    /** Replaces the file with the events in memory (tmp, fsync, rename), without holding the monitor. */
+    private void rewrite() {
+        synchronized (fileLock) {
+            List<String> lines;
+            long through;
+            synchronized (this) {
+                lines = new ArrayList<>(events.size());
+                for (Event e : events) lines.add(e.line());
+                through = nextSeq - 1;
+            }
+            File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp); Writer w = new OutputStreamWriter(fos, StandardCharsets.UTF_8)) {
+                for (String line : lines) { w.write(line); w.write('\n'); }
+                w.flush();
+                fos.getFD().sync();
+            } catch (IOException e) {
+                return;
+            }
+            if (tmp.renameTo(file)) persistedSeq = through;
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] p = line.split("\t", 3);
+                if (p.length != 3) continue; // torn write at power loss
+                try { events.addLast(new Event(nextSeq++, p[0], Long.parseLong(p[1]), p[2])); }
+                catch (NumberFormatException ignored) {}
+            }
+        } catch (IOException ignored) {}
+        while (events.size() > maxEvents) { events.pollFirst(); dropped++; }
+    }
+}
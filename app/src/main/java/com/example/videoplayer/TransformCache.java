@@ -0,0 +1,56 @@
+package com.example.videoplayer;
+
+import android.graphics.Matrix;
+
+/**
+ * Small fixed-size cache of TextureView transform matrices keyed by
+ * (rotation, fit, video size, view size). A playlist only ever uses a handful of combinations, so
+ * after warm-up every lookup is a hit and applying a transform allocates nothing.
+ */
+final class TransformCache {
+
+    private static final int FIELDS = 6;
+
+    private final int[] keys;
+    private final Matrix[] matrices;
+    private final float[] scale = new float[2];
+    private int size = 0;
+    private int nextVictim = 0;
+    private long hits, misses;
+
+    TransformCache(int capacity) {
+        keys = new int[capacity * FIELDS];
+        matrices = new Matrix[capacity];
+    }
+
+    /** The matrix for this combination; the returned instance is shared and must not be modified. */
+    Matrix get(int rotation, int fit, int vw, int vh, int viewW, int viewH) {
+        for (int i = 0; i < size; i++) {
+            int k = i * FIELDS;
+            if (keys[k] == rotation && keys[k + 1] == fit && keys[k + 2] == vw && keys[k + 3] == vh
+                    && keys[k + 4] == viewW && keys[k + 5] == viewH) {
+                hits++;
+                return matrices[i];
+            }
+        }
+        misses++;
+        int slot;
+        if (size < matrices.length) slot = size++;
+        else { slot = nextVictim; nextVictim = (nextVictim + 1) % matrices.length; }
+
+        Matrix m = matrices[slot];
+        if (m == null) m = matrices[slot] = new Matrix();
+        VideoTransform.scale(rotation, fit, vw, vh, viewW, viewH, scale);
+        float cx = viewW / 2f, cy = viewH / 2f;
+        m.setScale(scale[0], scale[1], cx, cy);
+        m.postRotate(rotation, cx, cy);
+
+        int k = slot * FIELDS;
+        keys[k] = rotation; keys[k + 1] = fit; keys[k + 2] = vw; keys[k + 3] = vh; keys[k + 4] = viewW; keys[k + 5] = viewH;
+        return m;
+    }
+
+    long hits() { return hits; }
+
+    long misses() { return misses; }
+}
@@ -0,0 +1,255 @@
+package com.example.videoplayer;
+
+import java.util.Locale;
+
+/**
+ * Gapless playlist playback on two decks (player + surface pairs).
+ * While the active deck plays item i, the standby deck prepares item i+1 hidden, with its transform
+ * already applied, and renders its first frame. At the boundary the standby deck is shown before the
+ * active one is hidden, so there is never a frame without video: if the next item isn't ready yet
+ * the active deck keeps its last frame on screen until it is ("late" transition).
+ *
+ * Playlist changes are applied live ({@link #updatePlaylist}): the item on screen is never interrupted.
+ *
+ * Runs on one thread (the UI thread); {@link #tick()} drives it and returns when to tick again.
+ */
+final class TransitionEngine {
+
+    interface Clock {
+        long nowMs();
+    }
+
+    /** One player bound to one surface. */
+    interface Deck {
+        /** Prepares item index paused at its start and applies its transform; the deck stays hidden. */
+        void load(int index);
+        /** Releases the loaded item (keeps the player). */
+        void unload();
+        /** The loaded item is now at this index of a changed playlist, or -1 if it was removed (it keeps playing). */
+        void reindex(int index);
+        /** The loaded item's first frame is on the deck's surface. */
+        boolean hasFrame();
+        boolean failed();
+        boolean ended();
+        long positionMs();
+        /** Duration of the loaded item, or a negative value while unknown. */
+        long durationMs();
+        void play();
+        void pause();
+        void setVisible(boolean visible);
+    }
+
+    interface Listener {
+        void onItemShown(int index);
+        void onItemFailed(int index);
+    }
+
+    static final long IDLE = -1;
+
+    /** Ticks this far ahead of a boundary switch from coarse polling to every frame. */
+    private static final long FRAME_POLL_WINDOW_MS = 500;
+    private static final long COARSE_POLL_MS = 250;
+
+    private final Clock clock;
+    private final long frameMs;
+    private final Listener listener;
+
+    private Deck active, standby;
+    private int count = 0;
+    private int activeIndex = -1, standbyIndex = -1;
+    private boolean shown = false;      // active deck is visible with a frame
+    private boolean activeDetached;     // active item was removed from the playlist; activeIndex is the slot before its successor
+    private boolean playing = true;
+    private boolean skipRequested = false;
+    private long boundaryAtMs = -1;     // expected boundary time of the active item, once detected
+    private boolean boundaryMissed = false;
+
+    private long transitions, lateTransitions, failures, maxBoundaryErrorMs, totalBoundaryErrorMs;
+    private long lastGapMs;
+
+    TransitionEngine(Deck a, Deck b, Clock clock, long frameMs, Listener listener) {
+        this.active = a;
+        this.standby = b;
+        this.clock = clock;
+        this.frameMs = frameMs;
+        this.listener = listener;
+    }
+
+    /** Starts playing items 0..count-1 (looping) from startIndex. */
+    void setPlaylist(int count, int startIndex) {
+        stop();
+        if (count <= 0) return;
+        this.count = count;
+        activeIndex = Math.max(0, Math.min(startIndex, count - 1));
+        active.load(activeIndex);
+    }
+
+    void stop() {
+        active.pause(); active.unload();
+        standby.pause(); standby.unload();
+        count = 0;
+        activeIndex = standbyIndex = -1;
+        shown = false;
+        skipRequested = false;
+        boundaryAtMs = -1;
+        boundaryMissed = false;
+        lastGapMs = 0;
+        activeDetached = false;
+    }
+
+    /**
+     * Switches to a changed playlist without interrupting the item on screen. Loaded items are renumbered;
+     * the standby deck is reloaded only if the item after the current one changed. A removed current item
+     * plays to its end and is followed by the item that followed it before.
+     */
+    void updatePlaylist(PlaylistDiff diff) {
+        if (count == 0 || activeIndex < 0) { setPlaylist(diff.newSize, 0); return; }
+        if (diff.newSize == 0) { stop(); return; }
+
+        int oldActive = activeIndex;
+        int a = !activeDetached && oldActive < diff.oldToNew.length ? diff.oldToNew[oldActive] : -1;
+        count = diff.newSize;
+        if (a >= 0) {
+            activeIndex = a;
+            active.reindex(a);
+        } else {
+            int next = Math.max(0, diff.successorOf(oldActive));
+            if (!shown) {
+                // Nothing on screen yet: start with the successor right away
+                active.unload();
+                activeIndex = next;
+                activeDetached = false;
+                active.load(next);
+            } else {
+                activeIndex = (next - 1 + count) % count;
+                activeDetached = true;
+                active.reindex(-1);
+            }
+        }
+
+        if (standbyIndex >= 0) {
+            int want = (activeIndex + 1) % count;
+            int s = standbyIndex < diff.oldToNew.length ? diff.oldToNew[standbyIndex] : -1;
+            if (s == want) {
+                standbyIndex = want;
+                standby.reindex(want);
+            } else {
+                standby.unload(); // the next tick loads the right one
+                standbyIndex = -1;
+            }
+        }
+    }
+
+    void play() {
+        playing = true;
+        if (shown) active.play();
+    }
+
+    void pause() {
+        playing = false;
+        if (shown) active.pause();
+    }
+
+    /** Moves to the next item at the next tick (as soon as it has a frame). */
+    void next() {
+        if (count > 0) skipRequested = true;
+    }
+
+    /** Index of the item on screen, -1 if none or if it was removed from the playlist. */
+    int currentIndex() { return activeDetached ? -1 : activeIndex; }
+
+    int itemCount() { return count; }
+
+    /** Advances the state machine; returns ms until the next tick is useful (0 = next frame, IDLE = none). */
+    long tick() {
+        if (count == 0) return IDLE;
+        long now = clock.nowMs();
+
+        if (!shown) {
+            if (active.failed()) return skipFailedActive();
+            if (!active.hasFrame()) return 0;
+            active.setVisible(true);
+            if (playing) active.play();
+            shown = true;
+            listener.onItemShown(activeIndex);
+        }
+
+        if (standbyIndex < 0) {
+            standbyIndex = (activeIndex + 1) % count;
+            standby.load(standbyIndex); // well ahead of the boundary: the whole item's duration
+        }
+        if (standby.failed()) {
+            failures++;
+            listener.onItemFailed(standbyIndex);
+            standbyIndex = (standbyIndex + 1) % count;
+            standby.unload();
+            standby.load(standbyIndex);
+            return COARSE_POLL_MS; // don't spin when every item fails
+        }
+
+        long duration = active.durationMs();
+        long remaining = duration >= 0 ? duration - active.positionMs() : Long.MAX_VALUE;
+        boolean atBoundary = skipRequested || active.failed() || active.ended() || remaining <= frameMs / 2;
+        if (!atBoundary) {
+            if (!playing) return IDLE;
+            return remaining - frameMs <= FRAME_POLL_WINDOW_MS ? 0 : Math.min(COARSE_POLL_MS, remaining - FRAME_POLL_WINDOW_MS);
+        }
+
+        if (boundaryAtMs < 0) boundaryAtMs = skipRequested || remaining == Long.MAX_VALUE ? now : now + Math.max(0, remaining);
+        if (!standby.hasFrame()) {
+            if (!boundaryMissed) { boundaryMissed = true; lateTransitions++; }
+            return 0; // the active deck holds its last frame meanwhile
+        }
+        swap(now);
+        return 0;
+    }
+
+    private void swap(long now) {
+        // Show the new deck before hiding the old one: the surface underneath is never empty
+        standby.setVisible(true);
+        if (playing) standby.play();
+        active.setVisible(false);
+        active.pause();
+        active.unload();
+
+        long error = Math.abs(now - boundaryAtMs);
+        lastGapMs = Math.max(0, now - boundaryAtMs);
+        transitions++;
+        totalBoundaryErrorMs += error;
+        maxBoundaryErrorMs = Math.max(maxBoundaryErrorMs, error);
+
+        Deck d = active; active = standby; standby = d;
+        activeIndex = standbyIndex;
+        activeDetached = false;
+        standbyIndex = -1;
+        skipRequested = false;
+        boundaryAtMs = -1;
+        boundaryMissed = false;
+        listener.onItemShown(activeIndex);
+    }
+
+    private long skipFailedActive() {
+        failures++;
+        listener.onItemFailed(activeDetached ? -1 : activeIndex);
+        active.unload();
+        activeIndex = (activeIndex + 1) % count;
+        activeDetached = false;
+        active.load(activeIndex);
+        return COARSE_POLL_MS;
+    }
+
+    /** Transition counters: late ones are those where the next item was not ready at the boundary. */
+    String describe() {
+        return String.format(Locale.US, "transitions=%d late=%d failed=%d boundaryError avg=%dms max=%dms",
+                transitions, lateTransitions, failures, transitions > 0 ? totalBoundaryErrorMs / transitions : 0, maxBoundaryErrorMs);
+    }
+
+    long transitions() { return transitions; }
+
+    long lateTransitions() { return lateTransitions; }
+
+    long maxBoundaryErrorMs() { return maxBoundaryErrorMs; }
+
+    /** How long the previous item's last frame was held past its end before the current item was shown. */
+    long lastTransitionGapMs() { return lastGapMs; }
+}
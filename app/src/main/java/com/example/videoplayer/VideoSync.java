@@ -0,0 +1,234 @@
+package com.example.videoplayer;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The sync path: download_status tells whether the device still lacks its assignment; a sync then
+ * fetches the manifest, restores retained content, links renamed assets by hash, repairs damaged ones,
+ * retains the unassigned, and downloads (and validates) the rest; download_update acknowledges it.
+ * Android-free so the whole path runs against a local server stand-in; the activity supplies logging,
+ * notices and the manifest hook through a {@link Listener}.
+ */
+final class VideoSync {
+
+    interface Listener {
+        /** The fetched manifest, before anything on disk changes (rotation/fit metadata). */
+        void onManifest(PlaylistManifest manifest);
+
+        /** Brackets the downloads of a sync. */
+        void onDownloading(boolean active);
+
+        void log(String message);
+
+        void warn(String message);
+
+        /** Short user-visible notice (a toast in the activity). */
+        void notice(String message);
+    }
+
+    /** What one sync did. */
+    static final class Result {
+        int restored, linked, repaired, retained, deleted, downloaded, failed, quarantined, deferred;
+        long bytes;
+
+        /** Whether the files on disk changed (the playlist needs a refresh). */
+        boolean changed() {
+            return restored > 0 || linked > 0 || repaired > 0 || retained > 0 || deleted > 0 || downloaded > 0;
+        }
+
+        /** Whether everything assigned is on disk now. */
+        boolean complete() {
+            return failed == 0 && quarantined == 0 && deferred == 0;
+        }
+
+        /** For the sync poll: an incomplete sync failed (back off), one that changed nothing leaves it stretching. */
+        PollPolicy.Outcome outcome() {
+            if (!complete()) return PollPolicy.Outcome.FAILED;
+            return changed() ? PollPolicy.Outcome.CHANGED : PollPolicy.Outcome.UNCHANGED;
+        }
+
+        String describe() {
+            return "restored " + restored + ", linked " + linked + ", repaired " + repaired + ", retained " + retained
+                    + ", deleted " + deleted + ", downloaded " + downloaded + " (" + bytes + " B), failed " + failed + ", quarantined " + quarantined
+                    + ", deferred " + deferred;
+        }
+    }
+
+    private final NetClient net;
+    private final ManifestRepository manifests;
+    private final ContentStore contentStore;
+    private final StorageManager storage;
+    private final SegmentedDownloader downloader;
+    private final Mp4Validator validator;
+    private final BandwidthThrottle throttle; // null = unthrottled, only used for logging
+    private final Listener listener;
+
+    VideoSync(NetClient net, ManifestRepository manifests, ContentStore contentStore, StorageManager storage,
+              SegmentedDownloader downloader, Mp4Validator validator, BandwidthThrottle throttle, Listener listener) {
+        this.net = net;
+        this.manifests = manifests;
+        this.contentStore = contentStore;
+        this.storage = storage;
+        this.downloader = downloader;
+        this.validator = validator;
+        this.throttle = throttle;
+        this.listener = listener;
+    }
+
+    /** Whether the server reports the device's assignment as already downloaded. */
+    boolean assignmentDownloaded(String statusUrl) throws Exception {
+        String body = net.getString(statusUrl);
+        if (body == null) return false;
+        JSONObject o = new JSONObject(body);
+        return o.optBoolean("download_status", false) || o.optBoolean("status", false);
+    }
+
+    /** Marks the assignment as downloaded; throws unless the server accepted it. */
+    void acknowledge(String updateUrl) throws Exception {
+        int code = net.postJson(updateUrl, "{\"status\": true}");
+        if (code / 100 != 2) throw new IOException("download_update: HTTP " + code);
+    }
+
+    /**
+     * A sync if download_status asks for one (null if it did not). Only a complete sync is acknowledged:
+     * anything failed or deferred keeps the status pending, so the next check syncs again.
+     */
+    Result checkAndSync(String statusUrl, String downloadsUrl, String updateUrl, File dir) throws Exception {
+        if (assignmentDownloaded(statusUrl)) return null;
+        Result r = sync(downloadsUrl, dir);
+        if (r.complete()) acknowledge(updateUrl);
+        return r;
+    }
+
+    // Smart sync: only download new videos, retain unassigned ones
+    Result sync(String downloadsUrl, File dir) throws Exception {
+        Result result = new Result();
+        // One conditional fetch serves both the download list and the rotation metadata
+        PlaylistManifest manifest = manifests.fetch(downloadsUrl);
+        listener.onManifest(manifest);
+
+        if (manifest.isEmpty()) {
+            listener.log("No videos assigned to this device");
+            return result;
+        }
+
+        // Re-assigned content still in retention comes back by rename, before anything is planned
+        for (PlaylistManifest.Item it : manifest.items) {
+            File target = new File(dir, it.filename);
+            if (it.sha256.isEmpty() || target.exists()) continue;
+            if (storage.restore(it.sha256, it.size, target)) {
+                contentStore.put(target, it.sha256);
+                result.restored++;
+                listener.log("Restored from retention: " + it.filename + " (no download)");
+            }
+        }
+
+        // Get current local files
+        File[] localFiles = dir.listFiles((d, n) -> n.toLowerCase().endsWith(".mp4"));
+        List<SyncPlanner.Local> locals = new ArrayList<>();
+        if (localFiles != null) {
+            for (File f : localFiles) locals.add(new SyncPlanner.Local(f.getName(), f.length()));
+        }
+
+        // Match by name, then by content hash: renamed assets are linked, damaged ones repaired
+        SyncPlanner.Plan plan = SyncPlanner.plan(manifest, locals, n -> contentStore.hashOf(new File(dir, n)));
+
+        for (SyncPlanner.Link l : plan.links) {
+            File from = new File(dir, l.from), to = new File(dir, l.to);
+            try {
+                if (l.move) contentStore.move(from, to, l.sha256);
+                else contentStore.link(from, to, l.sha256);
+                result.linked++;
+                listener.log((l.move ? "Renamed " : "Linked ") + l.from + " -> " + l.to + " (same content, no download)");
+            } catch (Exception e) {
+                listener.warn("Link failed: " + l.from + " -> " + l.to + ": " + e.getMessage());
+            }
+        }
+
+        for (String name : plan.repairs) {
+            File f = new File(dir, name);
+            contentStore.forget(f);
+            if (f.delete()) {
+                result.repaired++;
+                listener.log("Deleted damaged video for re-download: " + name);
+            }
+        }
+
+        // Unassigned videos are retained (evicted only under space pressure), not deleted
+        for (String name : plan.deletes) {
+            File f = new File(dir, name);
+            String sha = contentStore.hashOf(f);
+            contentStore.forget(f);
+            if (storage.retain(f, sha)) {
+                result.retained++;
+                listener.log("Retained: " + name);
+            } else {
+                result.deleted++;
+                listener.log("Deleted: " + name);
+            }
+        }
+
+        // Download new videos directly to main directory
+        StorageManager.Preflight space = storage.preflight(plan.downloads);
+        if (space.evicted > 0) listener.log("Evicted " + space.evicted + " retained video(s), " + (space.evictedBytes >> 20) + " MB, to make room");
+        if (!space.ok()) {
+            result.deferred = space.deferred.size();
+            listener.warn("Not enough space for " + space.deferred.size() + " video(s), deferred: " + storage.describe());
+            listener.notice("Storage full - " + space.deferred.size() + " video(s) deferred");
+        }
+        if (!space.fits.isEmpty()) {
+            listener.notice("Downloading " + space.fits.size() + " new video(s)…");
+            long t0 = System.currentTimeMillis();
+            // Nothing of the assignment is on screen yet: everything is playback-critical
+            boolean nothingPlayable = plan.downloads.size() == manifest.items.size();
+            List<SegmentedDownloader.Result> results;
+            listener.onDownloading(true);
+            try {
+                results = downloader.downloadAll(space.fits, it -> nothingPlayable, dir);
+            } finally {
+                listener.onDownloading(false);
+            }
+            for (SegmentedDownloader.Result r : results) {
+                if (r.ok() && r.file.exists() && r.file.length() > 0) {
+                    result.bytes += r.bytes;
+                    Mp4Validator.Report report = validator.check(r.file);
+                    if (!report.ok()) {
+                        quarantine(r.file, report);
+                        result.quarantined++;
+                        continue;
+                    }
+                    result.downloaded++;
+                    contentStore.put(r.file, r.sha256);
+                    listener.log("Downloaded: " + r.file.getName() + " " + r.bytes + " B in " + r.millis + " ms (" + r.bytesPerSecond() / 1024 + " KB/s), "
+                            + report.describe());
+                } else {
+                    result.failed++;
+                    listener.warn("Download failed: " + r.url + " " + (r.error != null ? r.error.getMessage() : ""));
+                }
+            }
+            long elapsed = Math.max(1, System.currentTimeMillis() - t0);
+            listener.log("Sync downloaded " + result.bytes + " B in " + elapsed + " ms (" + result.bytes * 1000L / elapsed / 1024 + " KB/s aggregate"
+                    + (throttle != null ? ", " + throttle.describe() : "") + ")");
+            listener.notice("Downloaded " + result.downloaded + " video(s)");
+        } else if (!plan.deletes.isEmpty()) {
+            listener.notice("Removed " + plan.deletes.size() + " unassigned video(s)");
+        } else if (!plan.changesPlaylist()) {
+            listener.log("All videos are up to date");
+        }
+        contentStore.save();
+        listener.log("Storage: " + storage.describe());
+        return result;
+    }
+
+    /** Takes an unplayable video out of the directory; the next sync downloads it again. */
+    void quarantine(File f, Mp4Validator.Report report) {
+        contentStore.forget(f);
+        File q = Mp4Validator.quarantine(f);
+        listener.warn("Quarantined " + f.getName() + ": " + report.problem + (q == null ? " (deleted)" : ""));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class BandwidthThrottleTest {
+
+    private static final int CHUNK = 128 * 1024;
+    private static final long KB = 1024;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long DAY = 86_400_000L;
+
+    // Virtual time: sleeping advances the clock
+    private long now = 20_000 * DAY + 12 * 3_600_000L; // noon UTC
+    private long dropped = 0;
+
+    private BandwidthThrottle throttle(long rate, long peakBulk, String windows) {
+        return new BandwidthThrottle(rate, peakBulk, windows, UTC, () -> now, ms -> now += ms, () -> dropped);
+    }
+
+    /** Sends bytes in chunks and returns the virtual time it took. */
+    private long send(BandwidthThrottle t, long bytes, boolean priority) throws InterruptedException {
+        long start = now;
+        for (long sent = 0; sent < bytes; sent += CHUNK) t.acquire(CHUNK, priority);
+        return now - start;
+    }
+
+    @Test
+    public void priorityTransfersAreHeldToTheRate() throws Exception {
+        BandwidthThrottle t = throttle(512 * KB, 64 * KB, "");
+        // 4 MB at 512 KB/s, the first second's worth from the initial burst
+        long took = send(t, 4096 * KB, true);
+        assertEquals(7_000, took, 300);
+    }
+
+    @Test
+    public void bulkUsesThePeakRateOutsideOffPeakWindows() throws Exception {
+        BandwidthThrottle peak = throttle(1024 * KB, 128 * KB, "22:00-07:00");
+        assertEquals(128 * KB, peak.rateFor(false, now));
+        assertEquals(1024 * KB, peak.rateFor(true, now));
+        assertEquals(7_000, send(peak, 1024 * KB, false), 1_100);
+
+        now = 20_000 * DAY + 23 * 3_600_000L; // 23:00, inside the window that wraps midnight
+        assertEquals(1024 * KB, peak.rateFor(false, now));
+        now = 20_001 * DAY + 6 * 3_600_000L;  // 06:00 next day
+        assertEquals(1024 * KB, peak.rateFor(false, now));
+    }
+
+    @Test
+    public void bulkWaitsWhilePriorityIsActive() throws Exception {
+        BandwidthThrottle t = throttle(BandwidthThrottle.UNLIMITED, BandwidthThrottle.UNLIMITED, "");
+        t.acquire(CHUNK, true);
+        long start = now;
+        t.acquire(CHUNK, false);
+        assertEquals(BandwidthThrottle.PRIORITY_IDLE_MS, now - start);
+    }
+
+    @Test
+    public void droppedFramesHalveTheLimitAndQuietIntervalsRestoreIt() throws Exception {
+        BandwidthThrottle t = throttle(BandwidthThrottle.UNLIMITED, BandwidthThrottle.UNLIMITED, "");
+        t.acquire(CHUNK, false); // starts the first interval
+        // ~1 MB/s observed over an interval in which playback dropped frames
+        for (int i = 0; i < 39; i++) { now += 125; t.acquire(CHUNK, false); }
+        dropped = 12;
+        now += 125;
+        t.acquire(CHUNK, false);
+        long limited = t.rateFor(false, now);
+        assertTrue("limit " + limited, limited > 400 * KB && limited < 600 * KB);
+
+        // Quiet intervals with traffic grow it back until it is lifted again
+        for (int i = 0; i < 400 && t.rateFor(false, now) != BandwidthThrottle.UNLIMITED; i++) {
+            now += BandwidthThrottle.ADAPT_INTERVAL_MS;
+            t.acquire(1, false);
+        }
+        assertEquals(BandwidthThrottle.UNLIMITED, t.rateFor(false, now));
+    }
+
+    @Test
+    public void windowsAreValidated() {
+        assertArrayEquals(new int[]{1320, 420, 720, 780}, BandwidthThrottle.parseWindows("22:00-07:00, 12:00-13:00"));
+        assertEquals(0, BandwidthThrottle.parseWindows("").length);
+        try {
+            BandwidthThrottle.parseWindows("25:00-01:00");
+            fail();
+        } catch (IllegalArgumentException expected) {}
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.videoplayer;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the channel against a local HTTP stand-in that streams text/event-stream responses.
+ */
+public class ControlChannelTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private final OkHttpClient client = new OkHttpClient.Builder().readTimeout(5, TimeUnit.SECONDS).build();
+    private final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile boolean emptyStreams; // 200, a retry: 0 hint, then closed without an event
+
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final List<Boolean> liveChanges = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch eventsLatch = new CountDownLatch(3);
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/device/d1/events", ex -> {
+            int n = connections.incrementAndGet();
+            String last = ex.getRequestHeaders().getFirst("Last-Event-ID");
+            lastEventIds.add(last == null ? "" : last);
+            if (status != 200) { ex.sendResponseHeaders(status, -1); ex.close(); return; }
+            ex.getResponseHeaders().add("Content-Type", "text/event-stream");
+            ex.sendResponseHeaders(200, 0);
+            try (OutputStream os = ex.getResponseBody()) {
+                String body = emptyStreams ? "retry: 0\n: keep-alive\n\n" : n == 1
+                        ? "retry: 20\n: keep-alive\n\nid: 1\nevent: rotation\ndata: {\"a.mp4\":90}\n\n"
+                          + "id: 2\nevent: assignments\ndata: line one\ndata: line two\n\n"
+                        : "id: 3\nevent: fit_mode\ndata: contain\n\n";
+                os.write(body.getBytes(StandardCharsets.UTF_8));
+                os.flush();
+            } catch (Exception ignored) {}
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private ControlChannel channel(File state) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/device/d1/events";
+        return new ControlChannel(client, url, state, new ControlChannel.Listener() {
+            @Override public void onEvent(String type, String data) { received.add(type + "=" + data); eventsLatch.countDown(); }
+            @Override public void onLiveChanged(boolean live) { liveChanges.add(live); }
+        });
+    }
+
+    @Test
+    public void deliversEventsAndResumesFromTheLastEventId() throws Exception {
+        File state = new File(tmp.getRoot(), "last_event_id");
+        ControlChannel c = channel(state);
+        c.start();
+        assertTrue(eventsLatch.await(5, TimeUnit.SECONDS));
+        c.stop();
+
+        assertEquals("rotation={\"a.mp4\":90}", received.get(0));
+        assertEquals("assignments=line one\nline two", received.get(1));
+        assertEquals("fit_mode=contain", received.get(2));
+        assertEquals("", lastEventIds.get(0));
+        assertEquals("2", lastEventIds.get(1)); // reconnected after the server's retry hint, resuming
+        assertEquals(Boolean.TRUE, liveChanges.get(0));
+        assertTrue(liveChanges.contains(false));
+
+        // The resume token survives a restart
+        eventsLatch = new CountDownLatch(1);
+        ControlChannel restarted = channel(state);
+        assertEquals("3", restarted.lastEventId());
+        restarted.start();
+        assertTrue(eventsLatch.await(5, TimeUnit.SECONDS));
+        restarted.stop();
+        assertEquals("3", lastEventIds.get(lastEventIds.size() - 1));
+    }
+
+    @Test
+    public void streamsClosingWithoutEventsBackOff() throws Exception {
+        emptyStreams = true;
+        ControlChannel c = channel(null);
+        c.start();
+        Thread.sleep(2_500);
+        c.stop();
+
+        // retry: 0 is floored to 1 s and each empty stream doubles the wait: 0 s, 1 s, then 3 s
+        assertTrue("connections: " + connections.get(), connections.get() <= 2);
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void serverWithoutTheEndpointLeavesPollingInCharge() throws Exception {
+        status = 404;
+        ControlChannel c = channel(null);
+        c.start();
+        Thread.sleep(500);
+        c.stop();
+
+        assertEquals(1, connections.get()); // not asked again for an hour
+        assertFalse(c.isLive());
+        assertTrue(liveChanges.isEmpty());
+        assertTrue(received.isEmpty());
+    }
+}
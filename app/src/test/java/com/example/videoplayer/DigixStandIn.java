@@ -0,0 +1,321 @@
+package com.example.videoplayer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the DIGIX device API used by the sync soak tests: /device/{id}/videos/downloads
+ * (with ETag), /download_status, /download_update, and the video files themselves (with ranges and
+ * optional redirect hops). Latency, bandwidth and faults are scriptable; every request is counted, and
+ * file bytes that were already delivered once are tracked so redundant transfers show up.
+ */
+final class DigixStandIn {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final int CHUNK = 16 * 1024;
+
+    // ===== script =====
+    volatile long latencyMs;           // before every response
+    volatile long bytesPerSecond;      // per response body, 0 = unlimited
+    volatile int redirectHops;         // file urls in the manifest go through this many 302s
+    volatile int dropEveryNthBody;     // every nth file body is cut after half of it, 0 = never
+    volatile int failEveryNthRequest;  // every nth API or file request answers 503, 0 = never
+    volatile boolean rejectUpdates;    // download_update answers 503 (and is not recorded)
+
+    // ===== counters =====
+    final AtomicInteger manifestRequests = new AtomicInteger();
+    final AtomicInteger manifestBodies = new AtomicInteger();      // 200s, i.e. not answered by 304
+    final AtomicInteger redundantManifestBodies = new AtomicInteger(); // 200s for a body the device already had
+    final AtomicInteger statusRequests = new AtomicInteger();
+    final AtomicInteger updateRequests = new AtomicInteger();
+    final AtomicInteger fileRequests = new AtomicInteger();
+    final AtomicInteger redirectRequests = new AtomicInteger();
+    final AtomicInteger redundantFileRequests = new AtomicInteger(); // asked only for bytes delivered before
+    final AtomicInteger failures = new AtomicInteger();              // injected 503s and cut bodies
+    final AtomicLong fileBytes = new AtomicLong();
+
+    private final HttpServer server;
+    private final AtomicInteger bodyCounter = new AtomicInteger();
+    private final AtomicInteger requestCounter = new AtomicInteger();
+    private final Map<String, byte[]> files = new HashMap<>();
+    private final Map<String, TreeMap<Long, Long>> delivered = new HashMap<>(); // name -> start -> end (exclusive)
+    private final List<String> assignment = new ArrayList<>();
+    private String manifestBody = "{\"items\": []}";
+    private String manifestEtag = "\"0\"";
+    private String lastManifestServed;
+    private boolean downloaded;
+
+    DigixStandIn() throws IOException {
+        // Headers and body go out as separate writes: without this, Nagle + delayed ACK add ~40 ms per request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/device/", this::device);
+        server.createContext("/files/", this::file);
+        server.createContext("/hop/", this::hop);
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    String base() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    String downloadsUrl(String id) { return base() + "/device/" + id + "/videos/downloads"; }
+    String statusUrl(String id) { return base() + "/device/" + id + "/download_status"; }
+    String updateUrl(String id) { return base() + "/device/" + id + "/download_update"; }
+
+    /** Makes content downloadable under name (any number of names may share content). */
+    synchronized void put(String name, byte[] content) {
+        files.put(name, content);
+    }
+
+    synchronized byte[] content(String name) {
+        return files.get(name);
+    }
+
+    /** Assigns names (in order) to the device; download_status turns false until it acknowledges. */
+    synchronized void assign(List<String> names) throws Exception {
+        assignment.clear();
+        assignment.addAll(names);
+        JSONArray items = new JSONArray();
+        for (String name : names) {
+            byte[] c = files.get(name);
+            items.put(new JSONObject()
+                    .put("url", fileUrl(name))
+                    .put("filename", name)
+                    .put("sha256", sha256(c))
+                    .put("size", c.length)
+                    .put("rotation", 0)
+                    .put("fit_mode", "cover"));
+        }
+        manifestBody = new JSONObject().put("items", items).toString();
+        manifestEtag = "\"" + sha256(manifestBody.getBytes(StandardCharsets.UTF_8)).substring(0, 16) + "\"";
+        downloaded = false;
+    }
+
+    synchronized List<String> assignment() {
+        return new ArrayList<>(assignment);
+    }
+
+    synchronized boolean acknowledged() {
+        return downloaded;
+    }
+
+    /** Sum of the assigned files' sizes, counting shared content once. */
+    synchronized long assignedBytes() {
+        Map<String, Long> unique = new LinkedHashMap<>();
+        for (String name : assignment) unique.put(sha256(files.get(name)), (long) files.get(name).length);
+        long sum = 0;
+        for (long v : unique.values()) sum += v;
+        return sum;
+    }
+
+    /** Zeroes the counters (not the record of delivered bytes), e.g. between the phases of a scenario. */
+    void resetCounters() {
+        for (AtomicInteger c : new AtomicInteger[] {manifestRequests, manifestBodies, redundantManifestBodies, statusRequests,
+                updateRequests, fileRequests, redirectRequests, redundantFileRequests, failures}) c.set(0);
+        fileBytes.set(0);
+    }
+
+    int totalRequests() {
+        return manifestRequests.get() + statusRequests.get() + updateRequests.get() + fileRequests.get() + redirectRequests.get();
+    }
+
+    private String fileUrl(String name) {
+        int hops = redirectHops;
+        return base() + (hops > 0 ? "/hop/" + hops + "/" : "/files/") + name;
+    }
+
+    // ===== handlers =====
+
+    private void device(HttpExchange ex) throws IOException {
+        try {
+            pause(latencyMs);
+            String path = ex.getRequestURI().getPath();
+            if (path.endsWith("/videos/downloads")) {
+                manifestRequests.incrementAndGet();
+                if (injectFailure(ex)) return;
+                String body, etag;
+                synchronized (this) { body = manifestBody; etag = manifestEtag; }
+                if (etag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                    ex.getResponseHeaders().add("ETag", etag);
+                    ex.sendResponseHeaders(304, -1);
+                    return;
+                }
+                manifestBodies.incrementAndGet();
+                synchronized (this) {
+                    if (body.equals(lastManifestServed)) redundantManifestBodies.incrementAndGet();
+                    lastManifestServed = body;
+                }
+                ex.getResponseHeaders().add("ETag", etag);
+                send(ex, 200, body);
+            } else if (path.endsWith("/download_status")) {
+                statusRequests.incrementAndGet();
+                if (injectFailure(ex)) return;
+                boolean d;
+                synchronized (this) { d = downloaded; }
+                send(ex, 200, "{\"download_status\": " + d + "}");
+            } else if (path.endsWith("/download_update")) {
+                updateRequests.incrementAndGet();
+                try (InputStream in = ex.getRequestBody()) { while (in.read() >= 0) { /* drain */ } }
+                if (injectFailure(ex)) return;
+                if (rejectUpdates) {
+                    failures.incrementAndGet();
+                    send(ex, 503, "");
+                    return;
+                }
+                synchronized (this) { downloaded = true; }
+                send(ex, 200, "{\"ok\": true}");
+            } else {
+                send(ex, 404, "{}");
+            }
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void hop(HttpExchange ex) throws IOException {
+        try {
+            redirectRequests.incrementAndGet();
+            pause(latencyMs);
+            Matcher m = Pattern.compile("/hop/(\\d+)/(.+)").matcher(ex.getRequestURI().getPath());
+            if (!m.matches()) { send(ex, 404, ""); return; }
+            int left = Integer.parseInt(m.group(1)) - 1;
+            ex.getResponseHeaders().add("Location", base() + (left > 0 ? "/hop/" + left + "/" : "/files/") + m.group(2));
+            ex.sendResponseHeaders(302, -1);
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void file(HttpExchange ex) throws IOException {
+        try {
+            fileRequests.incrementAndGet();
+            pause(latencyMs);
+            if (injectFailure(ex)) return;
+            String name = ex.getRequestURI().getPath().substring("/files/".length());
+            byte[] content = content(name);
+            if (content == null) { send(ex, 404, ""); return; }
+            String range = ex.getRequestHeaders().getFirst("Range");
+            Matcher m = range != null ? RANGE.matcher(range) : null;
+            long from = 0, to = content.length - 1;
+            int code = 200;
+            if (m != null && m.matches()) {
+                from = Long.parseLong(m.group(1));
+                if (!m.group(2).isEmpty()) to = Math.min(to, Long.parseLong(m.group(2)));
+                code = 206;
+                ex.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + to + "/" + content.length);
+            }
+            ex.getResponseHeaders().add("Accept-Ranges", "bytes");
+            long len = to - from + 1;
+            if ("HEAD".equals(ex.getRequestMethod())) { ex.sendResponseHeaders(code, -1); return; }
+            if (len > 1 && covered(name, from, to + 1)) redundantFileRequests.incrementAndGet();
+            long cut = len;
+            int every = dropEveryNthBody;
+            if (every > 0 && len > 1 && bodyCounter.incrementAndGet() % every == 0) cut = len / 2;
+            ex.sendResponseHeaders(code, len);
+            OutputStream os = ex.getResponseBody();
+            long sent = 0;
+            try {
+                while (sent < cut) {
+                    int n = (int) Math.min(CHUNK, cut - sent);
+                    os.write(content, (int) (from + sent), n);
+                    sent += n;
+                    fileBytes.addAndGet(n);
+                    long bps = bytesPerSecond;
+                    if (bps > 0) pause(n * 1000L / bps);
+                }
+                os.flush();
+            } catch (IOException ignored) {
+                // the client went away
+            }
+            if (sent > 0) deliver(name, from, from + sent);
+            if (cut < len) failures.incrementAndGet(); // the connection is closed mid-body below
+        } finally {
+            ex.close();
+        }
+    }
+
+    private boolean injectFailure(HttpExchange ex) throws IOException {
+        int every = failEveryNthRequest;
+        if (every <= 0 || requestCounter.incrementAndGet() % every != 0) return false;
+        failures.incrementAndGet();
+        send(ex, 503, "");
+        return true;
+    }
+
+    private synchronized boolean covered(String name, long start, long end) {
+        TreeMap<Long, Long> runs = delivered.get(name);
+        if (runs == null) return false;
+        Map.Entry<Long, Long> e = runs.floorEntry(start);
+        return e != null && e.getValue() >= end;
+    }
+
+    // Merged [start, end) runs of each file's bytes that reached the device
+    private synchronized void deliver(String name, long start, long end) {
+        TreeMap<Long, Long> runs = delivered.computeIfAbsent(name, k -> new TreeMap<>());
+        Map.Entry<Long, Long> e = runs.floorEntry(start);
+        if (e != null && e.getValue() >= start) {
+            start = e.getKey();
+            end = Math.max(end, e.getValue());
+        }
+        for (Map.Entry<Long, Long> next = runs.ceilingEntry(start); next != null && next.getKey() <= end; next = runs.ceilingEntry(start)) {
+            end = Math.max(end, next.getValue());
+            runs.remove(next.getKey());
+        }
+        runs.put(start, end);
+    }
+
+    private static void send(HttpExchange ex, int code, String body) throws IOException {
+        byte[] b = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(code, b.length == 0 ? -1 : b.length);
+        if (b.length > 0) {
+            try (OutputStream os = ex.getResponseBody()) { os.write(b); }
+        }
+    }
+
+    private static void pause(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static String sha256(byte[] b) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte x : MessageDigest.getInstance("SHA-256").digest(b)) sb.append(String.format("%02x", x));
+            return sb.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
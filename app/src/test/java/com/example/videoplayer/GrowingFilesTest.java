@@ -0,0 +1,116 @@
+package com.example.videoplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class GrowingFilesTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private long now = 0;
+    private final GrowingFiles growing = new GrowingFiles(() -> now);
+
+    private GrowingFiles.Entry entry(long length) throws Exception {
+        File part = tmp.newFile("v.mp4.part");
+        try (RandomAccessFile raf = new RandomAccessFile(part, "rw")) { raf.setLength(length); }
+        return growing.begin(new File(tmp.getRoot(), "v.mp4"), part, length);
+    }
+
+    @Test
+    public void readableRangeFollowsCompletedSegments() throws Exception {
+        GrowingFiles.Entry e = entry(300);
+        e.segment(0, 100, 0);
+        e.segment(100, 200, 100);
+        e.segment(200, 300, 200);
+        e.advance(0, 60);
+        assertEquals(60, e.readableFrom(0));
+        assertEquals(100, e.readableFrom(100)); // nothing of the second segment yet
+        e.advance(0, 100);
+        e.advance(100, 200);
+        e.advance(200, 250);
+        assertEquals(250, e.readableFrom(0)); // runs join across finished segments
+        growing.end(e, true);
+        assertEquals(300, e.readableFrom(0));
+        assertNull(growing.get(e.target));
+    }
+
+    @Test
+    public void readerWaitsForBytesAndFailsWithTheDownload() throws Exception {
+        GrowingFiles.Entry e = entry(200);
+        e.segment(0, 200, 0);
+        try (RandomAccessFile raf = new RandomAccessFile(e.part, "rw")) {
+            raf.write(new byte[] {1, 2, 3, 4});
+        }
+        GrowingFiles.Reader reader = new GrowingFiles.Reader(e, 0, 5_000);
+        Thread writer = new Thread(() -> {
+            try { Thread.sleep(50); } catch (InterruptedException ignored) {}
+            e.advance(0, 4);
+        });
+        writer.start();
+        byte[] buf = new byte[10];
+        assertEquals(4, reader.read(buf, 0, buf.length)); // blocked until the segment advanced
+        assertEquals(3, buf[2]);
+        writer.join();
+
+        growing.end(e, false);
+        try {
+            reader.read(buf, 0, buf.length);
+            fail("read after the download failed");
+        } catch (IOException expected) {
+        }
+        reader.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void stalledDownloadTimesOut() throws Exception {
+        GrowingFiles.Entry e = entry(100);
+        e.segment(0, 100, 0);
+        try (GrowingFiles.Reader reader = new GrowingFiles.Reader(e, 0, 50)) {
+            reader.read(new byte[10], 0, 10);
+        }
+    }
+
+    @Test
+    public void admittedOnlyWhenPlaybackCannotCatchUp() throws Exception {
+        // 100 s item of 100 MB: 1 MB per second of playback, 1 KB per ms
+        long length = 100_000_000;
+        GrowingFiles.Entry e = entry(length);
+        e.segment(0, length, 0);
+        now += 10_000;
+        e.advance(0, 20_000_000); // 2 MB/s: twice the playback rate
+        assertFalse(growing.admissible(e, 1_000, 100_000, 30_000)); // only 20 s ahead
+        now += 10_000;
+        e.advance(0, 40_000_000);
+        assertTrue(growing.admissible(e, 1_000, 100_000, 30_000));
+
+        // Same bytes at a rate slower than playback: never admitted
+        GrowingFiles slow = new GrowingFiles(() -> now);
+        GrowingFiles.Entry s = slow.begin(new File(tmp.getRoot(), "s.mp4"), e.part, length);
+        s.segment(0, length, 0);
+        now += 80_000;
+        s.advance(0, 40_000_000); // 0.5 MB/s
+        assertFalse(slow.admissible(s, 1_000, 100_000, 30_000));
+    }
+
+    @Test
+    public void laggingLaterSegmentBlocksAdmission() throws Exception {
+        long length = 100_000_000;
+        GrowingFiles.Entry e = entry(length);
+        e.segment(0, 50_000_000, 0);
+        e.segment(50_000_000, length, 50_000_000);
+        now += 10_000;
+        e.advance(0, 50_000_000);          // first half done at 5 MB/s
+        e.advance(50_000_000, 52_000_000); // second half at 0.2 MB/s: 48 MB left, 100 s until the playhead gets there
+        assertFalse(growing.admissible(e, 1_000, 100_000, 30_000));
+        now += 10_000;
+        e.advance(50_000_000, 75_000_000); // now 1.25 MB/s over 20 s
+        assertTrue(growing.admissible(e, 1_000, 100_000, 30_000));
+    }
+}
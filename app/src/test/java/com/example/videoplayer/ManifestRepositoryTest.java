@@ -0,0 +1,200 @@
+package com.example.videoplayer;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the repository against a local HTTP stand-in that answers conditional requests.
+ */
+public class ManifestRepositoryTest {
+
+    private static final String ETAG = "\"m1\"";
+    private static final String LAST_MODIFIED = "Tue, 01 Sep 2026 10:00:00 GMT";
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private volatile String body = manifest("a.mp4", "b.mp4");
+    private volatile String etag = ETAG;
+    private volatile String lastModified = LAST_MODIFIED;
+    private final AtomicInteger bodies = new AtomicInteger();   // 200s
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private final List<String> ifModifiedSince = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/device/d1/videos/downloads", ex -> {
+            String inm = ex.getRequestHeaders().getFirst("If-None-Match");
+            String ims = ex.getRequestHeaders().getFirst("If-Modified-Since");
+            ifNoneMatch.add(String.valueOf(inm));
+            ifModifiedSince.add(String.valueOf(ims));
+            if (etag != null) ex.getResponseHeaders().add("ETag", etag);
+            if (lastModified != null) ex.getResponseHeaders().add("Last-Modified", lastModified);
+            if ((inm != null && inm.equals(etag)) || (inm == null && ims != null && ims.equals(lastModified))) {
+                ex.sendResponseHeaders(304, -1);
+                ex.close();
+                return;
+            }
+            bodies.incrementAndGet();
+            byte[] b = body.getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("Content-Type", "application/json");
+            ex.sendResponseHeaders(200, b.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(b); }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/device/d1/videos/downloads";
+    }
+
+    private static String manifest(String... names) {
+        StringBuilder sb = new StringBuilder("{\"items\": [");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"url\": \"http://cdn.example/").append(names[i]).append("\", \"filename\": \"").append(names[i])
+                    .append("\", \"rotation\": 90, \"fit_mode\": \"cover\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    @Test
+    public void notModifiedReturnsTheSameInstance() throws Exception {
+        ManifestRepository repo = new ManifestRepository(NetClient.get(), tmp.newFolder());
+        PlaylistManifest first = repo.fetch(url());
+        PlaylistManifest second = repo.fetch(url());
+
+        assertEquals(2, first.items.size());
+        assertSame(first, second);
+        assertEquals(1, bodies.get());
+        assertEquals("null", ifNoneMatch.get(0)); // nothing cached yet: unconditional
+        assertEquals(ETAG, ifNoneMatch.get(1));
+        assertEquals(LAST_MODIFIED, ifModifiedSince.get(1));
+    }
+
+    @Test
+    public void changedBodyReplacesTheManifest() throws Exception {
+        ManifestRepository repo = new ManifestRepository(NetClient.get(), tmp.newFolder());
+        PlaylistManifest first = repo.fetch(url());
+        body = manifest("c.mp4");
+        etag = "\"m2\"";
+        PlaylistManifest second = repo.fetch(url());
+
+        assertNotSame(first, second);
+        assertEquals("c.mp4", second.items.get(0).filename);
+        assertSame(second, repo.cached());
+    }
+
+    @Test
+    public void lastModifiedAloneValidates() throws Exception {
+        etag = null;
+        ManifestRepository repo = new ManifestRepository(NetClient.get(), tmp.newFolder());
+        PlaylistManifest first = repo.fetch(url());
+
+        assertSame(first, repo.fetch(url()));
+        assertEquals("null", ifNoneMatch.get(1));
+        assertEquals(LAST_MODIFIED, ifModifiedSince.get(1));
+        assertEquals(1, bodies.get());
+    }
+
+    @Test
+    public void diskCacheSurvivesARestart() throws Exception {
+        File dir = tmp.newFolder();
+        new ManifestRepository(NetClient.get(), dir).fetch(url());
+
+        // A new process: the cached body is usable offline and its validators make the refetch a 304
+        ManifestRepository restarted = new ManifestRepository(NetClient.get(), dir);
+        PlaylistManifest cached = restarted.cached();
+        assertNotNull(cached);
+        assertEquals(2, cached.items.size());
+        assertSame(cached, restarted.fetch(url()));
+        assertEquals(1, bodies.get());
+        assertEquals(ETAG, ifNoneMatch.get(1));
+    }
+
+    @Test
+    public void otherUrlIsFetchedUnconditionally() throws Exception {
+        ManifestRepository repo = new ManifestRepository(NetClient.get(), tmp.newFolder());
+        repo.fetch(url());
+        repo.fetch(url() + "?page=2");
+
+        assertEquals("null", ifNoneMatch.get(1));
+        assertEquals(2, bodies.get());
+    }
+
+    @Test
+    public void corruptCacheIsDroppedAndRefetched() throws Exception {
+        File dir = tmp.newFolder();
+        new ManifestRepository(NetClient.get(), dir).fetch(url());
+        Files.write(new File(dir, "manifest.json").toPath(), "{\"items\": [{\"url\": ".getBytes(StandardCharsets.UTF_8));
+
+        ManifestRepository restarted = new ManifestRepository(NetClient.get(), dir);
+        assertNull(restarted.cached());
+        assertFalse(new File(dir, "manifest.meta").exists());
+
+        PlaylistManifest fetched = restarted.fetch(url());
+        assertEquals(2, fetched.items.size());
+        assertEquals("null", ifNoneMatch.get(1)); // the stale validators went with the body
+        assertEquals(2, bodies.get());
+        assertTrue(new File(dir, "manifest.json").isFile());
+    }
+
+    @Test
+    public void failedCacheCopyKeepsThePreviousCache() throws Exception {
+        File dir = tmp.newFolder();
+        ManifestRepository repo = new ManifestRepository(NetClient.get(), dir);
+        repo.fetch(url());
+        assertTrue(new File(dir, "manifest.json.tmp").mkdir()); // the copy cannot be written, as on a full disk
+        body = manifest("c.mp4");
+        etag = "\"m2\"";
+
+        assertEquals("c.mp4", repo.fetch(url()).items.get(0).filename); // parsed all the same
+        ManifestRepository restarted = new ManifestRepository(NetClient.get(), dir);
+        assertEquals(2, restarted.cached().items.size()); // the previous body, with its validators
+        assertTrue(new File(dir, "manifest.meta").isFile());
+        assertTrue(new File(dir, "manifest.json.tmp").delete());
+        restarted.fetch(url());
+        assertEquals(ETAG, ifNoneMatch.get(2));
+    }
+
+    @Test
+    public void failedFetchKeepsTheLastGoodManifest() throws Exception {
+        File dir = tmp.newFolder();
+        ManifestRepository repo = new ManifestRepository(NetClient.get(), dir);
+        PlaylistManifest good = repo.fetch(url());
+        body = "{\"items\": [";
+        etag = "\"broken\"";
+
+        try {
+            repo.fetch(url());
+            fail("malformed body accepted");
+        } catch (Exception expected) {
+            // kept below
+        }
+        assertSame(good, repo.cached());
+        assertEquals(2, new ManifestRepository(NetClient.get(), dir).cached().items.size());
+        assertFalse(new File(dir, "manifest.json.tmp").exists());
+    }
+}
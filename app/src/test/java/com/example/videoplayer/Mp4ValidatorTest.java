@@ -0,0 +1,157 @@
+package com.example.videoplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class Mp4ValidatorTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final Mp4Validator validator = new Mp4Validator(Mp4Validator.DEFAULT_VIDEO_CODECS);
+
+    // ===== minimal MP4 writer =====
+
+    private static byte[] box(String type, byte[]... children) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] c : children) body.write(c, 0, c.length);
+        return ByteBuffer.allocate(8 + body.size()).putInt(8 + body.size())
+                .put(type.getBytes(StandardCharsets.US_ASCII)).put(body.toByteArray()).array();
+    }
+
+    private static byte[] ints(int... v) {
+        ByteBuffer b = ByteBuffer.allocate(4 * v.length);
+        for (int i : v) b.putInt(i);
+        return b.array();
+    }
+
+    private static byte[] trak(String handler, byte[] sampleEntry, int chunkOffset) {
+        byte[] mdhd = box("mdhd", ints(0, 0, 0, 90_000, 900_000, 0));
+        byte[] hdlr = box("hdlr", ints(0, 0), handler.getBytes(StandardCharsets.US_ASCII), new byte[13]);
+        byte[] stsd = box("stsd", ints(0, 1), sampleEntry);
+        byte[] stco = box("stco", ints(0, 1, chunkOffset));
+        return box("trak", box("mdia", mdhd, hdlr, box("minf", box("stbl", stsd, stco))));
+    }
+
+    private static byte[] videoEntry(String codec, int width, int height) {
+        byte[] fields = ByteBuffer.allocate(78).putShort(24, (short) width).putShort(26, (short) height).array();
+        return box(codec, fields, box("avcC", new byte[] {1, 100, 0, 40, (byte) 0xff}));
+    }
+
+    private static byte[] moov(String codec, int chunkOffset) {
+        byte[] mvhd = box("mvhd", ints(0, 0, 0, 1000, 10_000), new byte[80]);
+        return box("moov", mvhd, trak("vide", videoEntry(codec, 1920, 1080), chunkOffset),
+                trak("soun", box("mp4a", new byte[28]), chunkOffset));
+    }
+
+    private File mp4(String name, boolean moovAtEnd, String codec) throws Exception {
+        File f = tmp.newFile(name);
+        try (FileOutputStream fo = new FileOutputStream(f)) { fo.write(mp4Bytes(moovAtEnd, codec, new byte[4096])); }
+        return f;
+    }
+
+    /** A playable-looking MP4 around the given media payload (also used by the sync soak harness). */
+    static byte[] mp4Bytes(boolean moovAtEnd, String codec, byte[] payload) throws IOException {
+        byte[] ftyp = box("ftyp", "isom".getBytes(StandardCharsets.US_ASCII), ints(512));
+        byte[] mdat = box("mdat", payload);
+        int moovSize = moov(codec, 0).length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(ftyp);
+        if (moovAtEnd) {
+            out.write(mdat);
+            out.write(moov(codec, ftyp.length + 8));
+        } else {
+            out.write(moov(codec, ftyp.length + moovSize + 8));
+            out.write(mdat);
+        }
+        return out.toByteArray();
+    }
+
+    // ===== tests =====
+
+    @Test
+    public void reportsCodecProfileResolutionAndDuration() throws Exception {
+        Mp4Validator.Report r = validator.check(mp4("a.mp4", false, "avc1"));
+        assertTrue(r.problem, r.ok());
+        assertEquals("avc1", r.videoCodec);
+        assertEquals("High@4.0", r.profile);
+        assertEquals(1920, r.width);
+        assertEquals(1080, r.height);
+        assertEquals(10_000, r.durationMs);
+        assertEquals("mp4a", r.audioCodec);
+        assertEquals("isom", r.brand);
+        assertFalse(r.moovAtEnd);
+    }
+
+    @Test
+    public void moovAfterMdatIsPlayableButFlagged() throws Exception {
+        Mp4Validator.Report r = validator.check(mp4("late.mp4", true, "avc1"));
+        assertTrue(r.problem, r.ok());
+        assertTrue(r.moovAtEnd);
+    }
+
+    @Test
+    public void truncatedFileIsRejected() throws Exception {
+        File f = mp4("cut.mp4", false, "avc1");
+        assertTrue(validator.check(f).ok());
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) { raf.setLength(raf.length() - 100); }
+        f.setLastModified(f.lastModified() + 2_000); // re-inspected: the cached report is stale
+
+        Mp4Validator.Report r = validator.check(f);
+        assertFalse(r.ok());
+        assertTrue(r.problem, r.problem.startsWith("truncated mdat"));
+
+        // Cut inside moov (moov at the end): no moov at all
+        File late = mp4("late.mp4", true, "avc1");
+        try (RandomAccessFile raf = new RandomAccessFile(late, "rw")) { raf.setLength(raf.length() - 10); }
+        assertFalse(Mp4Validator.inspect(late, Mp4Validator.DEFAULT_VIDEO_CODECS).ok());
+    }
+
+    @Test
+    public void unsupportedCodecAndNonMp4AreRejected() throws Exception {
+        Mp4Validator.Report r = validator.check(mp4("enc.mp4", false, "encv"));
+        assertFalse(r.ok());
+        assertEquals("unsupported video codec encv", r.problem);
+
+        File html = tmp.newFile("error.mp4");
+        try (FileOutputStream fo = new FileOutputStream(html)) {
+            fo.write("<html><body>404 Not Found</body></html>".getBytes(StandardCharsets.US_ASCII));
+        }
+        assertFalse(validator.check(html).ok());
+    }
+
+    @Test
+    public void quarantineKeepsOnlyTheLatestFew() throws Exception {
+        File dir = tmp.getRoot();
+        for (int i = 0; i < Mp4Validator.QUARANTINE_KEPT + 2; i++) {
+            File f = mp4("bad" + i + ".mp4", false, "avc1");
+            File q = Mp4Validator.quarantine(f);
+            assertFalse(f.exists());
+            assertNotNull(q);
+            q.setLastModified(1_000_000L * (i + 1)); // distinct ages
+        }
+        File[] kept = new File(dir, Mp4Validator.QUARANTINE_DIR).listFiles();
+        assertNotNull(kept);
+        assertEquals(Mp4Validator.QUARANTINE_KEPT, kept.length);
+        assertFalse(new File(dir, Mp4Validator.QUARANTINE_DIR + "/bad0.mp4").exists());
+    }
+
+    @Test
+    public void scansHundredsOfFilesQuickly() throws Exception {
+        File[] files = new File[300];
+        for (int i = 0; i < files.length; i++) files[i] = mp4("v" + i + ".mp4", i % 2 == 0, "avc1");
+        long t0 = System.nanoTime();
+        for (File f : files) assertTrue(Mp4Validator.inspect(f, Mp4Validator.DEFAULT_VIDEO_CODECS).ok());
+        assertTrue((System.nanoTime() - t0) / 1_000_000 < 2_000);
+    }
+}
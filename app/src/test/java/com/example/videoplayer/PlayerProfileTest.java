@@ -0,0 +1,44 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PlayerProfileTest {
+
+    private static final long GB = 1L << 30, MB = 1L << 20;
+
+    @Test
+    public void ramClassFollowsTotalRamAndTheLowRamFlag() {
+        assertEquals(PlayerProfile.RamClass.LOW, PlayerProfile.RamClass.of(2 * GB, false));
+        assertEquals(PlayerProfile.RamClass.LOW, PlayerProfile.RamClass.of(8 * GB, true));
+        assertEquals(PlayerProfile.RamClass.MID, PlayerProfile.RamClass.of(3 * GB, false));
+        assertEquals(PlayerProfile.RamClass.HIGH, PlayerProfile.RamClass.of(8 * GB, false));
+    }
+
+    @Test
+    public void byteTargetFollowsBitrateWithHeadroom() {
+        // 8 Mbps = 1 MB/s, 15 s of buffer, 1.5x headroom
+        PlayerProfile p = PlayerProfile.select(8 * GB, false, 512 * MB, 8_000_000, 2);
+        assertEquals(PlayerProfile.RamClass.HIGH, p.ramClass);
+        assertEquals(22_500_000, p.targetBufferBytes, PlayerProfile.SEGMENT_BYTES);
+        assertEquals(0, p.targetBufferBytes % PlayerProfile.SEGMENT_BYTES);
+
+        // Low bitrate still buffers enough to start
+        assertEquals(PlayerProfile.MIN_TARGET_BYTES, PlayerProfile.select(8 * GB, false, 512 * MB, 100_000, 2).targetBufferBytes);
+    }
+
+    @Test
+    public void allDecksStayWithinTheHeapShareOfTheirClass() {
+        // 4K content on a 2 GB box with a 192 MB heap: two decks share 1/8 of it
+        PlayerProfile p = PlayerProfile.select(2 * GB, false, 192 * MB, 40_000_000, 2);
+        assertEquals(PlayerProfile.RamClass.LOW, p.ramClass);
+        assertEquals(12 * MB, p.targetBufferBytes);
+        assertEquals(24 * MB, p.heapFootprintBytes());
+        assertTrue(p.fitsHeap());
+        assertTrue(p.maxBufferMs < 50_000); // well under ExoPlayer's streaming default
+
+        // A tiny heap keeps the floor, and says so
+        assertFalse(PlayerProfile.select(1 * GB, true, 6 * MB, 40_000_000, 2).fitsHeap());
+    }
+}
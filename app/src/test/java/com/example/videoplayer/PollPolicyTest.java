@@ -0,0 +1,85 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PollPolicyTest {
+
+    private static final long BASE = 10_000, MAX = 120_000, STRETCH_AFTER = 600_000, BACKOFF_MAX = 900_000;
+
+    private long now = 0;
+
+    private PollPolicy policy(double jitter, long seed) {
+        return new PollPolicy(BASE, MAX, STRETCH_AFTER, BACKOFF_MAX, jitter, () -> now, new Random(seed));
+    }
+
+    @Test
+    public void fleetBootingTogetherSpreadsItsFirstPolls() {
+        int[] perSecond = new int[(int) (BASE / 1000)];
+        Random seeds = new Random(42);
+        for (int device = 0; device < 1000; device++) {
+            long first = policy(0.2, seeds.nextLong()).firstDelayMs();
+            assertTrue(first >= 0 && first < BASE);
+            perSecond[(int) (first / 1000)]++;
+        }
+        // 1000 devices over 10 one-second slots: no slot gets much more than its share
+        for (int n : perSecond) assertTrue("slot with " + n, n < 150);
+    }
+
+    @Test
+    public void jitterStaysWithinBounds() {
+        PollPolicy p = policy(0.2, 1);
+        long min = Long.MAX_VALUE, max = 0;
+        for (int i = 0; i < 1000; i++) {
+            long d = p.nextDelayMs(PollPolicy.Outcome.CHANGED);
+            min = Math.min(min, d);
+            max = Math.max(max, d);
+        }
+        assertTrue(min >= 8_000 && max <= 12_000);
+        assertTrue(max - min > 2_000); // actually randomized
+    }
+
+    @Test
+    public void failuresBackOffToTheCapAndRecoverOnSuccess() {
+        PollPolicy p = policy(0, 1);
+        assertEquals(20_000, p.nextDelayMs(PollPolicy.Outcome.FAILED));
+        assertEquals(40_000, p.nextDelayMs(PollPolicy.Outcome.FAILED));
+        assertEquals(80_000, p.nextDelayMs(PollPolicy.Outcome.FAILED));
+        for (int i = 0; i < 50; i++) p.nextDelayMs(PollPolicy.Outcome.FAILED);
+        assertEquals(BACKOFF_MAX, p.nextDelayMs(PollPolicy.Outcome.FAILED));
+
+        assertEquals(BASE, p.nextDelayMs(PollPolicy.Outcome.UNCHANGED));
+        assertEquals(20_000, p.nextDelayMs(PollPolicy.Outcome.FAILED)); // backoff starts over
+    }
+
+    @Test
+    public void quietPeriodStretchesAndAChangeTightensAgain() {
+        PollPolicy p = policy(0, 1);
+        // Nothing changes: the interval stays at the base until stretchAfter has passed
+        long d = 0;
+        while (now < STRETCH_AFTER) {
+            d = p.nextDelayMs(PollPolicy.Outcome.UNCHANGED);
+            now += d;
+        }
+        assertEquals(BASE, d);
+        for (int i = 0; i < 20; i++) {
+            d = p.nextDelayMs(PollPolicy.Outcome.UNCHANGED);
+            now += d;
+        }
+        assertEquals(MAX, d);
+
+        assertEquals(BASE, p.nextDelayMs(PollPolicy.Outcome.CHANGED));
+        now += BASE;
+        assertEquals(BASE, p.nextDelayMs(PollPolicy.Outcome.UNCHANGED)); // quiet period starts over
+
+        // A change learned elsewhere (pushed) tightens too; skipped polls keep the current interval
+        now += STRETCH_AFTER;
+        assertEquals(15_000, p.nextDelayMs(PollPolicy.Outcome.UNCHANGED));
+        assertEquals(15_000, p.nextDelayMs(null));
+        p.onChanged();
+        assertEquals(BASE, p.nextDelayMs(null));
+    }
+}
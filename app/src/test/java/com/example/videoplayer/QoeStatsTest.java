@@ -0,0 +1,43 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QoeStatsTest {
+
+    private final QoeStats stats = new QoeStats();
+
+    @Test
+    public void aggregatesPerItemAndResetsOnDrain() {
+        stats.play("a.mp4");
+        stats.play("a.mp4");
+        stats.droppedFrames("a.mp4", 3);
+        stats.droppedFrames("a.mp4", 2);
+        stats.stall("a.mp4", 400);
+        stats.decoderInit("a.mp4", "c2.hw.avc", 40);    // bucket 2 (<= 66)
+        stats.decoderInit("a.mp4", "c2.hw.avc", 9_000); // overflow bucket
+        stats.frameProcessingOffset("a.mp4", 30_000, 10);
+        stats.transitionGap("a.mp4", 0);
+        stats.error("b.mp4");
+
+        assertEquals("{\"buckets_ms\":[16,33,66,100,250,500,1000,2500],\"items\":{"
+                + "\"a.mp4\":{\"plays\":2,\"errors\":0,\"dropped\":5,\"stalls\":1,\"stall_ms\":400,\"decoder\":\"c2.hw.avc\","
+                + "\"decoder_init\":[0,0,1,0,0,0,0,0,1],\"frame_offset_us\":3000,\"gap\":[1,0,0,0,0,0,0,0,0]},"
+                + "\"b.mp4\":{\"plays\":0,\"errors\":1,\"dropped\":0,\"stalls\":0,\"stall_ms\":0,\"decoder\":\"\","
+                + "\"decoder_init\":[0,0,0,0,0,0,0,0,0],\"frame_offset_us\":0,\"gap\":[0,0,0,0,0,0,0,0,0]}}}",
+                stats.drainJson());
+        assertNull(stats.drainJson());
+    }
+
+    @Test
+    public void itemCountIsBounded() {
+        for (int i = 0; i < QoeStats.MAX_ITEMS + 10; i++) stats.play("v" + i + ".mp4");
+        stats.play(null);
+
+        String json = stats.drainJson();
+        assertTrue(json.contains("\"v0.mp4\""));
+        assertFalse(json.contains("\"v" + QoeStats.MAX_ITEMS + ".mp4\""));
+        assertTrue(json.contains("\"_other\":{\"plays\":11,"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.videoplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class ReedCounterTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long DAY = 86_400_000L;
+    private static final long OCT_30 = 1_761_782_400_000L; // 2025-10-30T00:00Z
+
+    private ReedCounter seeded(File f) {
+        ReedCounter c = new ReedCounter(f, UTC);
+        c.applyServerBase(5, 40, OCT_30);
+        return c;
+    }
+
+    @Test
+    public void snapshotsCarryAbsoluteTotalsOnTopOfServerBase() {
+        ReedCounter c = seeded(new File(tmp.getRoot(), "c"));
+        c.record(OCT_30 + 1000);
+        c.record(OCT_30 + 2000);
+        assertEquals(2, c.pendingDelta());
+
+        List<ReedCounter.Snapshot> s = c.drain(OCT_30 + 3000);
+        assertEquals(1, s.size());
+        assertEquals("2025-10-30", s.get(0).day);
+        assertEquals(7, s.get(0).daily);
+        assertEquals(42, s.get(0).monthly);
+        assertEquals(0, c.pendingDelta());
+        assertTrue(c.drain(OCT_30 + 4000).isEmpty());
+    }
+
+    @Test
+    public void countsSurviveRestart() {
+        File f = new File(tmp.getRoot(), "c");
+        seeded(f).record(OCT_30 + 1000);
+
+        ReedCounter reopened = new ReedCounter(f, UTC);
+        assertFalse(reopened.needsServerBase());
+        assertEquals(1, reopened.pendingDelta());
+        assertEquals(6, reopened.drain(OCT_30 + 2000).get(0).daily);
+    }
+
+    @Test
+    public void rolloverClosesDayAndMonth() {
+        ReedCounter c = seeded(new File(tmp.getRoot(), "c"));
+        c.record(OCT_30 + 1000);
+        c.record(OCT_30 + 2 * DAY + 1000); // 2025-11-01
+
+        List<ReedCounter.Snapshot> s = c.drain(OCT_30 + 2 * DAY + 2000);
+        assertEquals(2, s.size());
+        assertEquals("2025-10-30", s.get(0).day);
+        assertEquals(6, s.get(0).daily);
+        assertEquals(41, s.get(0).monthly);
+        assertEquals("2025-11-01", s.get(1).day);
+        assertEquals("2025-11", s.get(1).month);
+        assertEquals(1, s.get(1).daily);
+        assertEquals(1, s.get(1).monthly);
+    }
+
+    @Test
+    public void clockGoingBackwardsKeepsCurrentPeriod() {
+        ReedCounter c = seeded(new File(tmp.getRoot(), "c"));
+        c.record(OCT_30 + 1000);
+        c.record(0L); // unsynced clock at boot
+
+        ReedCounter.Snapshot s = c.drain(OCT_30 + 2000).get(0);
+        assertEquals("2025-10-30", s.day);
+        assertEquals(7, s.daily);
+    }
+
+    @Test
+    public void nothingIsSentBeforeServerBaseIsKnown() {
+        ReedCounter c = new ReedCounter(new File(tmp.getRoot(), "c"), UTC);
+        c.record(OCT_30 + 1000);
+        assertTrue(c.needsServerBase());
+        assertTrue(c.drain(OCT_30 + 2000).isEmpty());
+
+        c.applyServerBase(10, 100, OCT_30 + 3000);
+        ReedCounter.Snapshot s = c.drain(OCT_30 + 4000).get(0);
+        assertEquals(11, s.daily);
+        assertEquals(101, s.monthly);
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.videoplayer;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the downloader against a local HTTP stand-in that serves byte ranges.
+ */
+public class SegmentedDownloaderTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private byte[] content;
+    private volatile boolean rangesSupported = true;
+    private volatile int failAfterBytes = -1;
+    private volatile CountDownLatch holdBodies; // segment bodies wait for it; the one-byte probe does not
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicLong servedBytes = new AtomicLong(); // body bytes written, including cut bodies
+    private volatile String etag = "\"v1\"";
+    private final List<String> ifRanges = new CopyOnWriteArrayList<>(); // as sent with body ranges
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[3 * 1024 * 1024 + 123];
+        new Random(42).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/", ex -> {
+            String range = ex.getRequestHeaders().getFirst("Range");
+            String ifRange = ex.getRequestHeaders().getFirst("If-Range");
+            boolean body = !"bytes=0-0".equals(range);
+            if (body && range != null) ifRanges.add(String.valueOf(ifRange));
+            CountDownLatch hold = holdBodies;
+            if (hold != null && body) {
+                try { hold.await(); } catch (InterruptedException ignored) {}
+            }
+            byte[] content = this.content;
+            ex.getResponseHeaders().add("ETag", etag);
+            // A range is only honoured for the version If-Range names
+            boolean current = ifRange == null || ifRange.equals(etag);
+            Matcher m = range != null && rangesSupported && current ? RANGE.matcher(range) : null;
+            int from = 0, to = content.length - 1, code = 200;
+            if (m != null && m.matches()) {
+                rangeRequests.incrementAndGet();
+                from = Integer.parseInt(m.group(1));
+                if (!m.group(2).isEmpty()) to = Math.min(to, Integer.parseInt(m.group(2)));
+                code = 206;
+                ex.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + to + "/" + content.length);
+            }
+            int len = to - from + 1;
+            int limit = failAfterBytes;
+            if ("HEAD".equals(ex.getRequestMethod())) { ex.sendResponseHeaders(code, -1); ex.close(); return; }
+            ex.sendResponseHeaders(code, len);
+            try (OutputStream os = ex.getResponseBody()) {
+                if (limit >= 0 && len > limit) {
+                    os.write(content, from, limit);
+                    servedBytes.addAndGet(limit);
+                    os.flush();
+                    ex.close(); // drop the connection mid-body
+                    return;
+                }
+                os.write(content, from, len);
+                servedBytes.addAndGet(len);
+            } catch (Exception ignored) {}
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private String url() {
+        return url("clip.mp4");
+    }
+
+    private String url(String name) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/files/" + name;
+    }
+
+    @Test
+    public void segmentedDownloadReassemblesInPlace() throws Exception {
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 2, 4, 256 * 1024, 3, 10);
+        File dir = tmp.newFolder();
+        File f = d.download(url(), dir);
+        d.shutdown();
+
+        assertEquals("clip.mp4", f.getName());
+        assertArrayEquals(content, Files.readAllBytes(f.toPath()));
+        assertFalse(new File(dir, "clip.mp4.part").exists());
+        assertFalse(new File(dir, "clip.mp4.part.journal").exists());
+        assertTrue(rangeRequests.get() >= 5); // probe + 4 segments
+    }
+
+    @Test
+    public void finishedDownloadReplacesAnOlderFile() throws Exception {
+        File dir = tmp.newFolder();
+        Files.write(new File(dir, "clip.mp4").toPath(), new byte[] {1, 2, 3}); // e.g. a repaired asset
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        File f = d.download(url(), dir);
+        d.shutdown();
+
+        assertArrayEquals(content, Files.readAllBytes(f.toPath()));
+        assertFalse(new File(dir, "clip.mp4.part").exists());
+    }
+
+    @Test
+    public void segmentedDownloadIsReadableWhileItGrows() throws Exception {
+        holdBodies = new CountDownLatch(1);
+        GrowingFiles growing = new GrowingFiles(System::currentTimeMillis);
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10, null, growing);
+        File dir = tmp.newFolder();
+        File target = new File(dir, "clip.mp4");
+        Thread download = new Thread(() -> {
+            try { d.download(url(), dir); } catch (Exception ignored) {}
+        });
+        download.start();
+
+        GrowingFiles.Entry entry;
+        while ((entry = growing.get(target)) == null) Thread.sleep(5);
+        assertEquals(0, entry.readableFrom(0)); // preallocated, nothing written yet
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        try (GrowingFiles.Reader reader = new GrowingFiles.Reader(entry, 0, 10_000)) {
+            holdBodies.countDown();
+            byte[] buf = new byte[100_000];
+            int n;
+            while ((n = reader.read(buf, 0, buf.length)) != -1) read.write(buf, 0, n);
+        }
+        download.join();
+        d.shutdown();
+
+        assertArrayEquals(content, read.toByteArray());
+        assertNull(growing.get(target)); // complete: read directly from now on
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void fallsBackToSingleStreamWithoutRangeSupport() throws Exception {
+        rangesSupported = false;
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        File f = d.download(url(), tmp.newFolder());
+        d.shutdown();
+
+        assertArrayEquals(content, Files.readAllBytes(f.toPath()));
+        assertEquals(content.length, d.totalBytes());
+    }
+
+    @Test
+    public void resumesLegacyPartFileWithoutRefetchingPrefix() throws Exception {
+        File dir = tmp.newFolder();
+        int have = 1024 * 1024;
+        Files.write(new File(dir, "clip.mp4.part").toPath(), Arrays.copyOf(content, have));
+
+        // A part from before the journal is only trusted when the final hash can vouch for it
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        SegmentedDownloader.Result r = d.download(url(), sha256(content), dir);
+        d.shutdown();
+
+        assertTrue(r.ok());
+        assertArrayEquals(content, Files.readAllBytes(r.file.toPath()));
+        assertEquals(content.length - have, d.totalBytes());
+    }
+
+    @Test
+    public void unverifiableLegacyPartFileIsDiscarded() throws Exception {
+        File dir = tmp.newFolder();
+        Files.write(new File(dir, "clip.mp4.part").toPath(), new byte[1024 * 1024]); // not the content
+
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        File f = d.download(url(), dir);
+        d.shutdown();
+
+        assertArrayEquals(content, Files.readAllBytes(f.toPath()));
+        assertEquals(content.length, d.totalBytes());
+    }
+
+    /** Leaves clip.mp4.part and its journal as a download cut after 300 KB of each of 4 segments would. */
+    private File interruptedDownload() throws Exception {
+        File dir = tmp.newFolder();
+        failAfterBytes = 300 * 1024;
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 1, 1);
+        assertFalse(d.download(url(), "", dir).ok());
+        d.shutdown();
+        failAfterBytes = -1;
+        assertTrue(new File(dir, "clip.mp4.part.journal").isFile());
+        return dir;
+    }
+
+    @Test
+    public void resumesFromJournalWithoutRefetchingCommittedChunks() throws Exception {
+        File dir = interruptedDownload();
+        ifRanges.clear();
+
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        SegmentedDownloader.Result r = d.download(url(), "", dir);
+        d.shutdown();
+
+        assertTrue(r.ok());
+        assertArrayEquals(content, Files.readAllBytes(r.file.toPath()));
+        // One whole chunk per segment was committed; only the uncommitted rest is fetched again
+        assertEquals(content.length - 4L * DownloadJournal.CHUNK_BYTES, d.totalBytes());
+        assertFalse(ifRanges.isEmpty());
+        for (String v : ifRanges) assertEquals(etag, v);
+        assertFalse(new File(dir, "clip.mp4.part.journal").exists());
+    }
+
+    @Test
+    public void corruptedCommittedChunkIsFetchedAgain() throws Exception {
+        File dir = interruptedDownload();
+        try (RandomAccessFile raf = new RandomAccessFile(new File(dir, "clip.mp4.part"), "rw")) {
+            raf.seek(10);
+            raf.write(content[10] ^ 0xff); // e.g. a torn write the power cut left behind
+        }
+
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        File f = d.download(url(), dir);
+        d.shutdown();
+
+        assertArrayEquals(content, Files.readAllBytes(f.toPath()));
+        assertEquals(content.length - 3L * DownloadJournal.CHUNK_BYTES, d.totalBytes());
+    }
+
+    @Test
+    public void replacedSourceIsNotSplicedOntoAPart() throws Exception {
+        File dir = interruptedDownload();
+        byte[] replaced = content.clone();
+        new Random(7).nextBytes(replaced);
+        content = replaced;
+        etag = "\"v2\"";
+
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        File f = d.download(url(), dir);
+        d.shutdown();
+
+        assertArrayEquals(replaced, Files.readAllBytes(f.toPath()));
+        assertEquals(replaced.length, d.totalBytes());
+    }
+
+    @Test
+    public void sourceChangingAfterTheProbeFailsInsteadOfSplicing() throws Exception {
+        File dir = interruptedDownload();
+        ifRanges.clear();
+        holdBodies = new CountDownLatch(1);
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        Future<SegmentedDownloader.Result> pending = Executors.newSingleThreadExecutor().submit(() -> d.download(url(), "", dir));
+        // The probe went through (the journal was taken up again); the segments wait for the body latch
+        while (ifRanges.isEmpty()) Thread.sleep(5);
+        byte[] replaced = content.clone();
+        new Random(7).nextBytes(replaced);
+        content = replaced;
+        etag = "\"v2\"";
+        holdBodies.countDown();
+        holdBodies = null;
+
+        SegmentedDownloader.Result r = pending.get();
+        assertFalse(r.ok());
+        assertFalse(new File(dir, "clip.mp4").exists());
+        assertFalse(new File(dir, "clip.mp4.part.journal").exists());
+
+        File f = d.download(url(), dir);
+        d.shutdown();
+        assertArrayEquals(replaced, Files.readAllBytes(f.toPath()));
+    }
+
+    @Test
+    public void retriesDroppedSegmentsFromLastOffset() throws Exception {
+        failAfterBytes = 300 * 1024;
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 10, 1);
+        File f = d.download(url(), tmp.newFolder());
+        d.shutdown();
+
+        assertArrayEquals(content, Files.readAllBytes(f.toPath()));
+        assertTrue(rangeRequests.get() > 5); // segments of ~768 KB were cut at least twice each
+        // Retries ask for the rest only: restarting a segment (or its last chunk) would refetch more than this
+        assertTrue("served " + servedBytes.get(), servedBytes.get() <= content.length + 1 + DownloadJournal.CHUNK_BYTES);
+    }
+
+    @Test
+    public void downloadAllReportsPerFileThroughput() throws Exception {
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 2, 2, 256 * 1024, 3, 10);
+        List<SegmentedDownloader.Result> results = d.downloadAll(Arrays.asList(item(url("a.mp4"), ""), item(url("b.mp4"), "")), tmp.newFolder());
+        d.shutdown();
+
+        assertEquals(2, results.size());
+        for (SegmentedDownloader.Result r : results) {
+            assertTrue(r.error != null ? r.error.toString() : "", r.ok());
+            assertEquals(content.length, r.file.length());
+            assertEquals(ContentStore.sha256(r.file), r.sha256);
+        }
+    }
+
+    @Test
+    public void streamingHashMatchesContentAcrossResume() throws Exception {
+        File dir = tmp.newFolder();
+        Files.write(new File(dir, "clip.mp4.part").toPath(), Arrays.copyOf(content, 700 * 1024));
+        String expected = sha256(content);
+
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        SegmentedDownloader.Result r = d.download(url(), expected, dir);
+        d.shutdown();
+
+        assertTrue(r.ok());
+        assertEquals(expected, r.sha256);
+    }
+
+    @Test
+    public void checksumMismatchIsRejected() throws Exception {
+        File dir = tmp.newFolder();
+        SegmentedDownloader d = new SegmentedDownloader(NetClient.get(), 1, 4, 256 * 1024, 3, 10);
+        SegmentedDownloader.Result r = d.download(url(), "00", dir);
+        d.shutdown();
+
+        assertFalse(r.ok());
+        assertFalse(new File(dir, "clip.mp4").exists());
+    }
+
+    private static PlaylistManifest.Item item(String url, String sha256) {
+        return new PlaylistManifest.Item(url, PlaylistManifest.filenameFromUrl(url), "", 0, "cover", sha256, -1);
+    }
+
+    private static String sha256(byte[] b) throws Exception {
+        return IncrementalHasher.hex(java.security.MessageDigest.getInstance("SHA-256").digest(b));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.videoplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class StartupTraceTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private long now = 0;
+    private final StartupTrace trace = new StartupTrace(() -> now);
+
+    @Test
+    public void marksAndSpansUseFirstOccurrence() {
+        now = 8_000;
+        trace.mark("boot_receiver");
+        now = 9_000;
+        trace.begin("permissions");
+        now = 9_250;
+        trace.end("permissions");
+        trace.begin("prepare");
+        now = 12_000;
+        trace.mark("boot_receiver"); // repeated paths don't move the first timestamp
+        trace.end("permissions");
+
+        assertEquals("{\"marks\":{\"boot_receiver\":8000},\"spans\":{\"permissions\":{\"start\":9000,\"ms\":250},"
+                + "\"prepare\":{\"start\":9250}}}", trace.toJson());
+    }
+
+    @Test
+    public void savedPerBootAndPrunedToNewest() throws Exception {
+        File dir = new File(tmp.getRoot(), "startup");
+        trace.markAt("first_frame", 4200);
+        for (int boot = 1; boot <= 4; boot++) {
+            trace.save(dir, String.valueOf(boot), 2);
+            new File(dir, "boot-" + boot + ".json").setLastModified(1_000_000L * boot);
+        }
+
+        assertFalse(new File(dir, "boot-1.json").exists());
+        assertFalse(new File(dir, "boot-2.json").exists());
+        String saved = new String(Files.readAllBytes(new File(dir, "boot-4.json").toPath()), StandardCharsets.UTF_8);
+        assertTrue(saved.contains("\"first_frame\":4200"));
+        assertEquals(2, dir.list().length);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.videoplayer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class StorageManagerTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir;
+    private long now = 1_700_000_000_000L;
+    private long free = 10_000;
+
+    @Before
+    public void setUp() {
+        dir = tmp.getRoot();
+    }
+
+    private StorageManager storage(long quota, long reserve) {
+        return new StorageManager(dir, quota, reserve, d -> free, () -> now);
+    }
+
+    private File file(String name, int size) throws Exception {
+        File f = new File(dir, name);
+        f.getParentFile().mkdirs();
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) { raf.setLength(size); }
+        return f;
+    }
+
+    private static String sha(char c) {
+        char[] s = new char[64];
+        Arrays.fill(s, c);
+        return new String(s);
+    }
+
+    private static PlaylistManifest.Item item(String name, long size) {
+        return new PlaylistManifest.Item("http://cdn/" + name, name, "", 0, "cover", "", size);
+    }
+
+    @Test
+    public void unassignedVideoIsRetainedAndRestoredByHash() throws Exception {
+        StorageManager s = storage(0, 0);
+        File old = file("promo.mp4", 1000);
+
+        assertTrue(s.retain(old, sha('a')));
+        assertFalse(old.exists());
+        assertEquals(1, s.retainedCount());
+
+        File target = new File(dir, "promo-renamed.mp4");
+        assertFalse(s.restore(sha('a'), 999, target)); // size must agree with the manifest
+        assertTrue(s.restore(sha('a'), 1000, target));
+        assertEquals(1000, target.length());
+        assertEquals(0, s.retainedCount());
+        assertFalse(s.restore(sha('b'), -1, new File(dir, "other.mp4")));
+    }
+
+    @Test
+    public void unknownContentIsDeletedInsteadOfRetained() throws Exception {
+        StorageManager s = storage(0, 0);
+        File f = file("x.mp4", 10);
+        assertFalse(s.retain(f, null));
+        assertFalse(f.exists());
+        assertEquals(0, s.retainedCount());
+    }
+
+    @Test
+    public void preflightEvictsOldestRetainedThenDefersWhatCannotFit() throws Exception {
+        StorageManager s = storage(0, 1_000);
+        s.retain(file("a.mp4", 3_000), sha('a'));
+        now += 1_000;
+        s.retain(file("b.mp4", 3_000), sha('b'));
+        free = 4_000; // both retained files are on this disk
+
+        // 5000 needs one eviction (the oldest); 9000 cannot fit at all, so nothing more is evicted for it
+        StorageManager.Preflight p = s.preflight(Arrays.asList(item("big.mp4", 5_000), item("huge.mp4", 9_000)));
+        assertEquals(1, p.fits.size());
+        assertEquals("big.mp4", p.fits.get(0).filename);
+        assertEquals(1, p.deferred.size());
+        assertEquals(5_000, p.neededBytes);
+        assertEquals(1, p.evicted);
+        assertFalse(new File(dir, StorageManager.RETAINED_DIR + "/" + sha('a') + ".mp4").exists());
+        assertTrue(s.restore(sha('b'), 3_000, new File(dir, "b.mp4")));
+    }
+
+    @Test
+    public void quotaCountsVideosRetainedAndPartialDownloads() throws Exception {
+        StorageManager s = storage(10_000, 0);
+        file("playing.mp4", 6_000);
+        file("next.mp4.part", 2_000);       // half of next.mp4 is already on disk
+        s.retain(file("old.mp4", 3_000), sha('c')); // over quota: retention alone evicts it
+        assertEquals(0, s.retainedCount());
+
+        StorageManager.Preflight p = s.preflight(Collections.singletonList(item("next.mp4", 4_000)));
+        assertTrue(p.ok());
+        assertEquals(2_000, p.neededBytes);
+
+        p = s.preflight(Collections.singletonList(item("another.mp4", 2_500)));
+        assertFalse(p.ok());
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.videoplayer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * End-to-end soak of the sync path ({@link VideoSync}, as the activity runs it) against {@link DigixStandIn}.
+ * Each phase assigns content, then runs status check + sync rounds (the device's poll) until the video
+ * directory holds exactly the assignment, and reports time-to-consistency, bytes transferred against the
+ * ideal (content the device did not hold yet), and redundant requests.
+ */
+public class SyncSoakTest {
+
+    private static final String DEVICE = "soak-device";
+    private static final long ROUND_PAUSE_MS = 20;
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final NetClient net = new NetClient(5_000, 5_000, 10_000);
+    private DigixStandIn server;
+    private File videoDir, state;
+    private VideoSync sync;
+    private SegmentedDownloader downloader;
+    private final Set<String> held = new HashSet<>(); // content hashes the device has received (kept in retention)
+    private final List<String> warnings = new ArrayList<>();
+
+    /** One phase's measurements. */
+    private static final class Report {
+        String scenario;
+        int rounds;
+        boolean consistent;
+        long millis, bytes, idealBytes;
+        int requests, redundantFile, redundantManifest, redirects, failures;
+
+        double overhead() { return idealBytes > 0 ? (double) bytes / idealBytes : bytes == 0 ? 1 : Double.POSITIVE_INFINITY; }
+
+        int redundant() { return redundantFile + redundantManifest; }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "soak %-30s %s after %d round(s), %5d ms; %9d B vs ideal %9d B (x%.2f); "
+                            + "%4d requests, %d redundant (file %d, manifest %d), %d redirects, %d injected failures",
+                    scenario, consistent ? "consistent" : "NOT CONSISTENT", rounds, millis, bytes, idealBytes, overhead(),
+                    requests, redundant(), redundantFile, redundantManifest, redirects, failures);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new DigixStandIn();
+        videoDir = tmp.newFolder("videos");
+        state = tmp.newFolder("state");
+        downloader = new SegmentedDownloader(net, 4, 4, 128 * 1024, 3, 10);
+        sync = newSync(new StorageManager(videoDir, 0, 0, d -> 64L << 30, System::currentTimeMillis));
+    }
+
+    private VideoSync newSync(StorageManager storage) {
+        return new VideoSync(net, new ManifestRepository(net, new File(state, "manifest")),
+                new ContentStore(new File(state, "index.properties")), storage, downloader,
+                new Mp4Validator(Mp4Validator.DEFAULT_VIDEO_CODECS), null, new VideoSync.Listener() {
+                    @Override public void onManifest(PlaylistManifest manifest) {}
+                    @Override public void onDownloading(boolean active) {}
+                    @Override public void log(String message) {}
+                    @Override public void warn(String message) { synchronized (warnings) { warnings.add(message); } }
+                    @Override public void notice(String message) {}
+                });
+    }
+
+    @After
+    public void tearDown() {
+        downloader.shutdown();
+        server.stop();
+    }
+
+    // ===== harness =====
+
+    private static byte[] video(int payloadBytes, long seed) throws Exception {
+        byte[] payload = new byte[payloadBytes];
+        new Random(seed).nextBytes(payload);
+        return Mp4ValidatorTest.mp4Bytes(false, "avc1", payload);
+    }
+
+    private List<String> publish(String prefix, int count, int payloadBytes, long seed) throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = prefix + "_" + i + ".mp4";
+            server.put(name, video(payloadBytes, seed + i));
+            names.add(name);
+        }
+        return names;
+    }
+
+    /** Content of the assignment the device does not hold yet, each distinct content once. */
+    private long idealBytes(List<String> names) {
+        Set<String> seen = new HashSet<>(held);
+        long sum = 0;
+        for (String name : names) {
+            byte[] c = server.content(name);
+            if (seen.add(DigixStandIn.sha256(c))) sum += c.length;
+        }
+        return sum;
+    }
+
+    /** The video directory holds exactly the assignment, byte for byte. */
+    private boolean consistent(List<String> names) throws Exception {
+        File[] local = videoDir.listFiles((d, n) -> n.endsWith(".mp4"));
+        if (local == null || local.length != names.size()) return false;
+        for (String name : names) {
+            File f = new File(videoDir, name);
+            if (!f.isFile() || !Arrays.equals(server.content(name), Files.readAllBytes(f.toPath()))) return false;
+        }
+        return true;
+    }
+
+    /** Assigns names and polls (status check, sync if due) until consistent and acknowledged, or maxRounds. */
+    private Report phase(String scenario, List<String> names, int maxRounds) throws Exception {
+        Report r = new Report();
+        r.scenario = scenario;
+        r.idealBytes = idealBytes(names);
+        server.assign(names);
+        server.resetCounters();
+        long t0 = System.nanoTime();
+        while (r.rounds < maxRounds) {
+            r.rounds++;
+            try {
+                sync.checkAndSync(server.statusUrl(DEVICE), server.downloadsUrl(DEVICE), server.updateUrl(DEVICE), videoDir);
+            } catch (Exception e) {
+                // a failed poll; the next one tries again
+            }
+            if (server.acknowledged() && consistent(names)) {
+                r.consistent = true;
+                break;
+            }
+            Thread.sleep(ROUND_PAUSE_MS);
+        }
+        r.millis = (System.nanoTime() - t0) / 1_000_000;
+        r.bytes = server.fileBytes.get();
+        r.requests = server.totalRequests();
+        r.redundantFile = server.redundantFileRequests.get();
+        r.redundantManifest = server.redundantManifestBodies.get();
+        r.redirects = server.redirectRequests.get();
+        r.failures = server.failures.get();
+        for (String name : names) held.add(DigixStandIn.sha256(server.content(name)));
+        System.out.println(r);
+        return r;
+    }
+
+    /** After consistency a poll is one status request: no manifest, no files. */
+    private void assertSteadyState() throws Exception {
+        server.resetCounters();
+        assertNull(sync.checkAndSync(server.statusUrl(DEVICE), server.downloadsUrl(DEVICE), server.updateUrl(DEVICE), videoDir));
+        assertEquals(1, server.totalRequests());
+        assertEquals(1, server.statusRequests.get());
+    }
+
+    // ===== scenarios =====
+
+    @Test
+    public void largeAssignmentOnACleanLink() throws Exception {
+        List<String> names = publish("bulk", 500, 6 * 1024, 1);
+        Report r = phase("500 items, clean link", names, 3);
+
+        assertTrue(r.toString(), r.consistent);
+        assertEquals(1, r.rounds);
+        assertEquals(0, r.redundant());
+        assertEquals(1, server.manifestRequests.get());
+        assertEquals(1, server.updateRequests.get());
+        assertTrue(r.toString(), r.overhead() <= 1.01); // a one-byte probe per file at most
+        assertTrue(warnings.toString(), warnings.isEmpty());
+        assertSteadyState();
+    }
+
+    @Test
+    public void lossyLinkConvergesByResuming() throws Exception {
+        server.latencyMs = 5;
+        server.dropEveryNthBody = 5;
+        server.failEveryNthRequest = 7;
+        List<String> names = publish("lossy", 12, 600 * 1024, 100);
+        Report r = phase("12 x 600 KB, drops + 503s", names, 10);
+
+        assertTrue(r.toString(), r.consistent);
+        assertTrue(r.failures > 0);
+        // Cut bodies resume where they stopped: only what was in flight is fetched twice
+        assertTrue(r.toString(), r.overhead() < 1.5);
+        assertSteadyState();
+    }
+
+    @Test
+    public void reassignmentsMoveAndRestoreInsteadOfDownloading() throws Exception {
+        List<String> base = publish("asset", 40, 64 * 1024, 200);
+        Report first = phase("40 items, initial", base, 3);
+        assertTrue(first.toString(), first.consistent);
+
+        // 10 renamed (same content, new name), 10 unassigned, 20 kept, 5 new
+        List<String> next = new ArrayList<>(base.subList(0, 20));
+        for (int i = 20; i < 30; i++) {
+            String renamed = "renamed_" + i + ".mp4";
+            server.put(renamed, server.content(base.get(i)));
+            next.add(renamed);
+        }
+        next.addAll(publish("fresh", 5, 64 * 1024, 300));
+        Report second = phase("rename 10, drop 10, add 5", next, 3);
+        assertTrue(second.toString(), second.consistent);
+        assertEquals(second.idealBytes, 5 * (long) server.content("fresh_0.mp4").length);
+        assertTrue(second.toString(), second.overhead() <= 1.01);
+        assertEquals(0, second.redundant());
+
+        // The unassigned ones come back from retention without a byte on the wire
+        List<String> back = new ArrayList<>(next);
+        back.addAll(base.subList(30, 40));
+        Report third = phase("re-assign the dropped 10", back, 3);
+        assertTrue(third.toString(), third.consistent);
+        assertEquals(0, third.idealBytes);
+        assertEquals(0, third.bytes);
+        assertEquals(0, server.fileRequests.get());
+        assertSteadyState();
+    }
+
+    @Test
+    public void redirectChainsOnASlowLink() throws Exception {
+        server.latencyMs = 20;
+        server.bytesPerSecond = 8L * 1024 * 1024;
+        server.redirectHops = 3;
+        List<String> names = publish("cdn", 8, 300 * 1024, 400);
+        Report r = phase("8 x 300 KB, 3 hops, 8 MB/s", names, 3);
+
+        assertTrue(r.toString(), r.consistent);
+        assertEquals(0, r.redundant());
+        // Each file's chain is followed once; its segments go straight to the final location
+        assertTrue(r.toString(), r.redirects <= 3 * names.size());
+        assertSteadyState();
+    }
+
+    @Test
+    public void unassignedContentIsCountedAsRetainedOrDeleted() throws Exception {
+        List<String> names = publish("kept", 4, 32 * 1024, 600);
+        assertTrue(phase("4 items, initial", names, 3).consistent);
+
+        server.assign(names.subList(0, 3));
+        VideoSync.Result kept = sync.sync(server.downloadsUrl(DEVICE), videoDir);
+        assertEquals(1, kept.retained);
+        assertEquals(0, kept.deleted);
+
+        // A retention quota below one video: what is unassigned now is evicted at once, i.e. deleted
+        sync = newSync(new StorageManager(videoDir, 1, 0, d -> 64L << 30, System::currentTimeMillis));
+        server.assign(names.subList(0, 2));
+        VideoSync.Result dropped = sync.sync(server.downloadsUrl(DEVICE), videoDir);
+        assertEquals(0, dropped.retained);
+        assertEquals(1, dropped.deleted);
+        assertTrue(dropped.changed());
+        assertEquals(PollPolicy.Outcome.CHANGED, dropped.outcome());
+    }
+
+    @Test
+    public void incompleteSyncIsNotAcknowledged() throws Exception {
+        List<String> names = publish("late", 6, 32 * 1024, 500);
+        byte[] missing = server.content(names.get(5));
+        server.assign(names);
+        server.put(names.get(5), null); // in the manifest, but not on the file server yet
+
+        VideoSync.Result partial = sync.checkAndSync(server.statusUrl(DEVICE), server.downloadsUrl(DEVICE), server.updateUrl(DEVICE), videoDir);
+        assertNotNull(partial);
+        assertEquals(1, partial.failed);
+        assertEquals(PollPolicy.Outcome.FAILED, partial.outcome()); // the sync poll backs off
+        assertFalse(server.acknowledged()); // so the next poll syncs again
+        for (String name : names.subList(0, 5)) held.add(DigixStandIn.sha256(server.content(name)));
+
+        server.put(names.get(5), missing);
+        Report r = phase("1 of 6 missing, then there", names, 3);
+        assertTrue(r.toString(), r.consistent);
+        assertEquals(0, r.redundantFile);
+        assertSteadyState();
+    }
+
+    @Test
+    public void rejectedAcknowledgementFailsTheSync() throws Exception {
+        List<String> names = publish("ack", 3, 16 * 1024, 600);
+        server.assign(names);
+        server.rejectUpdates = true;
+
+        try {
+            sync.checkAndSync(server.statusUrl(DEVICE), server.downloadsUrl(DEVICE), server.updateUrl(DEVICE), videoDir);
+            fail("a rejected download_update was taken as acknowledged");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("503"));
+        }
+        assertTrue(consistent(names)); // on disk, but the server still asks for a sync
+        assertFalse(server.acknowledged());
+        assertEquals(PollPolicy.Outcome.UNCHANGED, sync.sync(server.downloadsUrl(DEVICE), videoDir).outcome());
+        for (String name : names) held.add(DigixStandIn.sha256(server.content(name)));
+
+        server.rejectUpdates = false;
+        Report r = phase("acknowledgement rejected, then accepted", names, 2);
+        assertTrue(r.toString(), r.consistent);
+        assertEquals(0, r.bytes); // the retry only acknowledges
+        assertSteadyState();
+    }
+}
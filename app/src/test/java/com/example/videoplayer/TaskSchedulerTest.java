@@ -0,0 +1,141 @@
+package com.example.videoplayer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TaskSchedulerTest {
+
+    private final TaskScheduler scheduler = new TaskScheduler(4);
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+        scheduler.shutdown();
+    }
+
+    /** A task that records its name, then blocks until the gate opens. */
+    private Runnable blocking(String name, CountDownLatch started) {
+        return () -> {
+            ran.add(name);
+            started.countDown();
+            try { gate.await(); } catch (InterruptedException ignored) {}
+        };
+    }
+
+    private Runnable recording(String name, CountDownLatch done) {
+        return () -> { ran.add(name); done.countDown(); };
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        for (int i = 0; i < 500 && scheduler.running() > 0; i++) Thread.sleep(5);
+        assertEquals(0, scheduler.running());
+    }
+
+    @Test
+    public void laneRunsAtMostMaxConcurrent() throws Exception {
+        scheduler.define("net", 2, 8);
+        AtomicInteger inFlight = new AtomicInteger(), peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(6);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(scheduler.submit("net", () -> {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try { Thread.sleep(20); } catch (InterruptedException ignored) {}
+                inFlight.decrementAndGet();
+                done.countDown();
+            }));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, peak.get()); // the pool has 4 threads; the lane still only uses 2
+    }
+
+    @Test
+    public void fullLaneDropsTheOldestWaitingTask() throws Exception {
+        scheduler.define("beat", 1, 2);
+        CountDownLatch started = new CountDownLatch(1), done = new CountDownLatch(2);
+        scheduler.submit("beat", blocking("running", started));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.submit("beat", recording("old", done)));
+        assertTrue(scheduler.submit("beat", recording("mid", done)));
+        assertTrue(scheduler.submit("beat", recording("new", done))); // "old" makes room
+        assertEquals(2, scheduler.queueDepth());
+
+        gate.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        awaitIdle();
+        assertEquals(List.of("running", "mid", "new"), ran);
+        assertTrue(scheduler.describe(), scheduler.describe().contains("beat sub=4 drop=1 ok=3"));
+    }
+
+    @Test
+    public void laneWithoutQueueRejectsWhileBusy() throws Exception {
+        scheduler.define("temp", 1, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        assertTrue(scheduler.submit("temp", blocking("first", started)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertFalse(scheduler.submit("temp", recording("second", new CountDownLatch(1))));
+        assertEquals(0, scheduler.queueDepth());
+        gate.countDown();
+        awaitIdle();
+        assertEquals(List.of("first"), ran);
+
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(scheduler.submit("temp", recording("third", done))); // idle again: accepted
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failingTaskStillDispatchesTheNextOne() throws Exception {
+        scheduler.define("io", 1, 4);
+        CountDownLatch started = new CountDownLatch(1), done = new CountDownLatch(1);
+        scheduler.submit("io", () -> {
+            started.countDown();
+            try { gate.await(); } catch (InterruptedException ignored) {}
+            throw new IllegalStateException("boom");
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scheduler.submit("io", recording("after", done));
+
+        gate.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        awaitIdle();
+        assertEquals(List.of("after"), ran);
+        assertTrue(scheduler.describe(), scheduler.describe().contains("io sub=2 drop=0 ok=1 fail=1"));
+    }
+
+    @Test
+    public void unknownTypeUsesTheDefaultLane() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(scheduler.submit("nobody-defined-this", recording("x", done)));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        awaitIdle();
+        assertTrue(scheduler.describe(), scheduler.describe().contains(TaskScheduler.DEFAULT_LANE + " sub=1"));
+    }
+
+    @Test
+    public void shutdownRejectsNewWorkAndDropsWaitingWork() throws Exception {
+        scheduler.define("net", 1, 4);
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit("net", blocking("running", started));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scheduler.submit("net", recording("waiting", new CountDownLatch(1)));
+
+        scheduler.shutdown();
+        assertFalse(scheduler.submit("net", recording("late", new CountDownLatch(1))));
+        assertFalse(scheduler.submit(TaskScheduler.DEFAULT_LANE, recording("late", new CountDownLatch(1))));
+        awaitIdle(); // the running task was interrupted
+        Thread.sleep(50);
+        assertEquals(List.of("running"), ran);
+        assertEquals(0, scheduler.queueDepth());
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.videoplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class TelemetrySpoolTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** Records calls; batchStatus < 0 means the network is down. */
+    private static final class FakeTransport implements TelemetrySpool.Transport {
+        int batchStatus = 200;
+        final List<String> batches = new ArrayList<>();
+        final List<String> legacy = new ArrayList<>();
+
+        @Override
+        public int sendBatch(byte[] gzippedJson) throws IOException {
+            if (batchStatus < 0) throw new IOException("offline");
+            batches.add(gunzip(gzippedJson));
+            return batchStatus;
+        }
+
+        @Override
+        public void sendLegacy(String type, String data, int count, long lastTs) {
+            legacy.add(type + "x" + count + " " + data);
+        }
+    }
+
+    private static String gunzip(byte[] b) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(b))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096]; int n;
+            while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void eventsSurviveRestartAndDrainAsOneBatch() throws Exception {
+        File f = new File(tmp.getRoot(), "telemetry.spool");
+        TelemetrySpool spool = new TelemetrySpool(f, 100);
+        spool.add("temperature", "{\"temperature\": 21.50}");
+        spool.add("reed_open", "{}");
+
+        TelemetrySpool reopened = new TelemetrySpool(f, 100);
+        assertEquals(2, reopened.pending());
+
+        FakeTransport t = new FakeTransport();
+        assertTrue(reopened.flush(t));
+        assertEquals(1, t.batches.size());
+        assertTrue(t.batches.get(0).startsWith("{\"events\":[{\"type\":\"temperature\""));
+        assertTrue(t.batches.get(0).contains("\"data\":{\"temperature\": 21.50}"));
+        assertEquals(0, reopened.pending());
+        assertEquals(0, new TelemetrySpool(f, 100).pending());
+    }
+
+    @Test
+    public void failedFlushKeepsEventsAndBacksOff() {
+        TelemetrySpool spool = new TelemetrySpool(new File(tmp.getRoot(), "s"), 100);
+        spool.add("heartbeat", "{\"is_online\": true}");
+        FakeTransport t = new FakeTransport();
+        t.batchStatus = -1;
+
+        assertFalse(spool.flush(t));
+        long first = spool.retryDelayMs();
+        assertFalse(spool.flush(t));
+        assertTrue(first > 0 && spool.retryDelayMs() > first);
+        assertEquals(1, spool.pending());
+
+        t.batchStatus = 200;
+        assertTrue(spool.flush(t));
+        assertEquals(0, spool.retryDelayMs());
+    }
+
+    @Test
+    public void pendingCountsUndeliveredEventsPerType() {
+        TelemetrySpool spool = new TelemetrySpool(new File(tmp.getRoot(), "s"), 100);
+        spool.add("heartbeat", "{\"is_online\": true}");
+        spool.add("temperature", "{\"temperature\": 20.00}");
+        FakeTransport t = new FakeTransport();
+        t.batchStatus = -1;
+
+        assertFalse(spool.flush(t));
+        assertEquals(1, spool.pending("heartbeat"));
+        assertEquals(0, spool.pending("reed_open"));
+
+        t.batchStatus = 200;
+        assertTrue(spool.flush(t));
+        assertEquals(0, spool.pending("heartbeat"));
+    }
+
+    @Test
+    public void eventsAddedDuringFlushesArePersistedOnce() throws Exception {
+        File f = new File(tmp.getRoot(), "telemetry.spool");
+        TelemetrySpool spool = new TelemetrySpool(f, 100_000);
+        Thread adder = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) spool.add("temperature", "{\"temperature\": " + i + "}");
+        });
+        FakeTransport t = new FakeTransport();
+        adder.start();
+        while (adder.isAlive()) spool.flush(t); // each delivered batch rewrites the file while adds append to it
+        adder.join();
+
+        // The file holds exactly the undelivered events: none lost to a rewrite, none appended twice
+        TelemetrySpool reopened = new TelemetrySpool(f, 100_000);
+        assertEquals(spool.pending(), reopened.pending());
+        assertTrue(reopened.flush(t));
+        int sent = 0;
+        for (String b : t.batches) sent += b.split("\"type\":").length - 1;
+        assertEquals(2000, sent);
+    }
+
+    @Test
+    public void missingBatchEndpointFallsBackToCollapsedLegacyCalls() {
+        TelemetrySpool spool = new TelemetrySpool(new File(tmp.getRoot(), "s"), 100);
+        spool.add("reed_open", "{}");
+        spool.add("temperature", "{\"temperature\": 20.00}");
+        spool.add("reed_open", "{}");
+        spool.add("temperature", "{\"temperature\": 22.00}");
+        FakeTransport t = new FakeTransport();
+        t.batchStatus = 404;
+
+        assertTrue(spool.flush(t));
+        assertEquals(2, t.legacy.size());
+        assertEquals("reed_openx2 {}", t.legacy.get(0));
+        assertEquals("temperaturex2 {\"temperature\": 22.00}", t.legacy.get(1));
+
+        // The endpoint is not probed again on the next flush
+        spool.add("reed_open", "{}");
+        assertTrue(spool.flush(t));
+        assertEquals(1, t.batches.size());
+    }
+
+    @Test
+    public void overflowDropsOldestEvents() {
+        TelemetrySpool spool = new TelemetrySpool(new File(tmp.getRoot(), "s"), 20);
+        for (int i = 0; i < 25; i++) spool.add("temperature", "{\"temperature\": " + i + "}");
+        assertTrue(spool.pending() <= 20);
+
+        FakeTransport t = new FakeTransport();
+        assertTrue(spool.flush(t));
+        assertTrue(t.batches.get(0).contains("{\"temperature\": 24}"));
+        assertFalse(t.batches.get(0).contains("{\"temperature\": 0}"));
+    }
+}
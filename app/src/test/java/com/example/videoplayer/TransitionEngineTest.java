@@ -0,0 +1,211 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransitionEngineTest {
+
+    private static final long FRAME_MS = 16;
+
+    private static final class FakeClock implements TransitionEngine.Clock {
+        long now = 0;
+        @Override public long nowMs() { return now; }
+    }
+
+    /**
+     * A deck whose item has a fixed duration and shows its first frame loadMs after load().
+     * Items are content ids (indexes into durations etc.); the playlist maps positions to content ids.
+     */
+    private static final class FakeDeck implements TransitionEngine.Deck {
+        final FakeClock clock;
+        final List<Integer> playlist;
+        final long[] durations, loadMs;
+        final boolean[] broken;
+        int content = -1, loads;
+        long loadedAt, playStartedAt, positionAtStart;
+        boolean playing, visible;
+
+        FakeDeck(FakeClock clock, List<Integer> playlist, long[] durations, long[] loadMs, boolean[] broken) {
+            this.clock = clock; this.playlist = playlist; this.durations = durations; this.loadMs = loadMs; this.broken = broken;
+        }
+
+        @Override public void load(int i) { content = playlist.get(i); loads++; loadedAt = clock.now; positionAtStart = 0; playing = false; }
+        @Override public void unload() { content = -1; playing = false; }
+        @Override public void reindex(int i) { if (i >= 0) assertEquals(content, (int) playlist.get(i)); }
+        @Override public boolean hasFrame() { return content >= 0 && !broken[content] && clock.now - loadedAt >= loadMs[content]; }
+        @Override public boolean failed() { return content >= 0 && broken[content] && clock.now - loadedAt >= loadMs[content]; }
+        @Override public boolean ended() { return content >= 0 && positionMs() >= durations[content]; }
+        @Override public long positionMs() {
+            long p = playing ? positionAtStart + clock.now - playStartedAt : positionAtStart;
+            return content >= 0 ? Math.min(p, durations[content]) : 0;
+        }
+        @Override public long durationMs() { return content >= 0 && hasFrame() ? durations[content] : -1; }
+        @Override public void play() { if (!playing) { playing = true; playStartedAt = clock.now; } }
+        @Override public void pause() { if (playing) { positionAtStart = positionMs(); playing = false; } }
+        @Override public void setVisible(boolean v) {
+            if (v) assertTrue("shown without a frame", hasFrame());
+            visible = v;
+        }
+    }
+
+    private static final class Run {
+        final FakeClock clock = new FakeClock();
+        final FakeDeck a, b;
+        final List<Integer> playlist = new ArrayList<>();
+        final List<Integer> shown = new ArrayList<>(); // content ids, in the order they were shown
+        final List<Integer> failed = new ArrayList<>();
+        final TransitionEngine engine;
+        int blackFrames = 0;
+
+        Run(long[] durations, long[] loadMs, boolean[] broken) {
+            this(durations, loadMs, broken, durations.length);
+        }
+
+        /** Plays contents 0..playing-1; the rest of the content ids are for playlist updates. */
+        Run(long[] durations, long[] loadMs, boolean[] broken, int playing) {
+            for (int i = 0; i < playing; i++) playlist.add(i);
+            a = new FakeDeck(clock, playlist, durations, loadMs, broken);
+            b = new FakeDeck(clock, playlist, durations, loadMs, broken);
+            engine = new TransitionEngine(a, b, clock, FRAME_MS, new TransitionEngine.Listener() {
+                @Override public void onItemShown(int index) { shown.add(playlist.get(index)); }
+                @Override public void onItemFailed(int index) { failed.add(index); }
+            });
+            engine.setPlaylist(playing, 0);
+        }
+
+        void update(Integer... contents) {
+            List<String> before = new ArrayList<>(), after = new ArrayList<>();
+            for (int c : playlist) before.add("c" + c);
+            for (int c : contents) after.add("c" + c);
+            playlist.clear();
+            playlist.addAll(Arrays.asList(contents));
+            engine.updatePlaylist(PlaylistDiff.compute(before, after));
+        }
+
+        int onScreen() {
+            return a.visible && a.hasFrame() ? a.content : b.visible && b.hasFrame() ? b.content : -1;
+        }
+
+        /** Simulates vsync: ticks when the engine asked for it, checks the screen every frame. */
+        void runFor(long ms) {
+            long nextTick = clock.now;
+            for (long end = clock.now + ms; clock.now < end; clock.now += FRAME_MS) {
+                if (clock.now >= nextTick) {
+                    long delay = engine.tick();
+                    nextTick = delay == TransitionEngine.IDLE ? Long.MAX_VALUE : clock.now + delay;
+                }
+                boolean onScreen = (a.visible && a.hasFrame()) || (b.visible && b.hasFrame());
+                if (!shown.isEmpty() && !onScreen) blackFrames++;
+            }
+        }
+    }
+
+    @Test
+    public void transitionsLandOnTheBoundaryWithoutBlackFrames() {
+        Run r = new Run(new long[]{3000, 2000, 5000}, new long[]{100, 300, 200}, new boolean[3]);
+        r.runFor(25_000);
+
+        assertEquals(0, r.blackFrames);
+        assertEquals(0, r.engine.lateTransitions());
+        assertTrue(r.engine.transitions() >= 6);
+        assertTrue("max error " + r.engine.maxBoundaryErrorMs(), r.engine.maxBoundaryErrorMs() <= FRAME_MS);
+        assertEquals(Integer.valueOf(0), r.shown.get(0));
+        assertEquals(Integer.valueOf(1), r.shown.get(1));
+        assertEquals(Integer.valueOf(2), r.shown.get(2));
+        assertEquals(Integer.valueOf(0), r.shown.get(3));
+    }
+
+    @Test
+    public void slowNextItemHoldsLastFrameInsteadOfGoingBlack() {
+        // Item 1 takes longer to prepare than item 0 plays
+        Run r = new Run(new long[]{500, 2000}, new long[]{50, 1500}, new boolean[2]);
+        r.runFor(3000);
+
+        assertEquals(0, r.blackFrames);
+        assertEquals(1, r.engine.lateTransitions());
+        assertEquals(1, r.engine.currentIndex());
+        assertTrue("gap " + r.engine.lastTransitionGapMs(), r.engine.lastTransitionGapMs() >= 1000 - FRAME_MS);
+    }
+
+    @Test
+    public void brokenItemsAreSkipped() {
+        Run r = new Run(new long[]{1000, 1000, 1000}, new long[]{50, 50, 50}, new boolean[]{false, true, false});
+        r.runFor(5000);
+
+        assertEquals(0, r.blackFrames);
+        assertTrue(r.failed.contains(1));
+        assertFalse(r.shown.contains(1));
+        assertTrue(r.shown.contains(2));
+    }
+
+    @Test
+    public void singleItemLoopsOnAlternatingDecks() {
+        Run r = new Run(new long[]{1000}, new long[]{100}, new boolean[1]);
+        r.runFor(5000);
+
+        assertEquals(0, r.blackFrames);
+        assertTrue(r.engine.transitions() >= 4);
+        assertEquals(0, r.engine.lateTransitions());
+    }
+
+    @Test
+    public void pausedEngineStopsTickingAndNextSkipsImmediately() {
+        Run r = new Run(new long[]{10_000, 10_000}, new long[]{50, 50}, new boolean[2]);
+        r.runFor(1000);
+        r.engine.pause();
+        assertEquals(TransitionEngine.IDLE, r.engine.tick());
+
+        r.engine.next();
+        r.engine.tick();
+        assertEquals(1, r.engine.currentIndex());
+        assertEquals(0, r.blackFrames);
+    }
+
+    @Test
+    public void addingItemsKeepsTheCurrentItemAndItsPreloadedSuccessor() {
+        Run r = new Run(new long[]{3000, 3000, 3000, 3000}, new long[]{100, 100, 100, 100}, new boolean[4], 3);
+        r.runFor(1000);
+        int loads = r.a.loads + r.b.loads;
+
+        r.update(3, 0, 1, 2); // new content in front: everything shifts by one
+        r.runFor(5900);
+
+        assertEquals(0, r.blackFrames);
+        assertEquals(loads + 2, r.a.loads + r.b.loads); // nothing reloaded: only the successors of 1 and 2 were loaded since
+        assertEquals(Arrays.asList(0, 1, 2), r.shown);
+        r.runFor(3000);
+        assertEquals(Integer.valueOf(3), r.shown.get(3)); // then wraps to the new first item
+    }
+
+    @Test
+    public void removedCurrentItemPlaysOutAndIsFollowedByItsSuccessor() {
+        Run r = new Run(new long[]{3000, 3000, 3000}, new long[]{100, 100, 100}, new boolean[3]);
+        r.runFor(1000);
+
+        r.update(1, 2); // the item on screen is gone
+        assertEquals(-1, r.engine.currentIndex());
+        assertEquals(0, r.onScreen());
+        r.runFor(2500);
+
+        assertEquals(0, r.blackFrames);
+        assertEquals(Arrays.asList(0, 1), r.shown);
+        assertEquals(0, r.engine.currentIndex());
+    }
+
+    @Test
+    public void replacingTheNextItemReloadsTheStandbyDeck() {
+        Run r = new Run(new long[]{3000, 3000, 3000}, new long[]{100, 100, 100}, new boolean[3], 2);
+        r.runFor(1000);
+
+        r.update(0, 2); // content 1, preloaded as next, was replaced by content 2
+        r.runFor(2500);
+
+        assertEquals(0, r.blackFrames);
+        assertEquals(Arrays.asList(0, 2), r.shown);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.videoplayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/** Deterministic playlists shaped like production ones: signed CDN urls, campaign-style names. */
+final class Fixtures {
+
+    private Fixtures() {}
+
+    static String name(int i) {
+        return String.format(Locale.US, "campaign_%03d_store-loop_%05d.mp4", i % 97, i);
+    }
+
+    static String url(int i) {
+        return "https://cdn.example.com/assets/" + (i % 16) + "/" + name(i)
+                + "?X-Amz-Expires=3600&X-Amz-Signature=" + Long.toHexString(0x9e3779b97f4a7c15L * (i + 1));
+    }
+
+    static String sha(int i) {
+        return String.format(Locale.US, "%064x", (long) i * 0x2545F4914F6CDD1DL & Long.MAX_VALUE);
+    }
+
+    static String manifestJson(int size) {
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"url\":\"").append(url(i)).append("\",\"filename\":\"").append(name(i))
+                    .append("\",\"video_name\":\"").append(name(i), 0, name(i).length() - 4)
+                    .append("\",\"rotation\":").append((i % 4) * 90)
+                    .append(",\"fit_mode\":\"").append(i % 3 == 0 ? "contain" : "cover")
+                    .append("\",\"sha256\":\"").append(sha(i))
+                    .append("\",\"size\":").append(10_000_000L + i).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    static PlaylistManifest manifest(int size) {
+        List<PlaylistManifest.Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String n = name(i);
+            items.add(new PlaylistManifest.Item(url(i), n, n.substring(0, n.length() - 4), (i % 4) * 90,
+                    i % 3 == 0 ? "contain" : "cover", sha(i), 10_000_000L + i));
+        }
+        return PlaylistManifest.of(items);
+    }
+
+    /** File names on disk: 80% assigned, 10% renamed copies of assigned content, 10% unassigned. */
+    static List<String> localNames(int size) {
+        List<String> names = new ArrayList<>(size);
+        Random r = new Random(size);
+        for (int i = 0; i < size; i++) {
+            int roll = r.nextInt(10);
+            if (roll < 8) names.add(name(i));
+            else if (roll == 8) names.add("renamed_" + i + ".mp4");
+            else names.add("old_" + i + ".mp4");
+        }
+        return names;
+    }
+}
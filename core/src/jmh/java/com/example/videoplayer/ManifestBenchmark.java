@@ -0,0 +1,63 @@
+package com.example.videoplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Manifest parsing (once per changed poll response) and url -> file name sanitizing.
+ * parseTree is the previous org.json path, as the baseline: the whole body as a String, then a tree.
+ */
+@State(Scope.Benchmark)
+public class ManifestBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private String json;
+    private byte[] body;
+    private String[] urls;
+
+    @Setup
+    public void setUp() {
+        json = Fixtures.manifestJson(size);
+        body = json.getBytes(StandardCharsets.UTF_8);
+        urls = new String[size];
+        for (int i = 0; i < size; i++) urls[i] = Fixtures.url(i);
+    }
+
+    @Benchmark
+    public List<PlaylistManifest.Item> parseTree() {
+        return TreeManifestParser.parse(new String(body, StandardCharsets.UTF_8));
+    }
+
+    /** As the app reads a response: decoding bytes, straight into the item list. */
+    @Benchmark
+    public PlaylistManifest parseStream() throws Exception {
+        return PlaylistManifest.read(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+    }
+
+    /** Items handed over one by one and dropped: the parser's own cost. */
+    @Benchmark
+    public void streamItems(Blackhole bh) throws Exception {
+        PlaylistManifest.read(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8), bh::consume);
+    }
+
+    @Benchmark
+    public PlaylistManifest parseString() throws Exception {
+        return PlaylistManifest.parse(json);
+    }
+
+    @Benchmark
+    public void filenameFromUrl(Blackhole bh) {
+        for (String u : urls) bh.consume(PlaylistManifest.filenameFromUrl(u));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.videoplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Per-file metadata matching, exact and partial (the partial rule scans the whole manifest per file). */
+@State(Scope.Benchmark)
+public class PlaylistIndexBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private PlaylistManifest manifest;
+    private List<String> exactNames, partialNames;
+
+    @Setup
+    public void setUp() {
+        manifest = Fixtures.manifest(size);
+        exactNames = new ArrayList<>(size);
+        partialNames = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String n = Fixtures.name(i);
+            exactNames.add(n);
+            // Re-encoded copies on disk carry a suffix: only the "contains" rule matches them
+            partialNames.add(n.substring(0, n.length() - 4) + "_1080p.mp4");
+        }
+    }
+
+    @Benchmark
+    public PlaylistIndex exact() {
+        return PlaylistIndex.build(exactNames, manifest);
+    }
+
+    @Benchmark
+    public PlaylistIndex partial() {
+        return PlaylistIndex.build(partialNames, manifest);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.videoplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Sync planning (name diff + content matching) and live playlist diffing. */
+@State(Scope.Benchmark)
+public class SyncBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private PlaylistManifest manifest;
+    private List<SyncPlanner.Local> locals;
+    private Map<String, String> hashes;
+    private List<String> before, after;
+
+    @Setup
+    public void setUp() {
+        manifest = Fixtures.manifest(size);
+        locals = new ArrayList<>(size);
+        hashes = new HashMap<>();
+        List<String> names = Fixtures.localNames(size);
+        for (int i = 0; i < names.size(); i++) {
+            String n = names.get(i);
+            locals.add(new SyncPlanner.Local(n, 10_000_000L + i));
+            // Renamed copies keep their content; unassigned files hold content no longer in the manifest
+            hashes.put(n, n.startsWith("old_") ? Fixtures.sha(-1 - i) : Fixtures.sha(i));
+        }
+        // A refresh that drops every 10th item, appends as many and moves one
+        before = new ArrayList<>();
+        after = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            before.add(Fixtures.name(i));
+            if (i % 10 != 0) after.add(Fixtures.name(i));
+        }
+        for (int i = 0; i < size / 10; i++) after.add(Fixtures.name(size + i));
+        if (after.size() > 1) after.add(0, after.remove(after.size() / 2));
+    }
+
+    @Benchmark
+    public SyncPlanner.Plan plan() {
+        return SyncPlanner.plan(manifest, locals, hashes::get);
+    }
+
+    @Benchmark
+    public PlaylistDiff playlistDiff() {
+        return PlaylistDiff.compute(before, after);
+    }
+}
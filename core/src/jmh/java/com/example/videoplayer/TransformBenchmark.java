@@ -0,0 +1,46 @@
+package com.example.videoplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Fit math for every item of a playlist (rotation x fit mode x video size) in a portrait view. */
+@State(Scope.Benchmark)
+public class TransformBenchmark {
+
+    private static final int[][] SIZES = {{1920, 1080}, {1080, 1920}, {3840, 2160}, {1280, 720}, {480, 1920}};
+    private static final String[] FITS = {"cover", "contain", "fill"};
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private int[] rotation, width, height;
+    private String[] fitMode;
+    private final float[] out = new float[2];
+
+    @Setup
+    public void setUp() {
+        rotation = new int[size];
+        width = new int[size];
+        height = new int[size];
+        fitMode = new String[size];
+        for (int i = 0; i < size; i++) {
+            rotation[i] = (i % 4) * 90;
+            width[i] = SIZES[i % SIZES.length][0];
+            height[i] = SIZES[i % SIZES.length][1];
+            fitMode[i] = FITS[i % FITS.length];
+        }
+    }
+
+    @Benchmark
+    public float scale() {
+        float acc = 0;
+        for (int i = 0; i < size; i++) {
+            VideoTransform.scale(rotation[i], VideoTransform.fitCode(fitMode[i]), width[i], height[i], 1080, 1920, out);
+            acc += out[0] + out[1];
+        }
+        return acc;
+    }
+}
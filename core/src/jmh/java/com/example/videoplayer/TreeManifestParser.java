@@ -0,0 +1,32 @@
+package com.example.videoplayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/** The org.json tree parse that {@link PlaylistManifest#read} replaced, kept as the benchmarks' baseline. */
+final class TreeManifestParser {
+
+    private TreeManifestParser() {}
+
+    static List<PlaylistManifest.Item> parse(String json) {
+        JSONArray arr = new JSONObject(json).optJSONArray("items");
+        List<PlaylistManifest.Item> items = new ArrayList<>(arr != null ? arr.length() : 0);
+        if (arr == null) return items;
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject it = arr.optJSONObject(i);
+            if (it == null) continue;
+            String url = it.optString("url", "").trim();
+            String filename = it.optString("filename", "").trim();
+            if (filename.isEmpty() && !url.isEmpty()) filename = PlaylistManifest.filenameFromUrl(url);
+            if (url.isEmpty() && filename.isEmpty()) continue;
+            items.add(new PlaylistManifest.Item(url, filename, it.optString("video_name", "").trim(),
+                    it.optInt("rotation", 0), it.optString("fit_mode", "cover"),
+                    it.optString("sha256", "").trim().toLowerCase(Locale.US), it.optLong("size", -1)));
+        }
+        return items;
+    }
+}
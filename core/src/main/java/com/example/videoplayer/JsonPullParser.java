@@ -0,0 +1,290 @@
+package com.example.videoplayer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pull parser over a JSON character stream, in the style of android.util.JsonReader (which plain-Java
+ * code and JVM tests cannot use). Values are read one token at a time from a fixed buffer, so memory
+ * does not grow with the document: only the strings the caller asks for are materialized.
+ */
+final class JsonPullParser implements Closeable {
+
+    enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT }
+
+    // Scopes of the open containers
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5; // a name was read, its value is next
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos, limit;
+    private final StringBuilder text = new StringBuilder(); // reused by strings and numbers
+    private int[] stack = new int[32];
+    private int depth = 1;
+    private Token peeked;     // null until peek() ran for the next token
+    private boolean literal;  // value of a peeked BOOLEAN
+    private long offset;      // chars consumed before buf[0], for error messages
+
+    JsonPullParser(Reader in) {
+        this.in = in;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    Token peek() throws IOException {
+        if (peeked == null) peeked = doPeek();
+        return peeked;
+    }
+
+    boolean hasNext() throws IOException {
+        Token t = peek();
+        return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+    }
+
+    void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    /** Checks that nothing but whitespace follows the top-level value. */
+    void endDocument() throws IOException {
+        expect(Token.END_DOCUMENT);
+    }
+
+    String nextName() throws IOException {
+        expect(Token.NAME);
+        return readQuoted(true);
+    }
+
+    /** A string, or a number as its literal text. */
+    String nextString() throws IOException {
+        Token t = peek();
+        if (t == Token.STRING) {
+            peeked = null;
+            return readQuoted(true);
+        }
+        if (t == Token.NUMBER) {
+            peeked = null;
+            return readNumber();
+        }
+        throw syntax("expected a string but was " + t);
+    }
+
+    boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return literal;
+    }
+
+    void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+
+    /** Skips the next value, including everything nested in it (or a name and its value). */
+    void skipValue() throws IOException {
+        int open = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT: beginObject(); open++; break;
+                case BEGIN_ARRAY: beginArray(); open++; break;
+                case END_OBJECT: endObject(); open--; break;
+                case END_ARRAY: endArray(); open--; break;
+                case NAME:
+                    peeked = null;
+                    readQuoted(false);
+                    if (open == 0) skipValue(); // a name on its own: skip its value too
+                    break;
+                case STRING: peeked = null; readQuoted(false); break;
+                case NUMBER: peeked = null; readNumber(); break;
+                case BOOLEAN: case NULL: peeked = null; break;
+                default: throw syntax("nothing to skip");
+            }
+        } while (open > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ===== tokenizer =====
+
+    private Token doPeek() throws IOException {
+        int scope = stack[depth - 1];
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                if (nextNonWhitespace() == ']') return Token.END_ARRAY;
+                pos--;
+                break;
+            case NONEMPTY_ARRAY: {
+                int c = nextNonWhitespace();
+                if (c == ']') return Token.END_ARRAY;
+                if (c != ',') throw syntax("expected ',' or ']'");
+                break;
+            }
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT: {
+                stack[depth - 1] = DANGLING_NAME;
+                int c = nextNonWhitespace();
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c == '}') return Token.END_OBJECT;
+                    if (c != ',') throw syntax("expected ',' or '}'");
+                    c = nextNonWhitespace();
+                } else if (c == '}') {
+                    return Token.END_OBJECT;
+                }
+                if (c != '"') throw syntax("expected a name");
+                return Token.NAME;
+            }
+            case DANGLING_NAME:
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') throw syntax("expected ':'");
+                break;
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            default: // NONEMPTY_DOCUMENT
+                if (nextNonWhitespaceOrEof() < 0) return Token.END_DOCUMENT;
+                throw syntax("data after the document");
+        }
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{': return Token.BEGIN_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case '"': return Token.STRING;
+            case 't': readLiteral("rue"); literal = true; return Token.BOOLEAN;
+            case 'f': readLiteral("alse"); literal = false; return Token.BOOLEAN;
+            case 'n': readLiteral("ull"); return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return Token.NUMBER;
+                }
+                throw syntax("unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void expect(Token t) throws IOException {
+        Token actual = peek();
+        if (actual != t) throw syntax("expected " + t + " but was " + actual);
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            int[] bigger = new int[depth * 2];
+            System.arraycopy(stack, 0, bigger, 0, depth);
+            stack = bigger;
+        }
+        stack[depth++] = scope;
+    }
+
+    /** The rest of a string whose opening quote was consumed; null (and nothing kept) unless keep. */
+    private String readQuoted(boolean keep) throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c < 0) throw syntax("unterminated string");
+            if (c == '"') return keep ? text.toString() : null;
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'n': c = '\n'; break;
+                    case 't': c = '\t'; break;
+                    case 'r': c = '\r'; break;
+                    case 'b': c = '\b'; break;
+                    case 'f': c = '\f'; break;
+                    case 'u': {
+                        int v = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int h = Character.digit(read(), 16);
+                            if (h < 0) throw syntax("bad \\u escape");
+                            v = v << 4 | h;
+                        }
+                        c = v;
+                        break;
+                    }
+                    case '"': case '\\': case '/': break;
+                    default: throw syntax("bad escape");
+                }
+            }
+            if (keep) text.append((char) c);
+        }
+    }
+
+    private String readNumber() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                text.append((char) c);
+            } else {
+                if (c >= 0) pos--;
+                return text.toString();
+            }
+        }
+    }
+
+    private void readLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) throw syntax("bad literal");
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = nextNonWhitespaceOrEof();
+        if (c < 0) throw syntax("unexpected end of input");
+        return c;
+    }
+
+    private int nextNonWhitespaceOrEof() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    // One char back (pos--) is always possible after a read: refills only happen when pos == limit
+    private int read() throws IOException {
+        if (pos == limit) {
+            offset += limit;
+            int n;
+            do {
+                n = in.read(buf, 0, buf.length);
+            } while (n == 0);
+            if (n < 0) {
+                pos = limit = 0;
+                return -1;
+            }
+            pos = 0;
+            limit = n;
+        }
+        return buf[pos++];
+    }
+
+    private IOException syntax(String message) {
+        return new IOException("Malformed JSON at char " + (offset + pos) + ": " + message);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.videoplayer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Difference between two playlists of file names, as an index mapping from the old list into the new one.
+ * The engine uses it to renumber what is already loaded instead of restarting playback.
+ */
+final class PlaylistDiff {
+
+    /** oldToNew[i] is the new index of old item i, or -1 if it was removed. */
+    final int[] oldToNew;
+    final int newSize;
+    final int added, removed, moved;
+
+    private PlaylistDiff(int[] oldToNew, int newSize, int added, int removed, int moved) {
+        this.oldToNew = oldToNew;
+        this.newSize = newSize;
+        this.added = added;
+        this.removed = removed;
+        this.moved = moved;
+    }
+
+    /** Names are compared case-insensitively, like the files they name; duplicates map to the first match. */
+    static PlaylistDiff compute(List<String> before, List<String> after) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < after.size(); i++) index.putIfAbsent(after.get(i).toLowerCase(Locale.US), i);
+
+        int[] oldToNew = new int[before.size()];
+        boolean[] kept = new boolean[after.size()];
+        int removed = 0, moved = 0, survivors = 0, lastNew = -1;
+        for (int i = 0; i < before.size(); i++) {
+            Integer n = index.get(before.get(i).toLowerCase(Locale.US));
+            if (n == null || kept[n]) {
+                oldToNew[i] = -1;
+                removed++;
+                continue;
+            }
+            oldToNew[i] = n;
+            kept[n] = true;
+            survivors++;
+            // A survivor that lands before an earlier survivor changed its relative order
+            if (n < lastNew) moved++;
+            else lastNew = n;
+        }
+        return new PlaylistDiff(oldToNew, after.size(), after.size() - survivors, removed, moved);
+    }
+
+    boolean isEmpty() {
+        if (added > 0 || removed > 0) return false;
+        for (int i = 0; i < oldToNew.length; i++) if (oldToNew[i] != i) return false;
+        return true;
+    }
+
+    /** First survivor after old item i (cyclically), as a new index; -1 if nothing survived. */
+    int successorOf(int oldIndex) {
+        for (int k = 1; k <= oldToNew.length; k++) {
+            int n = oldToNew[(oldIndex + k) % oldToNew.length];
+            if (n >= 0) return n;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "PlaylistDiff(+%d -%d moved=%d size=%d)", added, removed, moved, newSize);
+    }
+}
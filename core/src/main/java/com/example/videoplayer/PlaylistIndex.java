@@ -0,0 +1,95 @@
+package com.example.videoplayer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rotation and fit mode per media item index, resolved once whenever the playlist or the manifest
+ * changes, so a media item transition is a plain array lookup.
+ *
+ * Matching rules per file, first hit wins:
+ *  1. manifest filename equals the file name (case-insensitive);
+ *  2. manifest video name equals the file name without extension;
+ *  3. a manifest key (video name, or filename without extension) contains or is contained in the
+ *     file's base name: the longest such key wins, ties go to the earlier manifest item.
+ * Unmatched files play with rotation 0 and "cover".
+ */
+final class PlaylistIndex {
+
+    static final int DEFAULT_ROTATION = 0;
+    static final String DEFAULT_FIT_MODE = "cover";
+
+    static final PlaylistIndex EMPTY = new PlaylistIndex(new String[0], new int[0], new String[0]);
+
+    private final String[] names;
+    private final int[] rotations;
+    private final String[] fitModes;
+
+    private PlaylistIndex(String[] names, int[] rotations, String[] fitModes) {
+        this.names = names;
+        this.rotations = rotations;
+        this.fitModes = fitModes;
+    }
+
+    int size() { return names.length; }
+
+    String name(int i) { return names[i]; }
+
+    int rotation(int i) { return rotations[i]; }
+
+    String fitMode(int i) { return fitModes[i]; }
+
+    /** The file names in media item order, for rebuilding against a newer manifest. */
+    List<String> names() { return Arrays.asList(names.clone()); }
+
+    static PlaylistIndex build(List<String> fileNames, PlaylistManifest manifest) {
+        int n = fileNames.size();
+        if (n == 0) return EMPTY;
+        String[] names = fileNames.toArray(new String[0]);
+        int[] rotations = new int[n];
+        String[] fitModes = new String[n];
+
+        Map<String, PlaylistManifest.Item> byFile = new HashMap<>();
+        Map<String, PlaylistManifest.Item> byName = new HashMap<>();
+        for (PlaylistManifest.Item it : manifest.items) {
+            // putIfAbsent: with duplicate keys the earlier manifest item wins
+            if (!it.filename.isEmpty()) byFile.putIfAbsent(it.filename.toLowerCase(Locale.US), it);
+            if (!it.videoName.isEmpty()) byName.putIfAbsent(it.videoName.toLowerCase(Locale.US), it);
+        }
+
+        for (int i = 0; i < n; i++) {
+            String file = names[i].toLowerCase(Locale.US);
+            String base = stripExtension(file);
+            PlaylistManifest.Item match = byFile.get(file);
+            if (match == null) match = byName.get(base);
+            if (match == null) match = bestPartialMatch(base, manifest.items);
+            rotations[i] = match != null ? match.rotation : DEFAULT_ROTATION;
+            fitModes[i] = match != null ? match.fitMode : DEFAULT_FIT_MODE;
+        }
+        return new PlaylistIndex(names, rotations, fitModes);
+    }
+
+    private static PlaylistManifest.Item bestPartialMatch(String base, List<PlaylistManifest.Item> items) {
+        if (base.isEmpty()) return null;
+        PlaylistManifest.Item best = null;
+        int bestLen = 0;
+        for (PlaylistManifest.Item it : items) {
+            int len = Math.max(partialLength(base, it.videoName.toLowerCase(Locale.US)),
+                    partialLength(base, stripExtension(it.filename.toLowerCase(Locale.US))));
+            if (len > bestLen) { best = it; bestLen = len; }
+        }
+        return best;
+    }
+
+    private static int partialLength(String base, String key) {
+        return !key.isEmpty() && (base.contains(key) || key.contains(base)) ? key.length() : 0;
+    }
+
+    private static String stripExtension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
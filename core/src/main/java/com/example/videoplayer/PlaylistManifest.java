@@ -0,0 +1,147 @@
+package com.example.videoplayer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Parsed, immutable view of /device/{id}/videos/downloads.
+ * One instance is shared by sync and rotation polling, so the list is parsed once per change.
+ */
+final class PlaylistManifest {
+
+    static final class Item {
+        final String url;
+        final String filename;
+        final String videoName;
+        final int rotation;
+        final String fitMode;
+        final String sha256; // lowercase hex, "" when the server doesn't send one
+        final long size;     // bytes, -1 when unknown
+
+        Item(String url, String filename, String videoName, int rotation, String fitMode, String sha256, long size) {
+            this.url = url;
+            this.filename = filename;
+            this.videoName = videoName;
+            this.rotation = rotation;
+            this.fitMode = fitMode;
+            this.sha256 = sha256;
+            this.size = size;
+        }
+    }
+
+    static final PlaylistManifest EMPTY = new PlaylistManifest(Collections.emptyList());
+
+    final List<Item> items;
+
+    private PlaylistManifest(List<Item> items) {
+        this.items = Collections.unmodifiableList(items);
+    }
+
+    static PlaylistManifest of(List<Item> items) {
+        return items.isEmpty() ? EMPTY : new PlaylistManifest(new ArrayList<>(items));
+    }
+
+    boolean isEmpty() { return items.isEmpty(); }
+
+    static PlaylistManifest parse(String json) throws IOException {
+        return read(new StringReader(json));
+    }
+
+    /** Parses the manifest as it streams in: neither the body nor a JSON tree is ever held in memory. */
+    static PlaylistManifest read(Reader in) throws IOException {
+        List<Item> items = new ArrayList<>();
+        read(in, items::add);
+        return items.isEmpty() ? EMPTY : new PlaylistManifest(items);
+    }
+
+    /**
+     * As above, handing each item to sink as soon as it is complete. A malformed or truncated body
+     * throws after some items may have been handed over already.
+     */
+    static void read(Reader in, Consumer<Item> sink) throws IOException {
+        JsonPullParser p = new JsonPullParser(in);
+        p.beginObject();
+        while (p.hasNext()) {
+            if (!p.nextName().equals("items") || p.peek() != JsonPullParser.Token.BEGIN_ARRAY) {
+                p.skipValue();
+                continue;
+            }
+            p.beginArray();
+            while (p.hasNext()) {
+                if (p.peek() != JsonPullParser.Token.BEGIN_OBJECT) {
+                    p.skipValue();
+                    continue;
+                }
+                Item it = readItem(p);
+                if (it != null) sink.accept(it);
+            }
+            p.endArray();
+        }
+        p.endObject();
+        p.endDocument();
+    }
+
+    private static Item readItem(JsonPullParser p) throws IOException {
+        String url = "", filename = "", videoName = "", fitMode = "cover", sha256 = "";
+        int rotation = 0;
+        long size = -1;
+        p.beginObject();
+        while (p.hasNext()) {
+            switch (p.nextName()) {
+                case "url": url = string(p, "").trim(); break;
+                case "filename": filename = string(p, "").trim(); break;
+                case "video_name": videoName = string(p, "").trim(); break;
+                case "rotation": rotation = (int) number(p, 0); break;
+                case "fit_mode": fitMode = string(p, "cover"); break;
+                case "sha256": sha256 = string(p, "").trim().toLowerCase(Locale.US); break;
+                case "size": size = number(p, -1); break;
+                default: p.skipValue();
+            }
+        }
+        p.endObject();
+        // Extract filename from URL if not provided
+        if (filename.isEmpty() && !url.isEmpty()) filename = filenameFromUrl(url);
+        if (url.isEmpty() && filename.isEmpty()) return null;
+        return new Item(url, filename, videoName, rotation, fitMode, sha256, size);
+    }
+
+    // Scalars are read leniently, as org.json's optString/optLong did: numbers as text, numeric strings as numbers
+    private static String string(JsonPullParser p, String fallback) throws IOException {
+        switch (p.peek()) {
+            case STRING: case NUMBER: return p.nextString();
+            case BOOLEAN: return String.valueOf(p.nextBoolean());
+            default: p.skipValue(); return fallback;
+        }
+    }
+
+    private static long number(JsonPullParser p, long fallback) throws IOException {
+        JsonPullParser.Token t = p.peek();
+        if (t != JsonPullParser.Token.NUMBER && t != JsonPullParser.Token.STRING) {
+            p.skipValue();
+            return fallback;
+        }
+        String s = p.nextString().trim();
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(s);
+            } catch (NumberFormatException e2) {
+                return fallback;
+            }
+        }
+    }
+
+    static String filenameFromUrl(String url) {
+        String p = url.contains("?") ? url.substring(0, url.indexOf('?')) : url;
+        int s = p.lastIndexOf('/');
+        String n = s >= 0 ? p.substring(s + 1) : "video.mp4";
+        return n.isEmpty() ? "video.mp4" : n.replaceAll("[\\\\/:*?\"<>|]", "_");
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.videoplayer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides what a sync has to do, given the manifest and the files already on disk.
+ * Items are matched by name first and by content (sha256 + size) second, so a renamed or
+ * re-assigned asset is linked locally instead of downloaded again, and a local file whose size
+ * or hash disagrees with the manifest is repaired.
+ */
+final class SyncPlanner {
+
+    /** Supplies local content hashes; may return null when a hash is unknown. */
+    interface Hashes {
+        String hashOf(String localName);
+    }
+
+    static final class Local {
+        final String name;
+        final long length;
+
+        Local(String name, long length) { this.name = name; this.length = length; }
+    }
+
+    static final class Link {
+        final String from;
+        final String to;
+        final String sha256;
+        final boolean move; // the source name is no longer assigned, so it can be renamed
+
+        Link(String from, String to, String sha256, boolean move) {
+            this.from = from; this.to = to; this.sha256 = sha256; this.move = move;
+        }
+    }
+
+    static final class Plan {
+        final List<PlaylistManifest.Item> downloads = new ArrayList<>();
+        final List<Link> links = new ArrayList<>();
+        final List<String> repairs = new ArrayList<>(); // local names whose content is wrong
+        final List<String> deletes = new ArrayList<>(); // local names no longer assigned
+
+        boolean changesPlaylist() { return !downloads.isEmpty() || !links.isEmpty() || !deletes.isEmpty() || !repairs.isEmpty(); }
+    }
+
+    private SyncPlanner() {}
+
+    static Plan plan(PlaylistManifest manifest, List<Local> localFiles, Hashes hashes) {
+        Plan plan = new Plan();
+        Map<String, Local> locals = new LinkedHashMap<>();
+        for (Local l : localFiles) locals.put(l.name.toLowerCase(Locale.US), l);
+
+        Set<String> expected = new HashSet<>();
+        for (PlaylistManifest.Item it : manifest.items) expected.add(it.filename.toLowerCase(Locale.US));
+
+        Map<String, Local> byHash = null; // built lazily: only needed when a hashed item is missing
+        Set<String> moved = new HashSet<>();
+        Set<String> scheduled = new HashSet<>();
+
+        for (PlaylistManifest.Item it : manifest.items) {
+            String key = it.filename.toLowerCase(Locale.US);
+            if (!scheduled.add(key)) continue; // duplicate names would share one ".part"
+            Local local = locals.get(key);
+
+            if (local != null) {
+                if (matches(it, local, hashes)) continue;
+                plan.repairs.add(local.name);
+                if (!it.url.isEmpty()) plan.downloads.add(it);
+                continue;
+            }
+
+            if (!it.sha256.isEmpty()) {
+                if (byHash == null) byHash = indexByHash(locals.values(), hashes);
+                Local src = byHash.get(it.sha256);
+                if (src != null && (it.size < 0 || src.length == it.size)) {
+                    String srcKey = src.name.toLowerCase(Locale.US);
+                    boolean move = !expected.contains(srcKey) && moved.add(srcKey);
+                    plan.links.add(new Link(src.name, it.filename, it.sha256, move));
+                    // Later items with the same content copy from the new name, the old one is gone
+                    if (move) byHash.put(it.sha256, new Local(it.filename, src.length));
+                    continue;
+                }
+            }
+            if (!it.url.isEmpty()) plan.downloads.add(it);
+        }
+
+        for (Local l : locals.values()) {
+            String key = l.name.toLowerCase(Locale.US);
+            if (!expected.contains(key) && !moved.contains(key)) plan.deletes.add(l.name);
+        }
+        return plan;
+    }
+
+    private static boolean matches(PlaylistManifest.Item it, Local local, Hashes hashes) {
+        if (it.size >= 0 && local.length != it.size) return false;
+        if (it.sha256.isEmpty()) return true;
+        String h = hashes.hashOf(local.name);
+        return h == null || h.equals(it.sha256);
+    }
+
+    private static Map<String, Local> indexByHash(Iterable<Local> locals, Hashes hashes) {
+        Map<String, Local> m = new HashMap<>();
+        for (Local l : locals) {
+            String h = hashes.hashOf(l.name);
+            if (h != null && !m.containsKey(h)) m.put(h, l);
+        }
+        return m;
+    }
+}
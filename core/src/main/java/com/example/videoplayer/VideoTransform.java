@@ -0,0 +1,41 @@
+package com.example.videoplayer;
+
+/**
+ * Fit math for showing a video of vw x vh in a view of viewW x viewH, rotated by 0/90/180/270.
+ * Produces the scale factors applied around the view center before the rotation
+ * (Matrix.setScale(sx, sy, cx, cy) then postRotate(rotation, cx, cy)). Pure and allocation-free.
+ */
+final class VideoTransform {
+
+    static final int FIT_COVER = 0;   // fill the view, crop the overflow (default)
+    static final int FIT_CONTAIN = 1; // show the whole video, letterbox
+    static final int FIT_FILL = 2;    // stretch to the view, ignoring aspect ratio
+
+    private VideoTransform() {}
+
+    static int fitCode(String fitMode) {
+        if ("contain".equals(fitMode)) return FIT_CONTAIN;
+        if ("fill".equals(fitMode)) return FIT_FILL;
+        return FIT_COVER;
+    }
+
+    /** Writes {scaleX, scaleY} into out. Unknown video size (<= 0) falls back to the view size. */
+    static void scale(int rotation, int fit, int vw, int vh, int viewW, int viewH, float[] out) {
+        if (vw <= 0 || vh <= 0) { vw = viewW; vh = viewH; }
+        boolean quarterTurn = rotation == 90 || rotation == 270;
+        // After a quarter turn the video's width lies along the view's height
+        float rw = quarterTurn ? vh : vw;
+        float rh = quarterTurn ? vw : vh;
+
+        if (fit == FIT_FILL) {
+            out[0] = quarterTurn ? (float) viewH / vw : 1f;
+            out[1] = quarterTurn ? (float) viewW / vh : 1f;
+            return;
+        }
+        float s = fit == FIT_CONTAIN
+                ? Math.min(viewW / rw, viewH / rh)
+                : Math.max(viewW / rw, viewH / rh);
+        out[0] = s * vw / viewW;
+        out[1] = s * vh / viewH;
+    }
+}
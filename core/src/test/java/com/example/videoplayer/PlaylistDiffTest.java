@@ -0,0 +1,33 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class PlaylistDiffTest {
+
+    @Test
+    public void mapsSurvivorsAndCountsChanges() {
+        PlaylistDiff d = PlaylistDiff.compute(Arrays.asList("a.mp4", "b.mp4", "c.mp4", "d.mp4"),
+                Arrays.asList("new.mp4", "C.MP4", "a.mp4", "d.mp4"));
+
+        assertArrayEquals(new int[]{2, -1, 1, 3}, d.oldToNew);
+        assertEquals(1, d.added);
+        assertEquals(1, d.removed);
+        assertEquals(1, d.moved); // c now comes before a
+        assertFalse(d.isEmpty());
+    }
+
+    @Test
+    public void successorSkipsRemovedItemsAndWraps() {
+        PlaylistDiff d = PlaylistDiff.compute(Arrays.asList("a", "b", "c", "d"), Arrays.asList("a", "d"));
+        assertEquals(1, d.successorOf(1)); // b -> c (removed) -> d
+        assertEquals(0, d.successorOf(3)); // d -> wraps to a
+
+        assertEquals(-1, PlaylistDiff.compute(Arrays.asList("a"), Collections.singletonList("z")).successorOf(0));
+        assertTrue(PlaylistDiff.compute(Arrays.asList("a", "b"), Arrays.asList("a", "b")).isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class PlaylistIndexTest {
+
+    private static PlaylistManifest.Item item(String filename, String videoName, int rotation, String fitMode) {
+        return new PlaylistManifest.Item("http://x/" + filename, filename, videoName, rotation, fitMode, "", -1);
+    }
+
+    @Test
+    public void exactMatchesAreResolvedPerMediaItemIndex() {
+        PlaylistManifest m = PlaylistManifest.of(Arrays.asList(
+                item("Promo.MP4", "", 90, "contain"),
+                item("other.mp4", "intro", 270, "fill")));
+
+        PlaylistIndex idx = PlaylistIndex.build(Arrays.asList("intro.mp4", "promo.mp4", "unknown.mp4"), m);
+
+        assertEquals(3, idx.size());
+        assertEquals(270, idx.rotation(0));
+        assertEquals("fill", idx.fitMode(0));
+        assertEquals(90, idx.rotation(1));
+        assertEquals("contain", idx.fitMode(1));
+        assertEquals(PlaylistIndex.DEFAULT_ROTATION, idx.rotation(2));
+        assertEquals(PlaylistIndex.DEFAULT_FIT_MODE, idx.fitMode(2));
+    }
+
+    @Test
+    public void partialMatchPrefersLongestKeyThenManifestOrder() {
+        PlaylistManifest m = PlaylistManifest.of(Arrays.asList(
+                item("a.mp4", "summer", 90, "cover"),
+                item("b.mp4", "summer_sale", 180, "cover"),
+                item("c.mp4", "sale", 270, "cover"),
+                item("d.mp4", "sale", 0, "fill")));
+
+        PlaylistIndex idx = PlaylistIndex.build(Arrays.asList("summer_sale_v2.mp4", "sale2.mp4"), m);
+
+        assertEquals(180, idx.rotation(0));
+        assertEquals(270, idx.rotation(1));
+    }
+
+    @Test
+    public void emptyKeysNeverMatchEverything() {
+        PlaylistManifest m = PlaylistManifest.of(Collections.singletonList(item("", "", 90, "fill")));
+        PlaylistIndex idx = PlaylistIndex.build(Collections.singletonList("clip.mp4"), m);
+        assertEquals(PlaylistIndex.DEFAULT_ROTATION, idx.rotation(0));
+    }
+}
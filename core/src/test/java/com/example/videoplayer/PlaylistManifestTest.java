@@ -0,0 +1,93 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PlaylistManifestTest {
+
+    /** Hands out at most n chars per read, so tokens straddle buffer refills. */
+    private static Reader trickle(String s, int n) {
+        return new StringReader(s) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, n));
+            }
+        };
+    }
+
+    @Test
+    public void readsItemsLikeTheTreeParserDid() throws Exception {
+        String json = "{\"status\": \"ok\", \"meta\": {\"n\": [1, {\"x\": null}]}, \"items\": [\n"
+                + " {\"url\": \" https://cdn/a/clip%20one.mp4?sig=1 \", \"video_name\": \"Clip \\\"One\\\" \\u00e9\","
+                + "  \"rotation\": 90, \"fit_mode\": \"contain\", \"sha256\": \"ABCDEF\", \"size\": 12345, \"tags\": [\"x\"]},\n"
+                + " {\"filename\": \"b.mp4\", \"rotation\": \"270\", \"size\": 1.5e3, \"fit_mode\": null},\n"
+                + " {\"url\": \"\", \"filename\": \"\"},\n"
+                + " \"not an object\", 42,\n"
+                + " {\"url\": \"https://cdn/c.mp4\", \"rotation\": true, \"size\": \"big\"}\n"
+                + "]}";
+        for (int chunk : new int[] {1, 7, 8192}) {
+            PlaylistManifest m = PlaylistManifest.read(trickle(json, chunk));
+            assertEquals(3, m.items.size());
+
+            PlaylistManifest.Item a = m.items.get(0);
+            assertEquals("https://cdn/a/clip%20one.mp4?sig=1", a.url);
+            assertEquals("clip%20one.mp4", a.filename); // from the url
+            assertEquals("Clip \"One\" \u00e9", a.videoName);
+            assertEquals(90, a.rotation);
+            assertEquals("contain", a.fitMode);
+            assertEquals("abcdef", a.sha256);
+            assertEquals(12345, a.size);
+
+            PlaylistManifest.Item b = m.items.get(1);
+            assertEquals("", b.url);
+            assertEquals(270, b.rotation); // numeric strings count, as with optInt
+            assertEquals(1500, b.size);
+            assertEquals("cover", b.fitMode);
+
+            PlaylistManifest.Item c = m.items.get(2);
+            assertEquals(0, c.rotation);
+            assertEquals(-1, c.size);
+        }
+    }
+
+    @Test
+    public void emptyOrMissingItemsAreTheEmptyManifest() throws Exception {
+        assertSame(PlaylistManifest.EMPTY, PlaylistManifest.parse("{}"));
+        assertSame(PlaylistManifest.EMPTY, PlaylistManifest.parse("{\"items\": []}"));
+        assertSame(PlaylistManifest.EMPTY, PlaylistManifest.parse(" {\"items\": {\"a\": 1}} "));
+    }
+
+    @Test
+    public void malformedOrTruncatedBodiesThrow() {
+        for (String bad : new String[] {"", "[]", "{\"items\": [{\"url\": \"a.mp4\"}", "{\"items\": [{\"url\": \"a.mp4\",}]}",
+                "{\"items\": [] } trailing", "{\"items\": [{\"url\": \"a\\x\"}]}", "{\"items\": [tru]}"}) {
+            try {
+                PlaylistManifest.parse(bad);
+                fail("accepted: " + bad);
+            } catch (IOException expected) {
+                // malformed
+            }
+        }
+    }
+
+    @Test
+    public void streamsItemsToTheSinkAsTheyComplete() throws Exception {
+        List<String> seen = new ArrayList<>();
+        String json = "{\"items\": [{\"filename\": \"a.mp4\"}, {\"filename\": \"b.mp4\"}, {\"filename\": ";
+        try {
+            PlaylistManifest.read(new StringReader(json), it -> seen.add(it.filename));
+            fail();
+        } catch (IOException expected) {
+            // truncated after two complete items
+        }
+        assertEquals(2, seen.size());
+        assertEquals("b.mp4", seen.get(1));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SyncPlannerTest {
+
+    private static PlaylistManifest.Item item(String name, String sha256, long size) {
+        return new PlaylistManifest.Item("http://x/" + name, name, "", 0, "cover", sha256, size);
+    }
+
+    @Test
+    public void renamedAssetIsMovedInsteadOfDownloaded() {
+        PlaylistManifest m = PlaylistManifest.of(Collections.singletonList(item("new.mp4", "aa", 10)));
+        Map<String, String> hashes = new HashMap<>();
+        hashes.put("old.mp4", "aa");
+
+        SyncPlanner.Plan p = SyncPlanner.plan(m, Collections.singletonList(new SyncPlanner.Local("old.mp4", 10)), hashes::get);
+
+        assertTrue(p.downloads.isEmpty());
+        assertEquals(1, p.links.size());
+        assertTrue(p.links.get(0).move);
+        assertEquals("new.mp4", p.links.get(0).to);
+        assertTrue(p.deletes.isEmpty());
+    }
+
+    @Test
+    public void sharedContentIsCopiedWhenSourceStaysAssigned() {
+        PlaylistManifest m = PlaylistManifest.of(Arrays.asList(item("a.mp4", "aa", -1), item("b.mp4", "aa", -1)));
+        Map<String, String> hashes = new HashMap<>();
+        hashes.put("a.mp4", "aa");
+
+        SyncPlanner.Plan p = SyncPlanner.plan(m, Collections.singletonList(new SyncPlanner.Local("a.mp4", 10)), hashes::get);
+
+        assertEquals(1, p.links.size());
+        assertFalse(p.links.get(0).move);
+        assertTrue(p.downloads.isEmpty());
+    }
+
+    @Test
+    public void truncatedFileIsRepairedAndUnassignedDeleted() {
+        PlaylistManifest m = PlaylistManifest.of(Collections.singletonList(item("a.mp4", "", 100)));
+
+        SyncPlanner.Plan p = SyncPlanner.plan(m, Arrays.asList(new SyncPlanner.Local("a.mp4", 40), new SyncPlanner.Local("gone.mp4", 5)), n -> null);
+
+        assertEquals(Collections.singletonList("a.mp4"), p.repairs);
+        assertEquals(1, p.downloads.size());
+        assertEquals(Collections.singletonList("gone.mp4"), p.deletes);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.videoplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VideoTransformTest {
+
+    private static final float EPS = 1e-4f;
+
+    private static float[] scale(int rotation, String fit, int vw, int vh, int viewW, int viewH) {
+        float[] out = new float[2];
+        VideoTransform.scale(rotation, VideoTransform.fitCode(fit), vw, vh, viewW, viewH, out);
+        return out;
+    }
+
+    @Test
+    public void unrotatedMatchingAspectIsIdentity() {
+        for (String fit : new String[]{"cover", "contain", "fill"}) {
+            float[] s = scale(0, fit, 1920, 1080, 1280, 720);
+            assertEquals(fit, 1f, s[0], EPS);
+            assertEquals(fit, 1f, s[1], EPS);
+        }
+    }
+
+    @Test
+    public void coverCropsAndContainLetterboxes() {
+        // 16:9 video in a 4:3 view
+        float[] cover = scale(0, "cover", 1600, 900, 800, 600);
+        assertEquals(4f / 3f, cover[0], EPS);
+        assertEquals(1f, cover[1], EPS);
+
+        float[] contain = scale(180, "contain", 1600, 900, 800, 600);
+        assertEquals(1f, contain[0], EPS);
+        assertEquals(0.75f, contain[1], EPS);
+    }
+
+    @Test
+    public void quarterTurnSwapsVideoAxes() {
+        // Landscape 1920x1080 video on a portrait 1080x1920 screen, rotated 90: fills exactly
+        float[] cover = scale(90, "cover", 1920, 1080, 1080, 1920);
+        assertEquals(16f / 9f, cover[0], EPS);
+        assertEquals(9f / 16f, cover[1], EPS);
+
+        float[] fill = scale(270, "fill", 1920, 1080, 1080, 1920);
+        assertEquals(1f, fill[0], EPS);
+        assertEquals(1f, fill[1], EPS);
+    }
+
+    @Test
+    public void unknownVideoSizeFallsBackToView() {
+        float[] s = scale(0, "contain", 0, 0, 480, 1920);
+        assertEquals(1f, s[0], EPS);
+        assertEquals(1f, s[1], EPS);
+    }
+
+    @Test
+    public void unknownFitModeMeansCover() {
+        assertEquals(VideoTransform.FIT_COVER, VideoTransform.fitCode("zoom"));
+        assertEquals(VideoTransform.FIT_COVER, VideoTransform.fitCode(null));
+    }
+}